@@ -14,4 +14,6 @@ module penna.api {
     exports penna.api.models;
     exports penna.api.config;
     exports penna.api.audit;
+    exports penna.api.logging;
+    exports penna.api.serialization;
 }
\ No newline at end of file
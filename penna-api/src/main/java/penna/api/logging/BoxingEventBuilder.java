@@ -0,0 +1,122 @@
+package penna.api.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+
+import java.util.function.Supplier;
+
+/**
+ * Adapts the builders of other SLF4J implementations, boxing the primitive values.
+ */
+final class BoxingEventBuilder implements PennaEventBuilder {
+    static final BoxingEventBuilder NOP = new BoxingEventBuilder(NOPLoggingEventBuilder.singleton());
+
+    private final LoggingEventBuilder delegate;
+
+    BoxingEventBuilder(LoggingEventBuilder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, long value) {
+        delegate.addKeyValue(key, value);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, double value) {
+        delegate.addKeyValue(key, value);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, boolean value) {
+        delegate.addKeyValue(key, value);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addText(String key, CharSequence value) {
+        delegate.addKeyValue(key, value == null ? null : value.toString());
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, Object value) {
+        delegate.addKeyValue(key, value);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, Supplier<Object> valueSupplier) {
+        delegate.addKeyValue(key, valueSupplier);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder setCause(Throwable cause) {
+        delegate.setCause(cause);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addMarker(Marker marker) {
+        delegate.addMarker(marker);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addArgument(Object p) {
+        delegate.addArgument(p);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addArgument(Supplier<?> objectSupplier) {
+        delegate.addArgument(objectSupplier);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder setMessage(String message) {
+        delegate.setMessage(message);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder setMessage(Supplier<String> messageSupplier) {
+        delegate.setMessage(messageSupplier);
+        return this;
+    }
+
+    @Override
+    public void log() {
+        delegate.log();
+    }
+
+    @Override
+    public void log(String message) {
+        delegate.log(message);
+    }
+
+    @Override
+    public void log(String message, Object arg) {
+        delegate.log(message, arg);
+    }
+
+    @Override
+    public void log(String message, Object arg0, Object arg1) {
+        delegate.log(message, arg0, arg1);
+    }
+
+    @Override
+    public void log(String message, Object... args) {
+        delegate.log(message, args);
+    }
+
+    @Override
+    public void log(Supplier<String> messageSupplier) {
+        delegate.log(messageSupplier);
+    }
+}
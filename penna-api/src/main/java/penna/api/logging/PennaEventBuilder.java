@@ -0,0 +1,106 @@
+package penna.api.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link LoggingEventBuilder} that takes primitive key/value pairs without boxing them.
+ * <br />
+ * The builders returned by Penna loggers implement this interface, so the values are kept unboxed until they are
+ * written. As loggers are usually handled through the SLF4J interfaces, use {@link PennaEventBuilder#of} to get
+ * one:
+ * <pre>{@code
+ * PennaEventBuilder.of(logger.atInfo())
+ *         .addKeyValue("latencyMs", elapsed)
+ *         .addKeyValue("cacheHit", hit)
+ *         .log("Request served");
+ * }</pre>
+ */
+public interface PennaEventBuilder extends LoggingEventBuilder {
+
+    /**
+     * Gets the Penna builder behind a {@link LoggingEventBuilder}.
+     * <br />
+     * Builders from other SLF4J implementations are adapted instead, boxing the values as usual, so the same code
+     * works regardless of which implementation is in use.
+     *
+     * @param builder the builder, as returned by {@link org.slf4j.Logger#atInfo()} and friends.
+     * @return the same builder, or an adapter for it.
+     */
+    static PennaEventBuilder of(LoggingEventBuilder builder) {
+        if (builder instanceof PennaEventBuilder penna) {
+            return penna;
+        }
+        if (builder == NOPLoggingEventBuilder.singleton()) {
+            return BoxingEventBuilder.NOP;
+        }
+        return new BoxingEventBuilder(builder);
+    }
+
+    /**
+     * Adds a key/value pair with a whole number as its value.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return this builder.
+     */
+    PennaEventBuilder addKeyValue(String key, long value);
+
+    /**
+     * Adds a key/value pair with a floating point number as its value.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return this builder.
+     */
+    PennaEventBuilder addKeyValue(String key, double value);
+
+    /**
+     * Adds a key/value pair with a boolean as its value.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return this builder.
+     */
+    PennaEventBuilder addKeyValue(String key, boolean value);
+
+    /**
+     * Adds a key/value pair with text as its value, which is read when the event is written, without being turned
+     * into a {@link String} first.
+     * <br />
+     * This is not an overload of {@link PennaEventBuilder#addKeyValue(String, Object)} on purpose, so calls passing
+     * a {@link String} (or {@code null}) keep resolving to the same methods as with any other SLF4J builder.
+     *
+     * @param key   the key.
+     * @param value the value; it must not be changed until the event is logged.
+     * @return this builder.
+     */
+    PennaEventBuilder addText(String key, CharSequence value);
+
+    @Override
+    PennaEventBuilder addKeyValue(String key, Object value);
+
+    @Override
+    PennaEventBuilder addKeyValue(String key, Supplier<Object> valueSupplier);
+
+    @Override
+    PennaEventBuilder setCause(Throwable cause);
+
+    @Override
+    PennaEventBuilder addMarker(Marker marker);
+
+    @Override
+    PennaEventBuilder addArgument(Object p);
+
+    @Override
+    PennaEventBuilder addArgument(Supplier<?> objectSupplier);
+
+    @Override
+    PennaEventBuilder setMessage(String message);
+
+    @Override
+    PennaEventBuilder setMessage(Supplier<String> messageSupplier);
+}
@@ -0,0 +1,122 @@
+package penna.api.models;
+
+import org.slf4j.event.Level;
+
+/**
+ * This record holds configuration on what Penna should do with log messages when the asynchronous writer can't
+ * keep up with the logging threads and its queue is (nearly) full.
+ * <br />
+ * By default, the logging threads wait for the writer to catch up, so no message is lost. Alternatively, messages
+ * at the given level or below (i.e. {@link Level#DEBUG} and {@link Level#TRACE} for a threshold of
+ * {@link Level#DEBUG}) can be dropped or sampled while the queue is full, before they are even encoded, so a
+ * chatty logger can't hold back the more important messages. Messages at {@link Level#ERROR} level are never dropped.
+ * <br />
+ * Dropped messages are counted and periodically reported as a log message.
+ * Without the asynchronous writer there is no queue, so this policy has no effect.
+ *
+ * @param strategy   What to do with the messages at or below the threshold while the queue is full.
+ * @param threshold  The most severe level that can be dropped; more severe levels always wait for the writer.
+ * @param sampleRate When sampling, one in every {@code sampleRate} messages at or below the threshold is kept,
+ *                   on average; each message is kept or dropped at random.
+ */
+public record BackpressurePolicy(
+        Strategy strategy,
+        Level threshold,
+        int sampleRate
+) {
+
+    /**
+     * The possible behaviors for a full queue.
+     */
+    public enum Strategy {
+        /**
+         * The logging thread waits for the writer to make room for the message.
+         */
+        BLOCK,
+        /**
+         * The message is dropped.
+         */
+        DROP,
+        /**
+         * Only a sample of the messages is kept, which wait for the writer to make room for them;
+         * the remaining ones are dropped.
+         */
+        SAMPLE
+    }
+
+    private static final BackpressurePolicy singleton = new BackpressurePolicy(Strategy.BLOCK, Level.TRACE, 1);
+
+    /**
+     * Gets the default instance, which makes the logging threads wait for the writer, so no message is lost.
+     *
+     * @return The static default instance.
+     */
+    public static BackpressurePolicy block() {
+        return singleton;
+    }
+
+    /**
+     * Creates a policy that drops the messages at the given level or below while the queue is full.
+     *
+     * @param threshold The most severe level that can be dropped.
+     * @return An instance of {@link BackpressurePolicy}
+     */
+    public static BackpressurePolicy drop(Level threshold) {
+        return new BackpressurePolicy(Strategy.DROP, threshold, 1);
+    }
+
+    /**
+     * Creates a policy that keeps, at random, one in every {@code sampleRate} messages at the given level or below
+     * while the queue is full.
+     *
+     * @param threshold  The most severe level that can be dropped.
+     * @param sampleRate How many messages are seen for each one that is kept.
+     * @return An instance of {@link BackpressurePolicy}
+     */
+    public static BackpressurePolicy sample(Level threshold, int sampleRate) {
+        return new BackpressurePolicy(Strategy.SAMPLE, threshold, sampleRate);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link BackpressurePolicy#strategy}
+     *
+     * @param strategy What to do with the messages at or below the threshold while the queue is full.
+     * @return A copy of the original object with the values replaced
+     */
+    public BackpressurePolicy replaceStrategy(Strategy strategy) {
+        return new BackpressurePolicy(strategy, this.threshold, this.sampleRate);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link BackpressurePolicy#threshold}
+     *
+     * @param threshold The most severe level that can be dropped.
+     * @return A copy of the original object with the values replaced
+     */
+    public BackpressurePolicy replaceThreshold(Level threshold) {
+        return new BackpressurePolicy(this.strategy, threshold, this.sampleRate);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link BackpressurePolicy#sampleRate}
+     *
+     * @param sampleRate How many messages are seen for each one that is kept.
+     * @return A copy of the original object with the values replaced
+     */
+    public BackpressurePolicy replaceSampleRate(int sampleRate) {
+        return new BackpressurePolicy(this.strategy, this.threshold, sampleRate);
+    }
+
+    /**
+     * Whether messages logged at the given level can be dropped under this policy.
+     *
+     * @param level The level of the message.
+     * @return true if the message can be dropped while the queue is full.
+     */
+    public boolean canDrop(Level level) {
+        return strategy != Strategy.BLOCK
+                && level != Level.ERROR
+                && threshold != null
+                && level.toInt() <= threshold.toInt();
+    }
+}
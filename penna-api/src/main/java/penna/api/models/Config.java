@@ -13,13 +13,24 @@ import java.util.Arrays;
  * @param level             minimum {@link org.slf4j.event.Level} that the logger(s) to which this configuration will be applied will log.
  * @param fields            (ordered) array of fields to be logged in the final JSON message.
  * @param exceptionHandling Allows for configuring exception logging. See {@link ExceptionHandling}
+ * @param flushPolicy       Allows for configuring when log messages are written to the output. See {@link FlushPolicy}
+ * @param backpressure      Allows for configuring what happens to log messages when the asynchronous writer can't keep up.
+ *                          See {@link BackpressurePolicy}
+ * @param routes            Additional outputs the log messages are sent to, besides the main one. See {@link Route}
+ * @param limits            Allows for configuring how large the fields of the log messages can get. See {@link Limits}
  */
 public record Config(
         Level level,
         LogField[] fields,
-        ExceptionHandling exceptionHandling
+        ExceptionHandling exceptionHandling,
+        FlushPolicy flushPolicy,
+        BackpressurePolicy backpressure,
+        Route[] routes,
+        Limits limits
 ) {
 
+    private static final Route[] noRoutes = new Route[]{};
+
     private static final LogField[] defaultFields = new LogField[]{
             //LogField.Counter,
             LogField.TIMESTAMP,
@@ -33,6 +44,59 @@ public record Config(
             LogField.THROWABLE
     };
 
+    /**
+     * Creates a {@link Config} that writes every log message immediately.
+     *
+     * @param level             {@link Config#level}
+     * @param fields            {@link Config#fields}
+     * @param exceptionHandling {@link Config#exceptionHandling}
+     * @see FlushPolicy#immediate()
+     */
+    public Config(Level level, LogField[] fields, ExceptionHandling exceptionHandling) {
+        this(level, fields, exceptionHandling, FlushPolicy.immediate());
+    }
+
+    /**
+     * Creates a {@link Config} that waits for the asynchronous writer when it can't keep up.
+     *
+     * @param level             {@link Config#level}
+     * @param fields            {@link Config#fields}
+     * @param exceptionHandling {@link Config#exceptionHandling}
+     * @param flushPolicy       {@link Config#flushPolicy}
+     * @see BackpressurePolicy#block()
+     */
+    public Config(Level level, LogField[] fields, ExceptionHandling exceptionHandling, FlushPolicy flushPolicy) {
+        this(level, fields, exceptionHandling, flushPolicy, BackpressurePolicy.block());
+    }
+
+    /**
+     * Creates a {@link Config} that only writes to the main output.
+     *
+     * @param level             {@link Config#level}
+     * @param fields            {@link Config#fields}
+     * @param exceptionHandling {@link Config#exceptionHandling}
+     * @param flushPolicy       {@link Config#flushPolicy}
+     * @param backpressure      {@link Config#backpressure}
+     */
+    public Config(Level level, LogField[] fields, ExceptionHandling exceptionHandling, FlushPolicy flushPolicy, BackpressurePolicy backpressure) {
+        this(level, fields, exceptionHandling, flushPolicy, backpressure, noRoutes);
+    }
+
+    /**
+     * Creates a {@link Config} that truncates the fields of the log messages at the default limits.
+     *
+     * @param level             {@link Config#level}
+     * @param fields            {@link Config#fields}
+     * @param exceptionHandling {@link Config#exceptionHandling}
+     * @param flushPolicy       {@link Config#flushPolicy}
+     * @param backpressure      {@link Config#backpressure}
+     * @param routes            {@link Config#routes}
+     * @see Limits#getDefault()
+     */
+    public Config(Level level, LogField[] fields, ExceptionHandling exceptionHandling, FlushPolicy flushPolicy, BackpressurePolicy backpressure, Route[] routes) {
+        this(level, fields, exceptionHandling, flushPolicy, backpressure, routes, Limits.getDefault());
+    }
+
     /**
      * Returns a copy of this {@link Config}, but replacing the {@link Config#level} with the one supplied as a parameter.
      *
@@ -40,7 +104,7 @@ public record Config(
      * @return a new Config with this value applied and the same {@link Config#fields} and {@link Config#exceptionHandling} as the original.
      */
     public Config replaceLevel(@NotNull Level level) {
-        return new Config(level, this.fields, this.exceptionHandling);
+        return new Config(level, this.fields, this.exceptionHandling, this.flushPolicy, this.backpressure, this.routes, this.limits);
     }
 
     /**
@@ -50,7 +114,7 @@ public record Config(
      * @return a new Config with the same {@link Config#level} and {@link Config#exceptionHandling} as the original, replacing the fields.
      */
     public Config replaceFields(LogField... fields) {
-        return new Config(this.level, fields, this.exceptionHandling);
+        return new Config(this.level, fields, this.exceptionHandling, this.flushPolicy, this.backpressure, this.routes, this.limits);
     }
 
     /**
@@ -60,7 +124,47 @@ public record Config(
      * @return a new Config with the same {@link Config#level} and {@link Config#fields} as the original and the {@link Config#exceptionHandling} replaced
      */
     public Config replaceExceptionHandling(ExceptionHandling exceptionHandling) {
-        return new Config(this.level, this.fields, exceptionHandling);
+        return new Config(this.level, this.fields, exceptionHandling, this.flushPolicy, this.backpressure, this.routes, this.limits);
+    }
+
+    /**
+     * Returns a copy of this {@link Config}, but replacing the {@link Config#flushPolicy} with the one supplied as a parameter.
+     *
+     * @param flushPolicy a {@link FlushPolicy} object
+     * @return a new Config with the same {@link Config#level}, {@link Config#fields} and {@link Config#exceptionHandling} as the original and the {@link Config#flushPolicy} replaced
+     */
+    public Config replaceFlushPolicy(FlushPolicy flushPolicy) {
+        return new Config(this.level, this.fields, this.exceptionHandling, flushPolicy, this.backpressure, this.routes, this.limits);
+    }
+
+    /**
+     * Returns a copy of this {@link Config}, but replacing the {@link Config#backpressure} with the one supplied as a parameter.
+     *
+     * @param backpressure a {@link BackpressurePolicy} object
+     * @return a new Config with the same values as the original and the {@link Config#backpressure} replaced
+     */
+    public Config replaceBackpressure(BackpressurePolicy backpressure) {
+        return new Config(this.level, this.fields, this.exceptionHandling, this.flushPolicy, backpressure, this.routes, this.limits);
+    }
+
+    /**
+     * Returns a copy of this {@link Config}, but replacing the {@link Config#routes} with the ones supplied as parameters.
+     *
+     * @param routes the rules for sending log messages to additional outputs; none to only write to the main output.
+     * @return a new Config with the same values as the original and the {@link Config#routes} replaced
+     */
+    public Config replaceRoutes(Route... routes) {
+        return new Config(this.level, this.fields, this.exceptionHandling, this.flushPolicy, this.backpressure, routes, this.limits);
+    }
+
+    /**
+     * Returns a copy of this {@link Config}, but replacing the {@link Config#limits} with the ones supplied as a parameter.
+     *
+     * @param limits a {@link Limits} object
+     * @return a new Config with the same values as the original and the {@link Config#limits} replaced
+     */
+    public Config replaceLimits(Limits limits) {
+        return new Config(this.level, this.fields, this.exceptionHandling, this.flushPolicy, this.backpressure, this.routes, limits);
     }
 
     /**
@@ -78,11 +182,15 @@ public record Config(
      * - {@link LogField#MARKERS}
      * - {@link LogField#KEY_VALUE_PAIRS}
      * - {@link LogField#THROWABLE}
+     * {@code flushPolicy} to be {@link FlushPolicy#immediate()}
+     * {@code backpressure} to be {@link BackpressurePolicy#block()}
+     * {@code routes} to be empty, so messages are only written to the main output
+     * {@code limits} to be {@link Limits#getDefault()}
      *
      * @return a new Config copy with the default values applied.
      */
     public static Config getDefault() {
-        return new Config(Level.INFO, defaultFields, ExceptionHandling.getDefault());
+        return new Config(Level.INFO, defaultFields, ExceptionHandling.getDefault(), FlushPolicy.immediate(), BackpressurePolicy.block(), noRoutes, Limits.getDefault());
     }
 
     /**
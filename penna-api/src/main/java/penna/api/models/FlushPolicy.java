@@ -0,0 +1,79 @@
+package penna.api.models;
+
+/**
+ * This record holds configuration on when Penna should write the log messages it has encoded to the output.
+ * <br />
+ * By default, every message is written as soon as it is encoded. With a flush policy in place, messages are held
+ * back in the sink's buffer and written together, reducing the number of system calls under bursty workloads.
+ * Messages at {@link org.slf4j.event.Level#ERROR} level are always written immediately, and anything held back
+ * is written when the application shuts down.
+ *
+ * @param maxBytes       Amount of bytes that can be held back before writing; {@code 0} means no limit by size.
+ * @param maxDelayMicros How long, in microseconds, a message can be held back before writing; {@code 0} means no
+ *                       limit by time.
+ */
+public record FlushPolicy(
+        int maxBytes,
+        long maxDelayMicros
+) {
+
+    private static final FlushPolicy singleton = new FlushPolicy(0, 0L);
+
+    /**
+     * Gets the default instance, which writes every message as soon as it is encoded.
+     *
+     * @return The static default instance.
+     */
+    public static FlushPolicy immediate() {
+        return singleton;
+    }
+
+    /**
+     * Creates a policy that holds messages back until the given amount of bytes is reached.
+     *
+     * @param maxBytes Amount of bytes that can be held back before writing.
+     * @return An instance of {@link FlushPolicy}
+     */
+    public static FlushPolicy everyBytes(int maxBytes) {
+        return new FlushPolicy(maxBytes, 0L);
+    }
+
+    /**
+     * Creates a policy that holds messages back for at most the given amount of time.
+     *
+     * @param maxDelayMicros How long, in microseconds, a message can be held back before writing.
+     * @return An instance of {@link FlushPolicy}
+     */
+    public static FlushPolicy everyMicros(long maxDelayMicros) {
+        return new FlushPolicy(0, maxDelayMicros);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link FlushPolicy#maxBytes}
+     *
+     * @param maxBytes Amount of bytes that can be held back before writing.
+     * @return A copy of the original object with the values replaced
+     */
+    public FlushPolicy replaceMaxBytes(int maxBytes) {
+        return new FlushPolicy(maxBytes, this.maxDelayMicros);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link FlushPolicy#maxDelayMicros}
+     *
+     * @param maxDelayMicros How long, in microseconds, a message can be held back before writing.
+     * @return A copy of the original object with the values replaced
+     */
+    public FlushPolicy replaceMaxDelayMicros(long maxDelayMicros) {
+        return new FlushPolicy(this.maxBytes, maxDelayMicros);
+    }
+
+    /**
+     * Whether this policy writes every message as soon as it is encoded.
+     *
+     * @return true if neither a size nor a time limit is set.
+     */
+    public boolean isImmediate() {
+        return maxBytes <= 0 && maxDelayMicros <= 0;
+    }
+}
@@ -0,0 +1,88 @@
+package penna.api.models;
+
+/**
+ * This record holds configuration on how large the fields of a log message can get before Penna cuts them short.
+ * <br />
+ * Values that go over a limit are truncated and marked as such, so the message is still valid JSON and the reader
+ * can tell something was left out: strings end with {@code …(truncated 12034 bytes)}, collections end with an
+ * element (or, for maps, an entry keyed {@code …}) reading {@code …(truncated 15 elements)} and values nested too
+ * deep are replaced by {@code …(truncated depth)}. The markers are written on top of the limits, and they count the
+ * bytes left out as encoded in the JSON message, escapes included, like the limits themselves.
+ * <br />
+ * Any limit set to {@code 0} or less is lifted.
+ *
+ * @param maxMessageBytes Amount of bytes the formatted message can take, as encoded in the JSON message.
+ * @param maxValueBytes   Amount of bytes each string value can take, as encoded in the JSON message; this covers the
+ *                        values of the key/value pairs and of the MDC, at any depth, and the exception messages.
+ * @param maxElements     Amount of elements each collection, array or map can have.
+ * @param maxDepth        How many collections, arrays, maps or objects can be nested into each other in a value.
+ */
+public record Limits(
+        int maxMessageBytes,
+        int maxValueBytes,
+        int maxElements,
+        int maxDepth
+) {
+
+    private static final Limits singleton = new Limits(64 * 1024, 16 * 1024, 1024, 32);
+    private static final Limits unbounded = new Limits(0, 0, 0, 0);
+
+    /**
+     * Gets the default instance, which allows for messages of 64KiB, string values of 16KiB, collections of
+     * 1024 elements and 32 levels of nesting.
+     *
+     * @return The static default instance.
+     */
+    public static Limits getDefault() {
+        return singleton;
+    }
+
+    /**
+     * Gets an instance that never truncates anything.
+     *
+     * @return The static unbounded instance.
+     */
+    public static Limits unbounded() {
+        return unbounded;
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link Limits#maxMessageBytes}
+     *
+     * @param maxMessageBytes Amount of bytes the formatted message can take.
+     * @return A copy of the original object with the values replaced
+     */
+    public Limits replaceMaxMessageBytes(int maxMessageBytes) {
+        return new Limits(maxMessageBytes, this.maxValueBytes, this.maxElements, this.maxDepth);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link Limits#maxValueBytes}
+     *
+     * @param maxValueBytes Amount of bytes each string value can take.
+     * @return A copy of the original object with the values replaced
+     */
+    public Limits replaceMaxValueBytes(int maxValueBytes) {
+        return new Limits(this.maxMessageBytes, maxValueBytes, this.maxElements, this.maxDepth);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link Limits#maxElements}
+     *
+     * @param maxElements Amount of elements each collection, array or map can have.
+     * @return A copy of the original object with the values replaced
+     */
+    public Limits replaceMaxElements(int maxElements) {
+        return new Limits(this.maxMessageBytes, this.maxValueBytes, maxElements, this.maxDepth);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link Limits#maxDepth}
+     *
+     * @param maxDepth How many collections, arrays, maps or objects can be nested into each other.
+     * @return A copy of the original object with the values replaced
+     */
+    public Limits replaceMaxDepth(int maxDepth) {
+        return new Limits(this.maxMessageBytes, this.maxValueBytes, this.maxElements, maxDepth);
+    }
+}
@@ -0,0 +1,81 @@
+package penna.api.models;
+
+import org.slf4j.event.Level;
+
+/**
+ * This record holds a routing rule that sends the log messages of a logger to an additional, named output,
+ * besides the main one.
+ * <br />
+ * Outputs are registered at runtime by their name, so the same rule can be set through configuration before the
+ * output exists; until it is registered, the rule has no effect.
+ * <br />
+ * For example, sending messages marked as {@code AUDIT} to an "audit" output and errors to an "alerts" output,
+ * while still writing everything to the main output:
+ * <pre>{@code
+ * Config.getDefault().replaceRoutes(
+ *     Route.to("audit").replaceMarker("AUDIT"),
+ *     Route.to("alerts").replaceLevel(Level.ERROR)
+ * );
+ * }</pre>
+ *
+ * @param output The name of the output the messages are sent to.
+ * @param level  The minimum level of the messages sent to the output.
+ * @param marker The name of the marker a message must have in order to be sent to the output,
+ *               or null to send all messages at or above the level.
+ */
+public record Route(
+        String output,
+        Level level,
+        String marker
+) {
+
+    /**
+     * Creates a rule that sends all the messages of the logger to the given output.
+     *
+     * @param output The name of the output.
+     * @return An instance of {@link Route}
+     */
+    public static Route to(String output) {
+        return new Route(output, Level.TRACE, null);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link Route#output}
+     *
+     * @param output The name of the output.
+     * @return A copy of the original object with the values replaced
+     */
+    public Route replaceOutput(String output) {
+        return new Route(output, this.level, this.marker);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link Route#level}
+     *
+     * @param level The minimum level of the messages sent to the output.
+     * @return A copy of the original object with the values replaced
+     */
+    public Route replaceLevel(Level level) {
+        return new Route(this.output, level, this.marker);
+    }
+
+    /**
+     * Returns a copy of the original object swapping the value for {@link Route#marker}
+     *
+     * @param marker The name of the marker a message must have, or null for any message.
+     * @return A copy of the original object with the values replaced
+     */
+    public Route replaceMarker(String marker) {
+        return new Route(this.output, this.level, marker);
+    }
+
+    /**
+     * Whether messages logged at the given level are sent to the output, provided they have the marker.
+     *
+     * @param level The level of the message.
+     * @return true if the level is at least as severe as the one in this rule.
+     */
+    public boolean accepts(Level level) {
+        return this.level == null || level.toInt() >= this.level.toInt();
+    }
+}
@@ -0,0 +1,106 @@
+package penna.api.serialization;
+
+/**
+ * Writes a JSON value straight into the log message being encoded, so objects can be logged as structured JSON
+ * without being rendered to an intermediate string or tree first.
+ * <br />
+ * Separators are taken care of by the writer: values are written one after the other, and each value inside an
+ * object is preceded by its {@link JsonWriter#name(CharSequence)}.
+ *
+ * @see ValueSerializer
+ */
+public interface JsonWriter {
+
+    /**
+     * Opens a JSON object.
+     *
+     * @return this writer.
+     */
+    JsonWriter beginObject();
+
+    /**
+     * Closes the innermost open JSON object.
+     *
+     * @return this writer.
+     */
+    JsonWriter endObject();
+
+    /**
+     * Opens a JSON array.
+     *
+     * @return this writer.
+     */
+    JsonWriter beginArray();
+
+    /**
+     * Closes the innermost open JSON array.
+     *
+     * @return this writer.
+     */
+    JsonWriter endArray();
+
+    /**
+     * Writes the name of the next entry of the current object.
+     *
+     * @param name the name of the entry.
+     * @return this writer.
+     */
+    JsonWriter name(CharSequence name);
+
+    /**
+     * Writes a string value, escaped as needed.
+     *
+     * @param value the value; null is written as {@code null}.
+     * @return this writer.
+     */
+    JsonWriter value(CharSequence value);
+
+    /**
+     * Writes a number value.
+     *
+     * @param value the value.
+     * @return this writer.
+     */
+    JsonWriter value(long value);
+
+    /**
+     * Writes a number value; {@code NaN} and the infinities, having no JSON representation, are written as strings.
+     *
+     * @param value the value.
+     * @return this writer.
+     */
+    JsonWriter value(double value);
+
+    /**
+     * Writes a number value, with no more digits than needed to tell it apart from the neighbouring floats;
+     * {@code NaN} and the infinities are written as strings.
+     *
+     * @param value the value.
+     * @return this writer.
+     */
+    JsonWriter value(float value);
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value the value.
+     * @return this writer.
+     */
+    JsonWriter value(boolean value);
+
+    /**
+     * Writes {@code null}.
+     *
+     * @return this writer.
+     */
+    JsonWriter nullValue();
+
+    /**
+     * Writes any object as it would be written as the value of a key/value pair, which includes going through the
+     * registered {@link ValueSerializer} for its type, if any.
+     *
+     * @param value the value.
+     * @return this writer.
+     */
+    JsonWriter value(Object value);
+}
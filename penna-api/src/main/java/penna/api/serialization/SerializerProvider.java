@@ -0,0 +1,17 @@
+package penna.api.serialization;
+
+/**
+ * Registers {@link ValueSerializer}s for the types of an application or a library, once Penna first needs them.
+ * <br />
+ * Implementations are discovered through the {@link java.util.ServiceLoader}, so they must be declared as services
+ * either in {@code META-INF/services/penna.api.serialization.SerializerProvider} or in the module descriptor.
+ */
+public interface SerializerProvider {
+
+    /**
+     * Registers the serializers.
+     *
+     * @param registry the registry to add the serializers to.
+     */
+    void register(SerializerRegistry registry);
+}
@@ -0,0 +1,20 @@
+package penna.api.serialization;
+
+/**
+ * Where the {@link ValueSerializer}s are registered.
+ * <br />
+ * An object is written by the serializer registered for the closest of its types: its own class first, then its
+ * superclasses and, only then, its interfaces. Registering a serializer for a type replaces any previous one for
+ * that very type.
+ */
+public interface SerializerRegistry {
+
+    /**
+     * Registers a serializer for the objects of a type, including its subtypes.
+     *
+     * @param type       the type of the objects.
+     * @param serializer the serializer for them.
+     * @param <T>        the type of the objects.
+     */
+    <T> void register(Class<T> type, ValueSerializer<? super T> serializer);
+}
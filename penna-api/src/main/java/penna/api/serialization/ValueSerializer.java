@@ -0,0 +1,23 @@
+package penna.api.serialization;
+
+/**
+ * Writes objects of a given type as JSON, for when they are logged as the value of a key/value pair.
+ * <br />
+ * A serializer must write exactly one JSON value, which can be an object or an array holding many. If it throws,
+ * whatever it wrote is discarded when possible and the object is written through its {@link Object#toString()}
+ * instead.
+ *
+ * @param <T> the type of the objects it writes.
+ * @see SerializerRegistry
+ */
+@FunctionalInterface
+public interface ValueSerializer<T> {
+
+    /**
+     * Writes the object.
+     *
+     * @param value  the object being logged, never null.
+     * @param writer the writer for the message being encoded.
+     */
+    void write(T value, JsonWriter writer);
+}
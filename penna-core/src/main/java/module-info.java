@@ -1,3 +1,4 @@
+import penna.api.serialization.SerializerProvider;
 import penna.core.slf4j.PennaServiceProvider;
 
 module penna.core {
@@ -8,5 +9,8 @@ module penna.core {
     // Exposes a service provider for SLF4j
     provides org.slf4j.spi.SLF4JServiceProvider with PennaServiceProvider;
 
+    // Loads the serializers registered by applications and libraries
+    uses SerializerProvider;
+
     exports penna.core.api;
 }
@@ -0,0 +1,404 @@
+package penna.core.api;
+
+import penna.api.serialization.ValueSerializer;
+import penna.core.internals.Admission;
+import penna.core.internals.DirectBuffers;
+import penna.core.internals.MessageTemplates;
+import penna.core.internals.Serializers;
+import penna.core.logger.guard.LevelGuard;
+import penna.core.sink.CoreSink;
+import penna.core.sink.framing.Framing;
+import penna.core.sink.framing.Gelf;
+import penna.core.sink.framing.JsonLines;
+import penna.core.sink.framing.Syslog;
+import penna.core.sink.output.DatagramSocketChannel;
+import penna.core.sink.output.GzipFileChannel;
+import penna.core.sink.output.NamedOutput;
+import penna.core.sink.output.RingBufferChannel;
+import penna.core.sink.output.RollingFileChannel;
+import penna.core.sink.output.SharedChannel;
+import penna.core.sink.output.StreamSocketChannel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import static penna.api.audit.Logger.reportError;
+
+/**
+ * This class provides the runtime with a façade for controlling where and how the log messages are written.
+ * <br />
+ * By default, Penna writes each log message to stdout from the thread that is logging it. The methods in this
+ * class allow opting into different output strategies, which are applied to all the loggers at once, and
+ * registering additional outputs, which loggers can route some of their messages to.
+ */
+public class SinkController {
+
+    private SinkController() {}
+
+    private static WritableByteChannel output = SharedChannel.stdout();
+    private static Framing framing = JsonLines.instance();
+    private static RingBufferChannel asyncWriter;
+    private static Path spillDirectory;
+    private static int spillCapacity;
+    private static Thread shutdownHook;
+    private static final Set<String> additionalOutputs = new HashSet<>();
+
+    /**
+     * Opts into the asynchronous writer with the default ring capacity.
+     *
+     * @see SinkController#enableAsyncWriter(int)
+     */
+    public static void enableAsyncWriter() {
+        enableAsyncWriter(RingBufferChannel.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opts into the asynchronous writer: log messages are still encoded by the logging thread, but they are copied
+     * to a preallocated ring buffer and written to the output by a dedicated background thread.
+     * This keeps the logging latency flat even if the output is slow to consume (i.e. a busy container log driver).
+     * <br />
+     * By default, messages are not lost if the ring is full; instead, the logging threads wait for the writer to
+     * catch up. Loggers can opt into dropping or sampling less important messages through their
+     * {@link penna.api.models.BackpressurePolicy}.
+     *
+     * @param capacity The size, in bytes, of the ring buffer.
+     */
+    public static synchronized void enableAsyncWriter(int capacity) {
+        spillDirectory = null;
+        replaceAsyncWriter(new RingBufferChannel(output, capacity));
+    }
+
+    /**
+     * Opts into the asynchronous writer, with a memory-mapped spill file for the messages that don't fit in the ring.
+     * <br />
+     * Instead of making the logging threads wait for the writer when the ring is full, the messages are appended to
+     * the spill file and written, in order, once the writer catches up. The logging threads only wait once the spill
+     * file is full as well. While messages are held in the spill file, the writer is considered saturated as far as
+     * the {@link penna.api.models.BackpressurePolicy} is concerned.
+     *
+     * @param capacity       The size, in bytes, of the ring buffer.
+     * @param spillDirectory The directory where the spill file is created; it is deleted once the writer is stopped.
+     * @param spillCapacity  The size, in bytes, of the spill file.
+     * @throws IOException if the spill file can't be created.
+     * @see SinkController#spillMetrics()
+     */
+    public static synchronized void enableAsyncWriter(int capacity, Path spillDirectory, int spillCapacity) throws IOException {
+        replaceAsyncWriter(new RingBufferChannel(output, capacity, spillDirectory, spillCapacity));
+        SinkController.spillDirectory = spillDirectory;
+        SinkController.spillCapacity = spillCapacity;
+    }
+
+    /**
+     * Takes a snapshot of the spill file metrics of the asynchronous writer, i.e. for exporting them to a
+     * monitoring system.
+     *
+     * @return the current metrics; all zeroes if the asynchronous writer is not enabled.
+     */
+    public static synchronized SpillMetrics spillMetrics() {
+        var writer = asyncWriter;
+        if (writer == null) {
+            return new SpillMetrics(0, 0, 0, 0);
+        }
+        return new SpillMetrics(writer.spilledBytes(), writer.replayedBytes(), writer.spillPending(), writer.replayLagNanos());
+    }
+
+    /**
+     * Returns how much off-heap memory is held by Penna for encoding and writing the log messages, which includes
+     * the buffers of the pooled sinks, the ring of the asynchronous writer and the buffers of the outputs.
+     * The spill file of the asynchronous writer is counted as well, as it is mapped to memory.
+     *
+     * @return the amount of bytes.
+     */
+    public static long directMemoryFootprint() {
+        return DirectBuffers.footprint();
+    }
+
+    /**
+     * Takes a snapshot of the metrics of the cache of pre-parsed message formats, shared by all the sinks.
+     * <br />
+     * Hits, misses and evictions are only counted when the JVM is started with
+     * {@code -Dpenna.templateCacheMetrics=true}, as counting them costs every message a bit; otherwise they are
+     * always 0, while the size is always reported.
+     *
+     * @return the current metrics.
+     */
+    public static TemplateCacheMetrics templateCacheMetrics() {
+        return new TemplateCacheMetrics(
+                MessageTemplates.hits(),
+                MessageTemplates.misses(),
+                MessageTemplates.evictions(),
+                MessageTemplates.size()
+        );
+    }
+
+    /**
+     * Registers how objects of a type are written when logged as the value of a key/value pair, replacing the
+     * previous serializer registered for that very type, if any.
+     * <br />
+     * Libraries can register their serializers through a {@link penna.api.serialization.SerializerProvider} instead.
+     *
+     * @param type       The type of the objects, including its subtypes.
+     * @param serializer How the objects are written.
+     * @param <T>        The type of the objects.
+     */
+    public static <T> void registerSerializer(Class<T> type, ValueSerializer<? super T> serializer) {
+        Serializers.register(type, serializer);
+    }
+
+    private static void replaceAsyncWriter(RingBufferChannel next) {
+        var previous = asyncWriter;
+        var nextFraming = framing;
+        LevelGuard.Shared.logUnits.replaceSinks(() -> new CoreSink(next, nextFraming));
+        asyncWriter = next;
+        Admission.watch(next);
+        registerShutdownHook();
+
+        if (previous != null) {
+            previous.stop();
+        }
+    }
+
+    /**
+     * Reverts to the default behavior of writing straight to the output from the logging thread, after making sure
+     * everything that was accepted by the asynchronous writer is written.
+     */
+    public static synchronized void disableAsyncWriter() {
+        var previous = asyncWriter;
+        if (previous == null) {
+            return;
+        }
+
+        var target = output;
+        var targetFraming = framing;
+        LevelGuard.Shared.logUnits.replaceSinks(() -> new CoreSink(target, targetFraming));
+        asyncWriter = null;
+        spillDirectory = null;
+        Admission.watch(null);
+        // The output must outlive the writer, so it is stopped instead of closed.
+        previous.stop();
+    }
+
+    /**
+     * Writes the log messages to rolling files instead of stdout.
+     *
+     * @param directory   The directory where the files are created.
+     * @param name        The prefix of the file names.
+     * @param segmentSize The size, in bytes, a file can grow before rolling over to the next one.
+     * @param maxAge      How long a file is written to before rolling over to the next one;
+     *                    {@link Duration#ZERO} to roll only by size.
+     * @throws IOException if the first file can't be created.
+     * @see RollingFileChannel
+     */
+    public static synchronized void writeToFile(Path directory, String name, long segmentSize, Duration maxAge) throws IOException {
+        replaceOutput(new RollingFileChannel(directory, name, segmentSize, maxAge), JsonLines.instance());
+    }
+
+    /**
+     * Writes the log messages to rolling gzip-compressed files instead of stdout.
+     * <br />
+     * The messages are compressed by a dedicated background thread, so the logging threads only pay for
+     * copying the messages to the ring buffer in front of it.
+     *
+     * @param directory   The directory where the files are created.
+     * @param name        The prefix of the file names.
+     * @param segmentSize The compressed size, in bytes, a file can grow before rolling over to the next one.
+     * @param maxAge      How long a file is written to before rolling over to the next one;
+     *                    {@link Duration#ZERO} to roll only by size.
+     * @throws IOException if the first file can't be created.
+     * @see GzipFileChannel
+     */
+    public static synchronized void writeToCompressedFile(Path directory, String name, long segmentSize, Duration maxAge) throws IOException {
+        var compressed = new GzipFileChannel(directory, name, segmentSize, maxAge, Deflater.DEFAULT_COMPRESSION);
+        replaceOutput(new RingBufferChannel(compressed), JsonLines.instance());
+    }
+
+    /**
+     * Writes the log messages to a unix domain socket instead of stdout, i.e. for a log shipper sidecar to read from.
+     * <br />
+     * While the peer is unavailable, messages are kept in a bounded backlog and the connection is retried with
+     * an exponential backoff.
+     *
+     * @param socket The path to the socket the peer is listening to.
+     * @see StreamSocketChannel
+     */
+    public static synchronized void writeToSocket(Path socket) {
+        replaceOutput(new StreamSocketChannel(socket), JsonLines.instance());
+    }
+
+    /**
+     * Sends the log messages to a syslog server over TCP (or a unix domain socket), as RFC 5424 messages with the
+     * JSON object as the message body. Messages are delimited by line breaks.
+     * <br />
+     * Messages are batched according to the flush policy, so multiple messages can be sent in a single write.
+     *
+     * @param server  The address the server is listening to.
+     * @param appName The application name in the header of the messages.
+     * @see Syslog
+     * @see StreamSocketChannel
+     */
+    public static synchronized void writeToSyslog(SocketAddress server, String appName) {
+        replaceOutput(new StreamSocketChannel(server), new Syslog(appName));
+    }
+
+    /**
+     * Sends the log messages to a syslog server over UDP, as RFC 5424 messages with the JSON object as the
+     * message body, one message per datagram.
+     *
+     * @param server  The address the server is listening to.
+     * @param appName The application name in the header of the messages.
+     * @throws IOException if the socket can't be opened.
+     * @see Syslog
+     * @see DatagramSocketChannel
+     */
+    public static synchronized void writeToSyslogOverUdp(InetSocketAddress server, String appName) throws IOException {
+        var syslog = new Syslog(appName);
+        replaceOutput(new DatagramSocketChannel(server, syslog.delimiter()[0]), syslog);
+    }
+
+    /**
+     * Sends the log messages to a GELF server (i.e. Graylog) over TCP, delimited by null bytes.
+     * <br />
+     * Messages are batched according to the flush policy, so multiple messages can be sent in a single write.
+     *
+     * @param server The address the server is listening to.
+     * @see Gelf
+     * @see StreamSocketChannel
+     */
+    public static synchronized void writeToGelf(SocketAddress server) {
+        replaceOutput(new StreamSocketChannel(server), new Gelf());
+    }
+
+    /**
+     * Sends the log messages to a GELF server (i.e. Graylog) over UDP, one message per datagram.
+     * Chunked GELF is not supported, so messages that don't fit in a datagram are dropped.
+     *
+     * @param server The address the server is listening to.
+     * @throws IOException if the socket can't be opened.
+     * @see Gelf
+     * @see DatagramSocketChannel
+     */
+    public static synchronized void writeToGelfOverUdp(InetSocketAddress server) throws IOException {
+        var gelf = new Gelf();
+        replaceOutput(new DatagramSocketChannel(server, gelf.delimiter()[0]), gelf);
+    }
+
+    /**
+     * Registers an additional output, which log messages are sent to according to the {@link penna.api.models.Route}s
+     * in the configuration of their loggers. If an output was already registered under this name, it is replaced
+     * and closed.
+     * <br />
+     * Each message is encoded once, with the same framing as the main output, and copied to each of the outputs
+     * it is routed to right after being encoded, from the logging thread. For slow outputs, wrapping the channel in a
+     * {@link RingBufferChannel} moves the writing to a background thread.
+     *
+     * @param name    The name the routes refer to.
+     * @param channel The channel the messages are written to; it is written to from multiple threads.
+     */
+    public static synchronized void addOutput(String name, WritableByteChannel channel) {
+        additionalOutputs.add(name);
+        close(NamedOutput.of(name).replace(channel));
+        registerShutdownHook();
+    }
+
+    /**
+     * Removes an additional output and closes it. Messages routed to it are dropped until it is registered again.
+     *
+     * @param name The name the routes refer to.
+     */
+    public static synchronized void removeOutput(String name) {
+        additionalOutputs.remove(name);
+        close(NamedOutput.of(name).replace(null));
+    }
+
+    /**
+     * Reverts to the default behavior of writing the log messages to stdout.
+     */
+    public static synchronized void writeToStdout() {
+        replaceOutput(SharedChannel.stdout(), JsonLines.instance());
+    }
+
+    // Files are only complete (truncated or with their gzip trailer) when closed, so on shutdown everything that
+    // is held back has to be written before the output is closed. This is the only shutdown hook, so the order is
+    // always the same: the sinks are flushed into the rings, the rings are drained into the outputs and only then
+    // the outputs are closed.
+    private static synchronized void shutdown() {
+        LevelGuard.Shared.logUnits.flushAll();
+        if (asyncWriter != null) {
+            asyncWriter.stop();
+        }
+        if (output != SharedChannel.stdout()) {
+            close(output);
+        }
+        for (var name : additionalOutputs) {
+            close(NamedOutput.of(name).replace(null));
+        }
+    }
+
+    private static RingBufferChannel restartAsyncWriter(int capacity) {
+        if (spillDirectory != null) {
+            try {
+                return new RingBufferChannel(output, capacity, spillDirectory, spillCapacity);
+            } catch (IOException e) {
+                reportError("ERROR", "Unable to create the spill file, the async writer will block once full.", e);
+            }
+        }
+        return new RingBufferChannel(output, capacity);
+    }
+
+    /**
+     * Makes sure that, when the JVM shuts down, the log messages held back by the sinks and by the asynchronous
+     * writer are written and the outputs are closed, in that order.
+     * <br />
+     * Penna registers this hook once it is initialized, and again (as a no-op) whenever an output or the
+     * asynchronous writer is set up, so this is only needed when the loggers are created without going through
+     * SLF4J. Calling it more than once has no effect.
+     */
+    public static synchronized void registerShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = Thread.ofPlatform().name("penna-output-shutdown").unstarted(SinkController::shutdown);
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    private static void close(WritableByteChannel channel) {
+        if (channel == null || channel == SharedChannel.stdout()) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            reportError("ERROR", "Unable to close log output.", e);
+        }
+    }
+
+    private static void replaceOutput(WritableByteChannel next, Framing nextFraming) {
+        var previous = output;
+        if (previous == next && framing == nextFraming) {
+            return;
+        }
+        output = next;
+        framing = nextFraming;
+
+        if (next != SharedChannel.stdout()) {
+            registerShutdownHook();
+        }
+
+        if (asyncWriter != null) {
+            // Stopping the previous writer ensures everything it accepted is written before the old output is closed.
+            replaceAsyncWriter(restartAsyncWriter(asyncWriter.capacity()));
+        } else {
+            LevelGuard.Shared.logUnits.replaceSinks(() -> new CoreSink(next, nextFraming));
+        }
+
+        if (previous != next) {
+            close(previous);
+        }
+    }
+}
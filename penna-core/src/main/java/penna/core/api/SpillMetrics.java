@@ -0,0 +1,18 @@
+package penna.core.api;
+
+/**
+ * A snapshot of how much the asynchronous writer had to rely on its spill file to keep up with the logging threads.
+ *
+ * @param spilledBytes   How many bytes were appended to the spill file because the ring buffer was full.
+ * @param replayedBytes  How many bytes from the spill file were already written to the output.
+ * @param pendingBytes   How many bytes are waiting in the spill file to be written.
+ * @param replayLagNanos For how long the spill file has been holding messages back, or 0 if it is empty.
+ * @see SinkController#enableAsyncWriter(int, java.nio.file.Path, int)
+ */
+public record SpillMetrics(
+        long spilledBytes,
+        long replayedBytes,
+        long pendingBytes,
+        long replayLagNanos
+) {
+}
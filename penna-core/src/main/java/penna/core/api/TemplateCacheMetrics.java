@@ -0,0 +1,33 @@
+package penna.core.api;
+
+/**
+ * A snapshot of how well the message formats are being served from the template cache.
+ * <br />
+ * A low hit rate means most formats are built at runtime (i.e. by concatenating values into the message instead of
+ * passing them as arguments), which defeats the cache.
+ * <br />
+ * Hits, misses and evictions are only counted when the {@code penna.templateCacheMetrics} system property is set
+ * to true, and are 0 otherwise.
+ *
+ * @param hits      How many messages had their format found in the cache.
+ * @param misses    How many messages had their format compiled or formatted without the cache.
+ * @param evictions How many cached formats were replaced by another one.
+ * @param size      How many formats are currently cached.
+ * @see SinkController#templateCacheMetrics()
+ */
+public record TemplateCacheMetrics(
+        long hits,
+        long misses,
+        long evictions,
+        int size
+) {
+
+    /**
+     * @return the share of messages whose format was found in the cache, from 0 to 1; 0 if nothing was logged yet
+     * or the metrics are not counted.
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,138 @@
+package penna.core.internals;
+
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.event.Level;
+import penna.core.models.LogConfig;
+import penna.core.sink.output.RingBufferChannel;
+import penna.core.slf4j.PennaLoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides whether a log message is admitted, according to the {@link penna.api.models.BackpressurePolicy} of its
+ * logger, before a log unit is taken from the pool and the message is encoded.
+ * <br />
+ * Messages are only turned away while the async writer is saturated; without it, every message is admitted.
+ * Dropped messages are counted per level and, once per {@link Admission#REPORT_INTERVAL_NANOS}, reported as a
+ * WARN message from the {@code penna.core.backpressure} logger. The reporting thread is started by the first
+ * dropped message and stops once an interval goes by without any.
+ */
+public final class Admission {
+    private Admission() {}
+
+    static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String REPORTING_LOGGER = "penna.core.backpressure";
+
+    private static final Level[] levels = Level.values();
+    private static final LongAdder[] dropped = new LongAdder[levels.length];
+    private static final AtomicBoolean reporting = new AtomicBoolean();
+    private static volatile boolean reportManually;
+
+    private static volatile RingBufferChannel queue;
+
+    static {
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Sets the queue whose saturation is checked before admitting messages.
+     *
+     * @param ring the async writer in use, or null if messages are written from the logging threads.
+     */
+    public static void watch(RingBufferChannel ring) {
+        queue = ring;
+    }
+
+    /**
+     * Checks whether a message can go through.
+     *
+     * @param config the configuration of the logger.
+     * @param level  the level of the message.
+     * @return false if the message must be dropped.
+     */
+    public static boolean admit(LogConfig config, Level level) {
+        if (!config.droppable[level.ordinal()]) {
+            return true;
+        }
+        var ring = queue;
+        if (ring == null || !ring.saturated()) {
+            return true;
+        }
+        var sampleRate = config.sampleRate;
+        // Picked at random, so the logging threads don't contend on a shared counter while the writer is behind
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            return true;
+        }
+
+        dropped[level.ordinal()].increment();
+        if (!reportManually && !reporting.get() && reporting.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("penna-backpressure-reporter").start(Admission::reportPeriodically);
+        }
+        return false;
+    }
+
+    private static void reportPeriodically() {
+        while (true) {
+            LockSupport.parkNanos(REPORT_INTERVAL_NANOS);
+            if (report() > 0) {
+                continue;
+            }
+            reporting.set(false);
+            // Messages dropped before the flag was cleared didn't start another reporter, so this one goes on
+            if (!hasDropped() || !reporting.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean hasDropped() {
+        for (var counter : dropped) {
+            if (counter.sum() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keeps the dropped messages from being reported in the background, so they are only reported when
+     * {@link Admission#report()} is called.
+     *
+     * @param manual true to stop starting the reporting thread; one that is already running still reports.
+     */
+    @VisibleForTesting
+    public static void reportManually(boolean manual) {
+        reportManually = manual;
+    }
+
+    /**
+     * Logs how many messages were dropped since the last report, if any, and resets the counters.
+     *
+     * @return the amount of messages dropped since the last report.
+     */
+    public static long report() {
+        long total = 0;
+        var counts = new long[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            counts[i] = dropped[i].sumThenReset();
+            total += counts[i];
+        }
+
+        if (total > 0) {
+            var builder = PennaLoggerFactory.getInstance().getLogger(REPORTING_LOGGER).atWarn();
+            for (int i = 0; i < levels.length; i++) {
+                if (counts[i] > 0) {
+                    builder = builder.addKeyValue(levels[i].name(), counts[i]);
+                }
+            }
+            builder.log("Dropped {} log messages while the async writer was saturated", total);
+        }
+        return total;
+    }
+}
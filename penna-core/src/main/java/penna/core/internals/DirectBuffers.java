@@ -0,0 +1,155 @@
+package penna.core.internals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of all the off-heap memory held by Penna and pools the buffers the JSON generators grow into.
+ * <br />
+ * Generator buffers are sized in powers of two. When a generator shrinks back after a large message, its oversized
+ * buffer is returned to the pool, so the next large message (in any of the pooled sinks) can reuse it instead of
+ * allocating again. The pool is bounded both in the size of the buffers it keeps and in the total amount of bytes,
+ * so a single huge message never pins memory after being written: its buffer is let go to the garbage collector.
+ * <br />
+ * Buffers with a fixed size, like the ring of the asynchronous writer, are not pooled, but are still accounted for
+ * in {@link DirectBuffers#footprint()} while in use. So are memory-mapped files, like the spill file of the
+ * asynchronous writer, even though they are backed by the file instead of by memory.
+ */
+public final class DirectBuffers {
+    private DirectBuffers() {}
+
+    /**
+     * The smallest buffer handed out for the generators.
+     */
+    public static final int MIN_CAPACITY = 2 * 1024;
+
+    /**
+     * Buffers larger than this are never pooled.
+     */
+    static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    /**
+     * The pool doesn't keep more than this amount of bytes.
+     */
+    static final long MAX_POOLED_BYTES = 4L * 1024 * 1024;
+
+    // One queue per power of two, from MIN_CAPACITY up to MAX_POOLED_CAPACITY.
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ConcurrentLinkedQueue<ByteBuffer>[] pool =
+            new ConcurrentLinkedQueue[Integer.numberOfTrailingZeros(MAX_POOLED_CAPACITY) - MIN_SHIFT + 1];
+
+    private static final AtomicLong held = new AtomicLong();
+    private static final AtomicLong pooled = new AtomicLong();
+
+    static {
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Gets a buffer with at least the requested capacity, rounded up to a power of two, reusing a pooled one
+     * if available.
+     *
+     * @param minCapacity the minimum amount of bytes the buffer must hold.
+     * @return an empty direct buffer, which must be handed back through {@link DirectBuffers#release(ByteBuffer)}.
+     */
+    public static ByteBuffer acquire(int minCapacity) {
+        int capacity = capacityFor(minCapacity);
+        if (capacity <= MAX_POOLED_CAPACITY) {
+            var buffer = pool[slot(capacity)].poll();
+            if (buffer != null) {
+                pooled.addAndGet(-capacity);
+                return buffer;
+            }
+        }
+        return allocate(capacity);
+    }
+
+    /**
+     * Hands back a buffer obtained through {@link DirectBuffers#acquire(int)}. It is either pooled or let go.
+     *
+     * @param buffer the buffer, which must not be used anymore by the caller.
+     */
+    public static void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (capacity <= MAX_POOLED_CAPACITY && Integer.bitCount(capacity) == 1 && capacity >= MIN_CAPACITY) {
+            if (pooled.addAndGet(capacity) <= MAX_POOLED_BYTES) {
+                pool[slot(capacity)].offer(buffer.clear());
+                return;
+            }
+            pooled.addAndGet(-capacity);
+        }
+        free(buffer);
+    }
+
+    /**
+     * Allocates a buffer of the exact given capacity, which is accounted for but never pooled.
+     *
+     * @param capacity the amount of bytes the buffer holds.
+     * @return a new direct buffer, which must be handed back through {@link DirectBuffers#free(ByteBuffer)}.
+     */
+    public static ByteBuffer allocate(int capacity) {
+        var buffer = ByteBuffer.allocateDirect(capacity);
+        held.addAndGet(capacity);
+        return buffer;
+    }
+
+    /**
+     * Maps the beginning of a file, accounting for the mapped region until it is handed back.
+     * <br />
+     * Mappings can't be released explicitly, so the region stays mapped until the buffer (and all its views)
+     * are reclaimed by the garbage collector; callers should drop every reference to it once they are done.
+     *
+     * @param file     the file to map, opened for reading and writing.
+     * @param capacity the amount of bytes to map.
+     * @return the mapped buffer, which must be handed back through {@link DirectBuffers#free(ByteBuffer)}.
+     * @throws IOException if the file can't be mapped.
+     */
+    public static MappedByteBuffer map(FileChannel file, int capacity) throws IOException {
+        var buffer = file.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        held.addAndGet(capacity);
+        return buffer;
+    }
+
+    /**
+     * Stops accounting for a buffer, which is then reclaimed by the garbage collector.
+     *
+     * @param buffer the buffer, which must not be used anymore by the caller.
+     */
+    public static void free(ByteBuffer buffer) {
+        held.addAndGet(-buffer.capacity());
+    }
+
+    /**
+     * @return how many bytes of off-heap memory are held by Penna, both in use and pooled.
+     */
+    public static long footprint() {
+        return held.get();
+    }
+
+    /**
+     * @return how many bytes of off-heap memory are held in the pool, waiting to be reused.
+     */
+    public static long pooled() {
+        return pooled.get();
+    }
+
+    static int capacityFor(int minCapacity) {
+        if (minCapacity <= MIN_CAPACITY) {
+            return MIN_CAPACITY;
+        }
+        int capacity = Integer.highestOneBit(minCapacity - 1) << 1;
+        // Past 1GiB there's no power of two left, so the exact size is used instead
+        return capacity > 0 ? capacity : minCapacity;
+    }
+
+    private static int slot(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+    }
+}
@@ -8,40 +8,75 @@ import java.io.Closeable;
 import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
 import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static penna.api.audit.Logger.reportError;
 
 public final class DirectJson implements Closeable {
-    private static final int INITIAL_BUFFER_SIZE = 2 * 1024;
-    private int highWatermark = (int) Math.ceil(INITIAL_BUFFER_SIZE * 0.8);
+    private static final int INITIAL_BUFFER_SIZE = DirectBuffers.MIN_CAPACITY;
+    /**
+     * Past this size, the whole messages held in the buffer are written out to make room for the message being
+     * encoded, and if that isn't enough, the message is dropped by throwing {@link MessageTooLarge}.
+     * The channel only ever sees whole messages, as shared channels and datagrams require.
+     */
+    static final int MAX_BUFFER_SIZE = 64 * 1024 * 1024;
+    /**
+     * Once drained, buffers larger than this are handed back to {@link DirectBuffers} and replaced by a small one,
+     * so a single large message doesn't pin off-heap memory in every pooled sink.
+     */
+    static final int RETAINED_BUFFER_SIZE = 256 * 1024;
     private static final byte[] LINE_BREAK = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
     private static final byte QUOTE = '"';
     private static final byte ENTRY_SEP = ':';
     private static final byte KV_SEP = ',';
-    private static final byte DOT = '.';
     private static final byte OPEN_OBJ = '{';
     private static final byte CLOSE_OBJ = '}';
     private static final byte OPEN_ARR = '[';
     private static final byte CLOSE_ARR = ']';
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * How each ASCII character is written inside a JSON string, as per RFC 8259: quotes, backslashes and control
+     * characters are escaped, while a null entry means the character is written as is.
+     */
+    private static final byte[][] ESCAPES = new byte[0x80][];
+
+    static {
+        for (int chr = 0; chr < 0x20; chr++) {
+            ESCAPES[chr] = new byte[]{'\\', 'u', '0', '0', HEX[chr >> 4], HEX[chr & 0xF]};
+        }
+        ESCAPES['"'] = new byte[]{'\\', '"'};
+        ESCAPES['\\'] = new byte[]{'\\', '\\'};
+        ESCAPES['\b'] = new byte[]{'\\', 'b'};
+        ESCAPES['\f'] = new byte[]{'\\', 'f'};
+        ESCAPES['\n'] = new byte[]{'\\', 'n'};
+        ESCAPES['\r'] = new byte[]{'\\', 'r'};
+        ESCAPES['\t'] = new byte[]{'\\', 't'};
+    }
+
+    // Strings are escaped in chunks of this size, copied to the scratch arrays below, so no allocation happens.
+    private static final int CHUNK_SIZE = 256;
+    // The longest a single char gets once encoded, which is a lone surrogate written as an escape sequence.
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    // Reads eight bytes of the scratch array at once; the byte order doesn't matter, as words are only tested whole.
+    private static final VarHandle WORDS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101_0101_0101_0101L;
+    private static final long HIGHS = 0x8080_8080_8080_8080L;
+    private static final long CONTROLS = ONES * 0x20;
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
 
-    private static final byte[] NEWLINE = new byte[]{
-            '\\',
-            'n',
-    };
-    private static final byte[] ESCAPE = new byte[]{
-            '\\',
-            '\\',
-    };
-    private static final byte[] LINEBREAK = new byte[]{
-            '\\',
-            'r',
-    };
-    private static final byte[] TAB = new byte[]{
-            '\\',
-            't',
-    };
     private static final byte[] TRUE = new byte[]{
             't',
             'r',
@@ -61,14 +96,92 @@ public final class DirectJson implements Closeable {
             'l',
             'l'
     };
-    static final byte DELIM_START = '{';
-    static final byte DELIM_STOP = '}';
+    // Enough for any long, double or float, sign included.
+    private static final int MAX_NUMBER_LENGTH = 32;
+    private static final int UUID_LENGTH = 36;
+
+    /**
+     * The names of the constants of each enum, as written in a JSON string, indexed by ordinal. Constants overriding
+     * {@link Object#toString()} have no entry, as what they render to can't be known ahead of time.
+     */
+    private static final ClassValue<byte[][]> ENUM_NAMES = new ClassValue<>() {
+        @Override
+        protected byte[][] computeValue(Class<?> type) {
+            var constants = (Enum<?>[]) type.getEnumConstants();
+            var names = new byte[constants.length][];
+            for (var constant : constants) {
+                var name = constant.name();
+                // Identifiers can hold (ignorable) control characters, which would need escaping
+                if (!overridesToString(constant) && name.chars().allMatch(chr -> chr >= 0x20)) {
+                    names[constant.ordinal()] = name.getBytes(StandardCharsets.UTF_8);
+                }
+            }
+            return names;
+        }
+
+        private static boolean overridesToString(Enum<?> constant) {
+            try {
+                return constant.getClass().getMethod("toString").getDeclaringClass() != Enum.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    };
+    /**
+     * Keys of key/value pairs, MDC entries and maps, which are mostly constants, already quoted and escaped.
+     */
+    private static final IdentityCache<byte[]> KEYS = new IdentityCache<>(512, 128);
+    static final String PLACEHOLDER = "{}";
+    private static final byte[] PLACEHOLDER_BYTES = PLACEHOLDER.getBytes(StandardCharsets.US_ASCII);
+    // A placeholder escaped in the format but written after the arguments ran out keeps its (now escaped) backslash.
+    private static final byte[] ESCAPED_PLACEHOLDER_BYTES = {'\\', '\\', '{', '}'};
+    private static final byte[] TRUNCATED = "\u2026(truncated ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRUNCATED_BYTES = " bytes)".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUNCATED_ELEMENTS = " elements)".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUNCATED_DEPTH = "\u2026(truncated depth)".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRUNCATED_KEY = "\u2026".getBytes(StandardCharsets.UTF_8);
+    private static final MessageTooLarge MESSAGE_TOO_LARGE = new MessageTooLarge();
+
+    /**
+     * Thrown while encoding a message that doesn't fit in {@link DirectJson#MAX_BUFFER_SIZE} on its own, so the
+     * caller can discard it through {@link DirectJson#rewind(long)}. The instance is shared and has no stack trace.
+     */
+    public static final class MessageTooLarge extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private MessageTooLarge() {
+            super("Log message doesn't fit in " + MAX_BUFFER_SIZE + " bytes once encoded.", null, false, false);
+        }
+    }
+
     private final FileOutputStream backingOs;
     private final WritableByteChannel channel;
 
     @VisibleForTesting
-    ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+    ByteBuffer buffer = DirectBuffers.acquire(INITIAL_BUFFER_SIZE);
+    private int highWatermark = watermark(buffer);
+    // Bytes already written to the channel, so positions in the buffer can be told apart across drains.
+    private long drainedBytes;
+    // Where the message being encoded starts; everything in the buffer before it are whole messages.
+    private long messageStart;
     private final IntToAscii intToAscii = new IntToAscii();
+    private final DoubleToAscii doubleToAscii = new DoubleToAscii();
+    private final char[] chars = new char[CHUNK_SIZE];
+    private final byte[] bytes = new byte[CHUNK_SIZE];
+    private final byte[] utf8 = new byte[CHUNK_SIZE * MAX_BYTES_PER_CHAR];
+    private final CharBuffer charsView = CharBuffer.wrap(chars);
+    private final ByteBuffer bytesView = ByteBuffer.wrap(bytes);
+    // Narrows the chars into bytes with a vectorized intrinsic, stopping at the first non-ASCII char.
+    private final CharsetEncoder ascii = StandardCharsets.US_ASCII.newEncoder();
+
+    // While a bounded string is written, the offset past which its chars are left out instead, and the bytes
+    // those would have taken.
+    private long boundary = Long.MAX_VALUE;
+    private long skippedBytes;
+
+    // Reusable view over the buffer for copying messages to other channels without consuming them.
+    private ByteBuffer view;
+    private ByteBuffer viewOf;
 
     public DirectJson(WritableByteChannel channel) {
         this.backingOs = null;
@@ -86,80 +199,379 @@ public final class DirectJson implements Closeable {
     }
 
     // --[ Write stuff to the buffer ]-- //
+    /**
+     * Writes the string escaped, replacing each {@code {}} placeholder by the next argument.
+     * <br />
+     * A placeholder preceded by a single backslash is escaped: the backslash is dropped and the placeholder is kept
+     * as is, without consuming an argument. Placeholders without a matching argument, or whose argument is null,
+     * are kept as is as well.
+     * <br />
+     * Formats are served from {@link MessageTemplates} when cached; otherwise they are scanned in place.
+     *
+     * @param str       the message template.
+     * @param arguments the values for the placeholders.
+     */
     public void writeRawFormatting(final String str, final Object... arguments) {
+        var template = MessageTemplates.lookup(str);
+        if (template == null) {
+            if (!MessageTemplates.admit(str)) {
+                writeScannedFormatting(str, arguments);
+                return;
+            }
+            template = compile(str);
+            MessageTemplates.store(template);
+        }
+        writeTemplate(template, arguments);
+    }
+
+    void writeScannedFormatting(final String str, final Object... arguments) {
         int cursor = 0;
-        boolean isPlaceholder = false;
-        boolean escaped = false;
-        for (int i = 0; i < str.length(); i++) {
-            var chr = str.codePointAt(i);
-            switch (chr) {
-                case '\\' -> {
-                    buffer.put(ESCAPE);
-                    // A placeholder is only escaped if precede by a single backslash
-                    // Therefore, if the previous character is not a backslash, we're "escaped"
-                    escaped = str.codePointBefore(i) != '\\';
-                }
-                case '\n' -> buffer.put(NEWLINE);
-                case '\r' -> buffer.put(LINEBREAK);
-                case '\t' -> buffer.put(TAB);
-                case DELIM_START -> {
-                    if (cursor < arguments.length &&
-                            str.codePointAt(i + 1) == '}') {
-                        // We only consider a curly braces to be a placeholder if not escaped,
-                        // but we double-check escaped as it could've happened further back
-                        isPlaceholder = !escaped || str.codePointBefore(i) != '\\';
-                        Object argument;
-
-                        if (isPlaceholder && (argument = arguments[cursor++]) != null) {
-                            var argStr = argument.toString();
-                            checkSpace(argStr.length());
-                            writeRaw(argStr);
-                        } else {
-                            isPlaceholder = false; // if argument == null
-                            var offset = escaped ? 2 : 0;
-                            buffer.position(buffer.position() - offset);
-                            buffer.put(DELIM_START);
-                        }
-                    } else {
-                        buffer.put(DELIM_START);
-                    }
-                }
-                case DELIM_STOP -> {
-                    if (!isPlaceholder) {
-                        buffer.put(DELIM_STOP);
-                    } else {
-                        // End of placeholder, clean up
-                        isPlaceholder = false;
-                    }
+        int written = 0;
+        int from = 0;
+        int at;
+        while (cursor < arguments.length && (at = str.indexOf(PLACEHOLDER, from)) >= 0) {
+            from = at + PLACEHOLDER.length();
+            if (isEscapedPlaceholder(str, at)) {
+                writeEscaped(str, written, at - 1);
+                written = at;
+                continue;
+            }
+            var argument = arguments[cursor++];
+            if (argument != null) {
+                writeEscaped(str, written, at);
+                writeArgument(argument);
+                written = from;
+            }
+        }
+        writeEscaped(str, written, str.length());
+    }
+
+    /**
+     * Writes a compiled format, which must give the same output as {@link DirectJson#writeScannedFormatting}:
+     * once the arguments run out, the remaining placeholders are written as they are in the format.
+     */
+    private void writeTemplate(final MessageTemplates.Template template, final Object... arguments) {
+        var literals = template.literals();
+        var escaped = template.escaped();
+        int cursor = 0;
+        for (int i = 0; i < escaped.length; i++) {
+            writeLiteral(literals[i]);
+            boolean pending = cursor < arguments.length;
+            if (escaped[i]) {
+                writeLiteral(pending ? PLACEHOLDER_BYTES : ESCAPED_PLACEHOLDER_BYTES);
+            } else if (pending && arguments[cursor] != null) {
+                writeArgument(arguments[cursor++]);
+            } else {
+                if (pending) {
+                    // A null argument is still consumed
+                    cursor++;
                 }
-                default -> {
-                    if (chr >= 0x80 && chr <= 0x10FFFF) {
-                        var utf8str = String.valueOf(str.charAt(i)).getBytes();
-                        checkSpace(utf8str.length);
-                        buffer.put(utf8str);
-                    } else if (chr > 0x1F) buffer.put((byte) chr);
+                writeLiteral(PLACEHOLDER_BYTES);
+            }
+        }
+        writeLiteral(literals[escaped.length]);
+    }
+
+    /**
+     * Writes a placeholder argument as {@link Object#toString()} would render it, but straight into the buffer for
+     * the types most commonly logged, without going through an intermediate string.
+     */
+    void writeArgument(final Object argument) {
+        switch (argument) {
+            case String str -> writeRaw(str);
+            case Long number -> writeDigits(number);
+            case Integer number -> writeDigits(number);
+            case Short number -> writeDigits(number);
+            case Byte number -> writeDigits(number);
+            case Double number when Double.isFinite(number) -> {
+                checkSpace(MAX_NUMBER_LENGTH);
+                doubleToAscii.doubleToAscii(number, buffer);
+            }
+            case Float number when Float.isFinite(number) -> {
+                checkSpace(MAX_NUMBER_LENGTH);
+                doubleToAscii.floatToAscii(number, buffer);
+            }
+            case Boolean bool -> writeLiteral(bool ? TRUE : FALSE);
+            case Character chr -> {
+                chars[0] = chr;
+                writeEscaped(1);
+            }
+            case UUID uuid -> writeUuid(uuid);
+            case Enum<?> constant -> {
+                var name = ENUM_NAMES.get(constant.getDeclaringClass())[constant.ordinal()];
+                if (name != null) {
+                    writeLiteral(name);
+                } else {
+                    writeRaw(constant.toString());
                 }
             }
+            case CharSequence str -> writeEscaped(str, 0, str.length());
+            default -> writeRaw(argument.toString());
+        }
+    }
+
+    private void writeDigits(final long number) {
+        checkSpace(MAX_NUMBER_LENGTH);
+        intToAscii.longToAscii(number, buffer);
+    }
+
+    private void writeUuid(final UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        checkSpace(UUID_LENGTH);
+        int at = buffer.position();
+        putHex(at, msb >>> 32, 8);
+        buffer.put(at + 8, (byte) '-');
+        putHex(at + 9, msb >>> 16, 4);
+        buffer.put(at + 13, (byte) '-');
+        putHex(at + 14, msb, 4);
+        buffer.put(at + 18, (byte) '-');
+        putHex(at + 19, lsb >>> 48, 4);
+        buffer.put(at + 23, (byte) '-');
+        putHex(at + 24, lsb, 12);
+        buffer.position(at + UUID_LENGTH);
+    }
+
+    /**
+     * Writes the lowest {@code digits} hex digits of the value at the given index, right to left.
+     */
+    private void putHex(final int at, long value, final int digits) {
+        for (int i = at + digits - 1; i >= at; i--) {
+            buffer.put(i, HEX[(int) (value & 0xF)]);
+            value >>>= 4;
+        }
+    }
+
+    private void writeLiteral(final byte[] literal) {
+        checkSpace(literal.length);
+        buffer.put(literal);
+    }
+
+    private static boolean isEscapedPlaceholder(final String str, final int at) {
+        return at > 0 && str.charAt(at - 1) == '\\' && (at == 1 || str.charAt(at - 2) != '\\');
+    }
+
+    /**
+     * Splits a format around its placeholders, escaping the text in between.
+     */
+    MessageTemplates.Template compile(final String str) {
+        List<byte[]> literals = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+        int written = 0;
+        int from = 0;
+        int at;
+        while ((at = str.indexOf(PLACEHOLDER, from)) >= 0) {
+            from = at + PLACEHOLDER.length();
+            boolean isEscaped = isEscapedPlaceholder(str, at);
+            literals.add(escaped(str, written, isEscaped ? at - 1 : at));
+            escaped.add(isEscaped);
+            written = from;
+        }
+        literals.add(escaped(str, written, str.length()));
+
+        var flags = new boolean[escaped.size()];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = escaped.get(i);
         }
+        return new MessageTemplates.Template(str, literals.toArray(byte[][]::new), flags);
+    }
+
+    /**
+     * Escapes part of a string into an array, through a scratch buffer large enough for it to never grow.
+     */
+    private byte[] escaped(final String str, final int from, final int to) {
+        var target = buffer;
+        var watermark = highWatermark;
+        var bound = boundary;
+        var scratch = ByteBuffer.allocate((to - from) * MAX_BYTES_PER_CHAR);
+        buffer = scratch;
+        highWatermark = scratch.capacity();
+        // What is cached must not be truncated to the message being written
+        boundary = Long.MAX_VALUE;
+        try {
+            writeEscaped(str, from, to);
+        } finally {
+            buffer = target;
+            highWatermark = watermark;
+            boundary = bound;
+        }
+        return Arrays.copyOf(scratch.array(), scratch.position());
     }
 
     public void writeRaw(final String str) {
-        for (int i = 0; i < str.length(); i++) {
-            var chr = str.codePointAt(i);
-            switch (chr) {
-                case '\\' -> buffer.put(ESCAPE);
-                case '\n' -> buffer.put(NEWLINE);
-                case '\r' -> buffer.put(LINEBREAK);
-                case '\t' -> buffer.put(TAB);
-                default -> {
-                    if (chr >= 0x80 && chr <= 0x10FFFF) {
-                        var utf8str = String.valueOf(str.charAt(i)).getBytes();
-                        checkSpace(utf8str.length);
-                        buffer.put(utf8str);
-                    } else if (chr > 0x1F) buffer.put((byte) chr);
-                }
+        writeEscaped(str, 0, str.length());
+    }
+
+    private void writeEscaped(final CharSequence str, int from, int to) {
+        if (boundary != Long.MAX_VALUE) {
+            to = bound(str, from, to);
+        }
+        // Reserve for the whole string at once, so a large one doesn't grow the buffer through every size in between
+        checkSpace(to - from);
+        while (from < to) {
+            int end = Math.min(to, from + CHUNK_SIZE);
+            if (end < to && Character.isHighSurrogate(str.charAt(end - 1))) {
+                // Keeps surrogate pairs in the same chunk
+                end--;
             }
+            copyChars(str, from, end);
+            writeEscaped(end - from);
+            from = end;
+        }
+    }
+
+    /**
+     * Leaves out the chars of a bounded string that would go past its boundary for sure, as each takes a byte at
+     * least; whatever is written past it still is cut by {@link DirectJson#endBounded}.
+     *
+     * @return the end of the range of chars to write.
+     */
+    private int bound(final CharSequence str, final int from, final int to) {
+        long room = Math.max(boundary - offset(), 0L);
+        if (to - from <= room) {
+            return to;
+        }
+        int end = from + (int) room;
+        if (end > from && Character.isHighSurrogate(str.charAt(end - 1))) {
+            end--;
         }
+        skippedBytes += encodedLength(str, end, to);
+        return end;
+    }
+
+    /**
+     * Measures the chars as they would be written: escaped and encoded as UTF-8, so the bytes left out of a bounded
+     * string are counted the same way as the bytes kept.
+     */
+    private static long encodedLength(final CharSequence str, final int from, final int to) {
+        long length = 0;
+        for (int i = from; i < to; i++) {
+            char chr = str.charAt(i);
+            if (chr < 0x80) {
+                var escaped = ESCAPES[chr];
+                length += escaped == null ? 1 : escaped.length;
+            } else if (chr < 0x800) {
+                length += 2;
+            } else if (!Character.isSurrogate(chr)) {
+                length += 3;
+            } else if (Character.isHighSurrogate(chr) && i + 1 < to && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                // Lone surrogates are written as unicode escapes
+                length += 6;
+            }
+        }
+        return length;
+    }
+
+    private void copyChars(final CharSequence str, final int from, final int to) {
+        if (str instanceof String string) {
+            string.getChars(from, to, chars, 0);
+        } else if (str instanceof StringBuilder builder) {
+            builder.getChars(from, to, chars, 0);
+        } else {
+            for (int i = from; i < to; i++) {
+                chars[i - from] = str.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Escapes the first {@code length} chars in the scratch array.
+     */
+    private void writeEscaped(final int length) {
+        int i = 0;
+        while (i < length) {
+            charsView.limit(length).position(i);
+            bytesView.clear().position(i);
+            ascii.encode(charsView, bytesView, false);
+            int end = charsView.position();
+            writeEscapedAscii(i, end);
+            i = end < length ? writeNonAscii(end, length) : end;
+        }
+    }
+
+    /**
+     * Escapes the given range of the scratch array, which only holds ASCII characters by now, copying the runs that
+     * need no escaping in bulk.
+     */
+    private void writeEscapedAscii(final int from, final int to) {
+        int run = from;
+        int i = from;
+        while (i < to) {
+            while (i + Long.BYTES <= to && isPlain((long) WORDS.get(bytes, i))) {
+                i += Long.BYTES;
+            }
+            while (i < to && ESCAPES[bytes[i]] == null) {
+                i++;
+            }
+            if (i > run) {
+                checkSpace(i - run);
+                buffer.put(bytes, run, i - run);
+            }
+            if (i < to) {
+                var escaped = ESCAPES[bytes[i]];
+                checkSpace(escaped.length);
+                buffer.put(escaped);
+                run = ++i;
+            }
+        }
+    }
+
+    /**
+     * Encodes the run of non-ASCII chars starting at the given index of the scratch array as UTF-8.
+     *
+     * @return the index of the next ASCII char, or the length if the run goes until the end.
+     */
+    private int writeNonAscii(final int from, final int length) {
+        int i = from;
+        int size = 0;
+        char chr;
+        while (i < length && (chr = chars[i]) >= 0x80) {
+            if (chr < 0x800) {
+                // Latin-1 and the other alphabets in this range take two bytes
+                utf8[size++] = (byte) (0xC0 | chr >> 6);
+                utf8[size++] = (byte) (0x80 | chr & 0x3F);
+            } else if (!Character.isSurrogate(chr)) {
+                utf8[size++] = (byte) (0xE0 | chr >> 12);
+                utf8[size++] = (byte) (0x80 | chr >> 6 & 0x3F);
+                utf8[size++] = (byte) (0x80 | chr & 0x3F);
+            } else if (Character.isHighSurrogate(chr) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+                int codePoint = Character.toCodePoint(chr, chars[++i]);
+                utf8[size++] = (byte) (0xF0 | codePoint >> 18);
+                utf8[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                utf8[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                utf8[size++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                // A lone surrogate has no UTF-8 encoding, but JSON can still carry it as an escape sequence
+                utf8[size++] = '\\';
+                utf8[size++] = 'u';
+                utf8[size++] = HEX[chr >> 12];
+                utf8[size++] = HEX[chr >> 8 & 0xF];
+                utf8[size++] = HEX[chr >> 4 & 0xF];
+                utf8[size++] = HEX[chr & 0xF];
+            }
+            i++;
+        }
+        checkSpace(size);
+        buffer.put(utf8, 0, size);
+        return i;
+    }
+
+    /**
+     * Checks, at once, whether none of the eight ASCII characters in the word needs escaping.
+     * <br />
+     * As no byte has its high bit set, {@code (x - k) & ~x & highs} is non-zero iff some byte of {@code x} is
+     * below {@code k}; the quote and the backslash are found by testing for a zero byte once xor-ed in.
+     */
+    static boolean isPlain(final long word) {
+        long quote = word ^ QUOTES;
+        long backslash = word ^ BACKSLASHES;
+        return ((((word - CONTROLS) & ~word)
+                | ((quote - ONES) & ~quote)
+                | ((backslash - ONES) & ~backslash)
+        ) & HIGHS) == 0;
     }
 
     public void writeRaw(final char chr) {
@@ -236,11 +648,35 @@ public final class DirectJson implements Closeable {
 
     }
 
-    public void writeKey(String str) {
-        buffer.put(QUOTE);
-        writeUnsafe(str);
-        buffer.put(QUOTE);
-        buffer.put(ENTRY_SEP);
+    /**
+     * Writes a key, as {@code "key":}, escaped as needed; keys that are seen often are encoded once and cached.
+     *
+     * @param str the key.
+     */
+    public void writeKey(final String str) {
+        var encoded = KEYS.get(str);
+        if (encoded == null) {
+            if (!KEYS.admit(str)) {
+                checkSpace(str.length() + 3);
+                buffer.put(QUOTE);
+                writeRaw(str);
+                buffer.put(QUOTE);
+                buffer.put(ENTRY_SEP);
+                return;
+            }
+            encoded = KEYS.put(str, encodeKey(str));
+        }
+        writeLiteral(encoded);
+    }
+
+    private byte[] encodeKey(final String str) {
+        var escaped = escaped(str, 0, str.length());
+        var key = new byte[escaped.length + 3];
+        key[0] = QUOTE;
+        System.arraycopy(escaped, 0, key, 1, escaped.length);
+        key[escaped.length + 1] = QUOTE;
+        key[escaped.length + 2] = ENTRY_SEP;
+        return key;
     }
 
     public void writeKey(final byte[] chrs) {
@@ -266,6 +702,14 @@ public final class DirectJson implements Closeable {
         buffer.put(KV_SEP);
     }
 
+    public void writeString(final CharSequence str) {
+        checkSpace(str.length() + 3);
+        buffer.put(QUOTE);
+        writeEscaped(str, 0, str.length());
+        buffer.put(QUOTE);
+        buffer.put(KV_SEP);
+    }
+
     public void writeStringFormatting(final String str, final Object... args) {
         buffer.put(QUOTE);
         writeRawFormatting(str, args);
@@ -273,6 +717,162 @@ public final class DirectJson implements Closeable {
         buffer.put(KV_SEP);
     }
 
+    /**
+     * Writes a string value like {@link DirectJson#writeString(CharSequence)}, but cut short once it takes the given
+     * amount of bytes, followed by a marker telling how many bytes were left out.
+     *
+     * @param str      the value.
+     * @param maxBytes the amount of bytes the escaped value can take; 0 or less for no limit.
+     */
+    public void writeString(final CharSequence str, final int maxBytes) {
+        if (maxBytes <= 0) {
+            writeString(str);
+            return;
+        }
+        checkSpace(Math.min(str.length(), maxBytes) + 3);
+        buffer.put(QUOTE);
+        var start = beginBounded(maxBytes);
+        try {
+            writeEscaped(str, 0, str.length());
+        } finally {
+            boundary = Long.MAX_VALUE;
+        }
+        endBounded(start, maxBytes);
+        checkSpace(2);
+        buffer.put(QUOTE);
+        buffer.put(KV_SEP);
+    }
+
+    /**
+     * Writes a message like {@link DirectJson#writeStringFormatting(String, Object...)}, but cut short once it takes
+     * the given amount of bytes, followed by a marker telling how many bytes were left out.
+     * <br />
+     * The arguments are cut as they are written, so a large one doesn't have to fit in the buffer first.
+     *
+     * @param str       the message template.
+     * @param arguments the values for the placeholders.
+     * @param maxBytes  the amount of bytes the formatted message can take; 0 or less for no limit.
+     */
+    public void writeStringFormatting(final String str, final Object[] arguments, final int maxBytes) {
+        if (maxBytes <= 0) {
+            writeStringFormatting(str, arguments);
+            return;
+        }
+        checkSpace(1);
+        buffer.put(QUOTE);
+        var start = beginBounded(maxBytes);
+        try {
+            writeRawFormatting(str, arguments);
+        } finally {
+            boundary = Long.MAX_VALUE;
+        }
+        endBounded(start, maxBytes);
+        checkSpace(2);
+        buffer.put(QUOTE);
+        buffer.put(KV_SEP);
+    }
+
+    private long beginBounded(final int maxBytes) {
+        var start = offset();
+        boundary = start + maxBytes;
+        skippedBytes = 0;
+        return start;
+    }
+
+    /**
+     * Cuts the bounded string back to its boundary, if it went past it, and marks it as truncated.
+     */
+    private void endBounded(final long start, final int maxBytes) {
+        long skipped = skippedBytes;
+        long end = offset();
+        skippedBytes = 0;
+        if (skipped == 0 && end - start <= maxBytes) {
+            return;
+        }
+        // Bytes that already left the buffer can't be taken back
+        long cut = Math.max(start + maxBytes, drainedBytes);
+        if (cut < end) {
+            int at = safeCut((int) (cut - drainedBytes), (int) (Math.max(start, drainedBytes) - drainedBytes));
+            buffer.position(at);
+            skipped += end - offset();
+        }
+        checkSpace(TRUNCATED.length + MAX_NUMBER_LENGTH + TRUNCATED_BYTES.length);
+        buffer.put(TRUNCATED);
+        intToAscii.longToAscii(skipped, buffer);
+        buffer.put(TRUNCATED_BYTES);
+    }
+
+    /**
+     * Moves a cut through an escaped string back to the start of the UTF-8 sequence or of the escape sequence it
+     * falls in, so the string is still valid once cut.
+     *
+     * @param at    the position of the first byte to cut.
+     * @param floor the position of the first byte of the string.
+     * @return the position to cut the string at.
+     */
+    private int safeCut(int at, final int floor) {
+        // Continuation bytes of UTF-8 sequences look like 10xxxxxx
+        while (at > floor && (buffer.get(at) & 0xC0) == 0x80) {
+            at--;
+        }
+        // Escape sequences are all ASCII, from 2 bytes long up to 6 for unicode escapes, and hold no backslash but
+        // the first one, unless escaping a backslash
+        int backslash = at - 1;
+        int reach = Math.max(floor, at - 5);
+        while (backslash >= reach && buffer.get(backslash) != '\\') {
+            backslash--;
+        }
+        if (backslash >= reach) {
+            int run = backslash;
+            while (run > floor && buffer.get(run - 1) == '\\') {
+                run--;
+            }
+            // Backslashes in a run pair up from its start, so an odd one out starts the escape sequence
+            if (((backslash - run) & 1) == 0) {
+                int length = backslash + 1 < at && buffer.get(backslash + 1) == 'u' ? 6 : 2;
+                if (at < backslash + length) {
+                    at = backslash;
+                }
+            }
+        }
+        return at;
+    }
+
+    /**
+     * Writes a string value marking that elements were left out of a collection.
+     *
+     * @param count how many elements were left out.
+     */
+    public void writeTruncatedElements(final long count) {
+        checkSpace(TRUNCATED.length + MAX_NUMBER_LENGTH + TRUNCATED_ELEMENTS.length + 3);
+        buffer.put(QUOTE);
+        buffer.put(TRUNCATED);
+        intToAscii.longToAscii(count, buffer);
+        buffer.put(TRUNCATED_ELEMENTS);
+        buffer.put(QUOTE);
+        buffer.put(KV_SEP);
+    }
+
+    /**
+     * Writes the key of the entry marking that entries were left out of a map, to be followed by
+     * {@link DirectJson#writeTruncatedElements(long)}.
+     */
+    public void writeTruncatedKey() {
+        checkSpace(TRUNCATED_KEY.length + 3);
+        writeKey(TRUNCATED_KEY);
+    }
+
+    /**
+     * Writes a string value in place of a value nested deeper than allowed.
+     */
+    public void writeTruncatedDepth() {
+        checkSpace(TRUNCATED_DEPTH.length + 3);
+        buffer.put(QUOTE);
+        buffer.put(TRUNCATED_DEPTH);
+        buffer.put(QUOTE);
+        buffer.put(KV_SEP);
+    }
+
     public void writeSep() {
         buffer.put(KV_SEP);
     }
@@ -282,33 +882,17 @@ public final class DirectJson implements Closeable {
     }
 
     public void writeNumber(final long data) {
-        if (data < 0) {
-            writeRaw('-');
-        }
         writeNumberRaw(data);
         buffer.put(KV_SEP);
     }
 
     public void writeNumber(final double data) {
-        double number = data;
-        if (data < 0) {
-            writeRaw('-');
-            number = Math.abs(data);
-        }
-        writeNumberRaw((long) number);
-        buffer.put(DOT);
-        var pos = buffer.position();
-        BigDecimal fractional = BigDecimal.valueOf(number).remainder(BigDecimal.ONE);
-        int decs = 0;
-        while (!fractional.equals(BigDecimal.ZERO)) {
-            fractional = fractional.movePointRight(1);
-            byte chr = (byte) (fractional.intValue() + 48);
-            fractional = fractional.remainder(BigDecimal.ONE);
-            decs += 1;
-            buffer.put(chr);
-        }
-
-        buffer.position(pos + decs);
+        doubleToAscii.doubleToAscii(data, buffer);
+        buffer.put(KV_SEP);
+    }
+
+    public void writeNumber(final float data) {
+        doubleToAscii.floatToAscii(data, buffer);
         buffer.put(KV_SEP);
     }
 
@@ -351,24 +935,190 @@ public final class DirectJson implements Closeable {
 
     public void checkSpace(int size) {
         if ((buffer.position() + size) > highWatermark) {
-            var newCapacity = (buffer.capacity() + size) * 2;
-            ByteBuffer newBuffer = ByteBuffer.allocateDirect(newCapacity);
-            highWatermark = (int) Math.ceil(newCapacity * 0.8);
-            buffer.flip();
-            newBuffer.put(buffer);
-            buffer = newBuffer;
+            grow(size);
         }
     }
 
-    public void flush() throws IOException {
-        buffer.put(LINE_BREAK);
+    private void grow(int size) {
+        if ((long) buffer.position() + size > MAX_BUFFER_SIZE) {
+            int start = (int) Math.max(messageStart - drainedBytes, 0);
+            if (start > 0) {
+                try {
+                    writeOut(start);
+                } catch (IOException e) {
+                    reportError("ERROR", "Unable to write log.", e);
+                }
+            }
+            if ((long) buffer.position() + size > MAX_BUFFER_SIZE) {
+                throw MESSAGE_TOO_LARGE;
+            }
+            if (buffer.position() + size <= highWatermark) {
+                return;
+            }
+        }
+
+        // Messages up to the limit still need to fit, but the buffer is let go once drained.
+        long needed = (long) buffer.position() + size;
+        long target = Math.max(2L * buffer.capacity(), needed + needed / 4);
+        ByteBuffer newBuffer = DirectBuffers.acquire((int) Math.min(target, Integer.MAX_VALUE - 8));
         buffer.flip();
-        channel.write(buffer);
-        buffer.clear();
+        newBuffer.put(buffer);
+        DirectBuffers.release(buffer);
+        buffer = newBuffer;
+        highWatermark = watermark(buffer);
+    }
+
+    // Capped, so no message goes past the maximum size unnoticed in a buffer that grew larger than it.
+    private static int watermark(ByteBuffer buffer) {
+        return (int) Math.min(Math.ceil(buffer.capacity() * 0.8), MAX_BUFFER_SIZE);
+    }
+
+    public void flush() throws IOException {
+        endLine();
+        drain();
+    }
+
+    /**
+     * Terminates the current message without writing it, so the buffer can hold more messages before being drained.
+     */
+    public void endLine() {
+        endLine(LINE_BREAK);
+    }
+
+    /**
+     * Terminates the current message with the given delimiter, without writing it.
+     *
+     * @param delimiter the bytes separating this message from the next one.
+     */
+    public void endLine(final byte[] delimiter) {
+        checkSpace(delimiter.length);
+        buffer.put(delimiter);
+    }
+
+    /**
+     * @return the amount of bytes in the buffer that haven't been written to the channel yet.
+     */
+    public int pending() {
+        return buffer.position();
+    }
+
+    /**
+     * Marks the start of a new message, after the previous one was terminated. Only the messages before this one
+     * can be written out to make room for it, should it grow past {@link DirectJson#MAX_BUFFER_SIZE}.
+     *
+     * @return the offset of the message, as in {@link DirectJson#offset()}.
+     */
+    public long beginMessage() {
+        messageStart = offset();
+        return messageStart;
+    }
+
+    /**
+     * @return the amount of bytes written by this generator so far, including the ones still in the buffer.
+     */
+    public long offset() {
+        return drainedBytes + buffer.position();
+    }
+
+    /**
+     * Discards everything written after the given offset, as long as it is still in the buffer.
+     *
+     * @param offset the offset to go back to, i.e. {@link DirectJson#offset()} before writing what is discarded.
+     * @return false if nothing was discarded because part of the bytes already left the buffer.
+     */
+    public boolean rewind(long offset) {
+        if (offset < drainedBytes) {
+            return false;
+        }
+        buffer.position((int) (offset - drainedBytes));
+        return true;
+    }
+
+    /**
+     * Writes the bytes in the buffer from the given position onwards to another channel, keeping them in the buffer
+     * so they are still written to this generator's channel when drained.
+     *
+     * @param target the channel to copy the bytes to.
+     * @param from   the offset of the first byte to copy, i.e. {@link DirectJson#offset()} before the message was
+     *               written.
+     * @return false if nothing was copied because part of the bytes already left the buffer, which can't happen
+     * for a message started through {@link DirectJson#beginMessage()}.
+     * @throws IOException if the target channel fails to write.
+     */
+    public boolean copyTo(WritableByteChannel target, long from) throws IOException {
+        if (from < drainedBytes) {
+            return false;
+        }
+        if (viewOf != buffer) {
+            // The buffer was reallocated since the last copy
+            view = buffer.duplicate();
+            viewOf = buffer;
+        }
+        view.limit(buffer.position()).position((int) (from - drainedBytes));
+        while (view.hasRemaining()) {
+            target.write(view);
+        }
+        return true;
+    }
+
+    /**
+     * Writes everything that is held in the buffer to the channel.
+     *
+     * @throws IOException if the underlying channel fails to write.
+     */
+    public void drain() throws IOException {
+        try {
+            writeOut();
+        } finally {
+            if (buffer.capacity() > RETAINED_BUFFER_SIZE) {
+                replaceBuffer(DirectBuffers.acquire(INITIAL_BUFFER_SIZE));
+            }
+        }
+    }
+
+    private void writeOut() throws IOException {
+        writeOut(buffer.position());
+    }
+
+    /**
+     * Writes the first bytes in the buffer to the channel, moving the remaining ones to the start of the buffer.
+     */
+    private void writeOut(final int length) throws IOException {
+        int end = buffer.position();
+        buffer.flip().limit(length);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            drainedBytes += length;
+            buffer.limit(end).position(length);
+            buffer.compact();
+        }
+    }
+
+    private void replaceBuffer(ByteBuffer next) {
+        DirectBuffers.release(buffer);
+        buffer = next;
+        highWatermark = watermark(buffer);
+    }
+
+    /**
+     * Hands the buffer back to {@link DirectBuffers}, without closing the channel, which might be shared.
+     * The generator must not be used afterwards.
+     */
+    public void release() {
+        if (buffer != null) {
+            DirectBuffers.release(buffer);
+            buffer = null;
+            viewOf = null;
+            view = null;
+        }
     }
 
     @Override
     public void close() throws IOException {
+        release();
         channel.close();
         if (this.backingOs != null) backingOs.close();
     }
@@ -0,0 +1,401 @@
+package penna.core.internals;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import static java.lang.Math.multiplyHigh;
+
+/**
+ * Utility helper to transform floating point numbers to the shortest decimal that rounds back to the same value.
+ * <br/>
+ * This is an allocation-free port of Raffaello Giulietti's Schubfach algorithm, the same one behind
+ * {@link Double#toString(double)} since JDK 19, so the output is identical to it: plain notation for magnitudes in
+ * [10^-3, 10^7), computerized scientific notation otherwise. As JSON has no representation for non-finite values,
+ * those are written as the strings {@code "NaN"}, {@code "Infinity"} and {@code "-Infinity"}.
+ * <br/>
+ * See "The Schubfach way to render doubles", https://drive.google.com/file/d/1gp5xv4CAa78SVgCeWfGqqI4FfYYYuNFb
+ */
+public final class DoubleToAscii {
+    // Double precision constants.
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << P - 1;
+    private static final int BQ_MASK = 0x7FF;
+    private static final long T_MASK = C_MIN - 1;
+    private static final int C_TINY = 3;
+
+    // Single precision constants.
+    private static final int F_P = 24;
+    private static final int F_Q_MIN = -149;
+    private static final int F_C_MIN = 1 << F_P - 1;
+    private static final int F_BQ_MASK = 0xFF;
+    private static final int F_T_MASK = F_C_MIN - 1;
+    private static final int F_C_TINY = 8;
+
+    // Number of digits the decimal significand is normalized to before writing.
+    private static final int H = 17;
+    private static final int MASK_28 = (1 << 28) - 1;
+    private static final long MASK_32 = (1L << 32) - 1;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    private static final byte[] NAN = "\"NaN\"".getBytes();
+    private static final byte[] POSITIVE_INFINITY = "\"Infinity\"".getBytes();
+    private static final byte[] NEGATIVE_INFINITY = "\"-Infinity\"".getBytes();
+
+    private static final long[] POW10 = new long[H + 1];
+
+    // Range of the exponents of the powers of ten in the tables, enough for both doubles and floats.
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    /*
+     * For each k, 10^-k = beta 2^r, with 2^125 <= beta < 2^126, and g = floor(beta) + 1 is stored split as
+     * g1 = floor(g / 2^63) and g0 = g mod 2^63. Computed once, as a literal table would be over a thousand longs.
+     */
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) * 2];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        var mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int r = flog2pow10(e) - 125;
+            BigInteger beta;
+            if (e >= 0) {
+                var pow = BigInteger.TEN.pow(e);
+                beta = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                beta = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(-e));
+            }
+            var g = beta.add(BigInteger.ONE);
+            G[(k - K_MIN) << 1] = g.shiftRight(63).longValueExact();
+            G[(k - K_MIN) << 1 | 1] = g.and(mask63).longValueExact();
+        }
+    }
+
+    // Enough for the longest output, "-2.2250738585072014E-308", and the quoted non-finite values.
+    private final byte[] innerBuffer = new byte[32];
+    private int index;
+
+    /**
+     * Writes {@param value} to the supplied {@link ByteBuffer}.
+     *
+     * @param value  the number to be encoded
+     * @param buffer the buffer where the characters should be written to
+     */
+    void doubleToAscii(double value, ByteBuffer buffer) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> P - 1) & BQ_MASK;
+        if (bq == BQ_MASK) {
+            buffer.put(t != 0 ? NAN : bits > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
+            return;
+        }
+
+        index = 0;
+        if (bits < 0) {
+            innerBuffer[index++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // Integers below 2^53 are their own shortest decimal
+            if (0 < mq && mq < P && (c >> mq) << mq == c) {
+                toChars(c >> mq, 0);
+            } else {
+                toDecimal(-mq, c, 0);
+            }
+        } else if (t != 0) {
+            // Subnormal values
+            if (t < C_TINY) {
+                toDecimal(Q_MIN, 10 * t, -1);
+            } else {
+                toDecimal(Q_MIN, t, 0);
+            }
+        } else {
+            toChars(0, 1);
+        }
+        buffer.put(innerBuffer, 0, index);
+    }
+
+    /**
+     * Writes {@param value} to the supplied {@link ByteBuffer}, using as few digits as needed for a float, rather
+     * than the ones its widening to a double would need.
+     *
+     * @param value  the number to be encoded
+     * @param buffer the buffer where the characters should be written to
+     */
+    void floatToAscii(float value, ByteBuffer buffer) {
+        int bits = Float.floatToRawIntBits(value);
+        int t = bits & F_T_MASK;
+        int bq = (bits >>> F_P - 1) & F_BQ_MASK;
+        if (bq == F_BQ_MASK) {
+            buffer.put(t != 0 ? NAN : bits > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
+            return;
+        }
+
+        index = 0;
+        if (bits < 0) {
+            innerBuffer[index++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -F_Q_MIN + 1 - bq;
+            int c = F_C_MIN | t;
+            if (0 < mq && mq < F_P && (c >> mq) << mq == c) {
+                toChars(c >> mq, 0);
+            } else {
+                toDecimal(-mq, c, 0);
+            }
+        } else if (t != 0) {
+            if (t < F_C_TINY) {
+                toDecimal(F_Q_MIN, 10 * t, -1);
+            } else {
+                toDecimal(F_Q_MIN, t, 0);
+            }
+        } else {
+            toChars(0, 1);
+        }
+        buffer.put(innerBuffer, 0, index);
+    }
+
+    /*
+     * Finds the shortest decimal in the rounding interval of c 2^q, for doubles.
+     */
+    private void toDecimal(int q, long c, int dk) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // The interval is asymmetric at powers of two
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G[(k - K_MIN) << 1];
+        long g0 = G[(k - K_MIN) << 1 | 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // Tries one digit less first, s / 10 * 10 with the division done as a multiplication
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                toChars(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            toChars(uin ? s : t, k + dk);
+            return;
+        }
+        // Both are in the interval, so the closest one is picked, ties to even
+        long cmp = vb - (s + t << 1);
+        toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    /*
+     * Same as above, for floats, where the upper half of the table is precise enough.
+     */
+    private void toDecimal(int q, int c, int dk) {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != F_C_MIN || q == F_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+
+        long g = G[(k - K_MIN) << 1] + 1;
+
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                toChars(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            toChars(uin ? s : t, k + dk);
+            return;
+        }
+        int cmp = vb - (s + t << 1);
+        toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    // Rounds g cp / 2^127 to odd.
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    // Rounds g cp / 2^95 to odd.
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    /*
+     * Writes f 10^e, with the significand normalized to H digits and split into the leading digit, the next
+     * eight and the last eight, so the digits can be extracted with int arithmetic.
+     */
+    private void toChars(long f, int e) {
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POW10[len]) {
+            len += 1;
+        }
+        f *= POW10[H - len];
+        e += len;
+
+        // floor(f / 10^8) and floor(hm / 10^8), done as multiplications
+        long hm = multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        int h = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * h);
+
+        if (0 < e && e <= 7) {
+            // Plain notation, without leading zeroes
+            appendDigit(h);
+            int y = y(m);
+            int i = 1;
+            for (; i < e; ++i) {
+                int t = 10 * y;
+                appendDigit(t >>> 28);
+                y = t & MASK_28;
+            }
+            innerBuffer[index++] = '.';
+            for (; i <= 8; ++i) {
+                int t = 10 * y;
+                appendDigit(t >>> 28);
+                y = t & MASK_28;
+            }
+            lowDigits(l);
+        } else if (-3 < e && e <= 0) {
+            // Plain notation, with leading zeroes
+            appendDigit(0);
+            innerBuffer[index++] = '.';
+            for (; e < 0; ++e) {
+                appendDigit(0);
+            }
+            appendDigit(h);
+            append8Digits(m);
+            lowDigits(l);
+        } else {
+            appendDigit(h);
+            innerBuffer[index++] = '.';
+            append8Digits(m);
+            lowDigits(l);
+            exponent(e - 1);
+        }
+    }
+
+    private void lowDigits(int l) {
+        if (l != 0) {
+            append8Digits(l);
+        }
+        // Trailing zeroes are dropped, except for the one right after the dot
+        while (innerBuffer[index - 1] == '0') {
+            --index;
+        }
+        if (innerBuffer[index - 1] == '.') {
+            ++index;
+        }
+    }
+
+    private void append8Digits(int m) {
+        int y = y(m);
+        for (int i = 0; i < 8; ++i) {
+            int t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+    }
+
+    /*
+     * Turns m < 10^8 into a 28 bits fixed point fraction, floor((m + 1) 2^28 / 10^8) - 1, so each digit comes out
+     * of the integer part when multiplying by ten, left to right.
+     */
+    private static int y(int m) {
+        return (int) (multiplyHigh((long) (m + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private void exponent(int e) {
+        innerBuffer[index++] = 'E';
+        if (e < 0) {
+            innerBuffer[index++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            appendDigit(e);
+            return;
+        }
+        int d;
+        if (e >= 100) {
+            d = e * 1_311 >>> 17;
+            appendDigit(d);
+            e -= 100 * d;
+        }
+        d = e * 103 >>> 10;
+        appendDigit(d);
+        appendDigit(e - 10 * d);
+    }
+
+    private void appendDigit(int d) {
+        innerBuffer[index++] = (byte) ('0' + d);
+    }
+
+    // floor(q log10(2))
+    static int flog10pow2(int q) {
+        return (int) (q * 661_971_961_083L >> 41);
+    }
+
+    // floor(log10(3/4 2^q))
+    static int flog10threeQuartersPow2(int q) {
+        return (int) (q * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    // floor(e log2(10))
+    static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+}
@@ -0,0 +1,105 @@
+package penna.core.internals;
+
+/**
+ * A bounded cache of values derived from strings which are, most of the time, constants in the code logging them,
+ * such as message formats and keys.
+ * <br />
+ * The cache is keyed by identity and direct-mapped: each string has a single slot, picked from its identity hash,
+ * and a string taking the slot of another evicts it. Strings built at runtime would otherwise keep evicting the
+ * constant ones while never being seen again, so a string is only admitted the second time it lands on its slot
+ * in a row; until then, callers are expected to do without the cache. Strings longer than the given limit are
+ * never admitted, which bounds the memory held by the cache.
+ * <br />
+ * Slots are read and written without synchronization: entries are immutable, so the worst a race does is deriving
+ * a value twice. Lookups are on the hot path of every message, so the cache keeps no metrics of its own.
+ *
+ * @param <V> the type of the cached values.
+ */
+final class IdentityCache<V> {
+
+    private record Entry<V>(String key, V value) {}
+
+    private final int mask;
+    private final int maxLength;
+    private final Entry<V>[] entries;
+    // The last string that missed on each slot, which is the one allowed to take it if it misses again.
+    private final String[] candidates;
+
+    /**
+     * @param slots     how many values the cache holds at most; a power of two.
+     * @param maxLength the length of the longest string admitted in the cache.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    IdentityCache(int slots, int maxLength) {
+        this.mask = slots - 1;
+        this.maxLength = maxLength;
+        this.entries = new Entry[slots];
+        this.candidates = new String[slots];
+    }
+
+    private int slot(String key) {
+        return System.identityHashCode(key) & mask;
+    }
+
+    /**
+     * @param key the string.
+     * @return the value cached for that very string, or null if it is not cached.
+     */
+    V get(String key) {
+        var entry = entries[slot(key)];
+        if (entry != null && entry.key() == key) {
+            return entry.value();
+        }
+        return null;
+    }
+
+    /**
+     * Decides whether a string that missed the cache is worth deriving a value for.
+     *
+     * @param key the string.
+     * @return true if the string missed on its slot right before, false if it is taken as a one-off for now.
+     */
+    boolean admit(String key) {
+        if (key.length() > maxLength) {
+            return false;
+        }
+        int slot = slot(key);
+        if (candidates[slot] == key) {
+            return true;
+        }
+        candidates[slot] = key;
+        return false;
+    }
+
+    /**
+     * Caches a value, evicting whichever was in its slot.
+     *
+     * @param key   the string the value was derived from.
+     * @param value the value.
+     * @return the value.
+     */
+    V put(String key, V value) {
+        int slot = slot(key);
+        entries[slot] = new Entry<>(key, value);
+        candidates[slot] = null;
+        return value;
+    }
+
+    /**
+     * @param key the string.
+     * @return true if the slot of the string holds a value, which {@link IdentityCache#put} would evict.
+     */
+    boolean occupied(String key) {
+        return entries[slot(key)] != null;
+    }
+
+    int size() {
+        int size = 0;
+        for (var entry : entries) {
+            if (entry != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+}
@@ -5,32 +5,41 @@ import java.nio.ByteBuffer;
 /**
  * Utility helper to transform numbers to their equivalent ascii values.
  * <br/>
- * Utilizes "fast" math (relies on JVM optimizations though) to efficiently extract each digit and convert it to
- * ascii by applying `| 0x30` to it.
+ * The number of digits is known upfront, so the digits are written right to left, straight to their final position,
+ * two at a time from a table of all the pairs from "00" to "99". This halves the divisions, which are the expensive
+ * part, and switches to int arithmetic as soon as the remainder fits.
+ * <br/>
+ * Digits are extracted from the negated value, as negative longs have room for one more digit, which makes
+ * {@link Long#MIN_VALUE} work without special cases.
  */
 public final class IntToAscii {
 
-    private final byte[] innerBuffer = new byte[20];
+    // Each pair packed as a big-endian short, so it is written in a single store; all buffers use the default order.
+    private static final short[] DIGIT_PAIRS = new short[100];
+    private static final long[] POW10 = new long[19];
+
+    static {
+        for (int i = 0; i < DIGIT_PAIRS.length; i++) {
+            DIGIT_PAIRS[i] = (short) (('0' + i / 10) << 8 | '0' + i % 10);
+        }
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
 
     /**
-     * writes {@param num} to the byte[], one digit at a time
+     * writes {@param num} to the end of the byte[]
      *
      * @param num    the number to be encoded in ascii
      * @param target the byte array to write to
      * @return the number of bytes written
      */
     int longToAscii(long num, byte[] target) {
-        var quot = num;
-        int i = target.length - 1;
-        for (; i >= 0; i--) {
-            var temp = quot;
-            quot = quot / 10;
-            var rem = temp - (quot * 10);
-            target[i] = (byte) (rem | 0x30);
-            if (quot == 0) break;
-        }
-
-        return target.length - i;
+        var size = size(num);
+        var buffer = ByteBuffer.wrap(target, target.length - size, size);
+        longToAscii(num, buffer);
+        return size;
     }
 
     /**
@@ -40,8 +49,48 @@ public final class IntToAscii {
      * @param buffer the buffer where the digits should be written to
      */
     void longToAscii(long num, ByteBuffer buffer) {
-        // Check if it can be optimized by doing it in a single pass
-        int sz = longToAscii(num, innerBuffer);
-        buffer.put(innerBuffer, innerBuffer.length - sz, sz);
+        int end = buffer.position() + size(num);
+        long value = num;
+        if (num < 0) {
+            buffer.put(buffer.position(), (byte) '-');
+        } else {
+            value = -num;
+        }
+
+        int index = end;
+        while (value < Integer.MIN_VALUE) {
+            long quot = value / 100;
+            index -= 2;
+            buffer.putShort(index, DIGIT_PAIRS[(int) (quot * 100 - value)]);
+            value = quot;
+        }
+        int small = (int) value;
+        while (small <= -100) {
+            int quot = small / 100;
+            index -= 2;
+            buffer.putShort(index, DIGIT_PAIRS[quot * 100 - small]);
+            small = quot;
+        }
+        if (small <= -10) {
+            buffer.putShort(index - 2, DIGIT_PAIRS[-small]);
+        } else {
+            buffer.put(index - 1, (byte) ('0' - small));
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * @param num the number to be encoded
+     * @return how many bytes the number takes, including the sign.
+     */
+    static int size(long num) {
+        if (num == Long.MIN_VALUE) {
+            return 20;
+        }
+        long abs = Math.abs(num);
+        // floor(log10(2) * bits), which is either the number of digits or one less
+        int guess = (64 - Long.numberOfLeadingZeros(abs | 1)) * 1233 >>> 12;
+        int digits = (abs | 1) >= POW10[guess] ? guess + 1 : guess;
+        return num < 0 ? digits + 1 : digits;
     }
 }
@@ -6,10 +6,17 @@ import penna.core.models.PennaLogEvent;
 import penna.core.sink.CoreSink;
 import penna.core.sink.Sink;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
+import static penna.api.audit.Logger.reportError;
+
 /**
  * This Object Pool ensures each thread will have access to a single pooled {@link LogUnitContext},
  * without requiring {@link ThreadLocal}.
@@ -28,6 +35,21 @@ public final class LogUnitContextPool {
 
     private final LogUnitContext[] objectGroup;
 
+    /**
+     * The flush ticker won't wake up more often than this, regardless of how short the configured delay is.
+     */
+    private static final long MIN_TICK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * On shutdown, how long we wait for a slot that is in use before giving up on flushing it.
+     */
+    private static final long SHUTDOWN_WAIT_MILLIS = 100;
+
+    // The delay of each logger that holds messages back; the ticker runs only while there is any.
+    private final Map<Object, Long> flushDelays = new ConcurrentHashMap<>();
+    private volatile long tickNanos = Long.MAX_VALUE;
+    private volatile Thread flushTicker;
+
     private LogUnitContext leafObject(int index) {
         return new LogUnitContext(this, index, CoreSink.getSink(), new PennaLogEvent());
     }
@@ -49,6 +71,125 @@ public final class LogUnitContextPool {
         }
     }
 
+    /**
+     * Replaces the sinks of all the pooled objects at runtime.
+     * <br/>
+     * Differently from {@link LogUnitContextPool#refillThePool(Supplier)}, each slot is locked before being replaced,
+     * so no in-flight log message is written to a half-replaced sink.
+     *
+     * @param sinkSupplier Produces the sink for each of the slots in the pool.
+     */
+    public void replaceSinks(Supplier<Sink> sinkSupplier) {
+        for (int i = 0; i < objectGroup.length; i++) {
+            locks[i].lock();
+            try {
+                flush(objectGroup[i], true);
+                objectGroup[i].sink().retire();
+                objectGroup[i] = new LogUnitContext(this, i, sinkSupplier.get(), objectGroup[i].logEvent());
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Ensures the log messages held back by the sinks in this pool are written within the given delay,
+     * even if no other message is logged in the meantime.
+     * <br/>
+     * A single background thread is started once the first delay is set, ticking often enough for the shortest
+     * delay, and it is stopped once no delay is left.
+     *
+     * @param owner      The logger the delay is configured for, replacing its previous delay.
+     * @param delayNanos How long messages can be held back by the sinks; non-positive values remove the delay.
+     */
+    public void scheduleFlushes(Object owner, long delayNanos) {
+        // Called for every logger, which usually has no delay configured, so the common case doesn't lock.
+        var previous = flushDelays.get(owner);
+        if (delayNanos <= 0 ? previous == null : previous != null && previous == delayNanos) {
+            return;
+        }
+        updateFlushes(owner, delayNanos);
+    }
+
+    private synchronized void updateFlushes(Object owner, long delayNanos) {
+        if (delayNanos <= 0) {
+            flushDelays.remove(owner);
+        } else {
+            flushDelays.put(owner, delayNanos);
+        }
+
+        long shortest = Long.MAX_VALUE;
+        for (long delay : flushDelays.values()) {
+            shortest = Math.min(shortest, delay);
+        }
+        // Ticking at half the delay ensures a message is not held back for much longer than it was configured to
+        tickNanos = shortest == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(shortest / 2, MIN_TICK_NANOS);
+
+        var ticker = flushTicker;
+        if (tickNanos == Long.MAX_VALUE) {
+            flushTicker = null;
+        } else if (ticker == null) {
+            flushTicker = Thread.ofVirtual().name("penna-flush-ticker").unstarted(this::tick);
+            flushTicker.start();
+        }
+        if (ticker != null) {
+            // Wakes the ticker up, so it either picks up the new delay or notices it is no longer needed
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    private void tick() {
+        var self = Thread.currentThread();
+        while (flushTicker == self) {
+            LockSupport.parkNanos(tickNanos);
+            flushPending();
+        }
+    }
+
+    /**
+     * Writes the log messages that are past their deadline in all the sinks that are not in use.
+     * Sinks that are in use are skipped, as they check their deadline when they are done writing.
+     */
+    public void flushPending() {
+        for (int i = 0; i < objectGroup.length; i++) {
+            if (locks[i].tryLock()) {
+                try {
+                    flush(objectGroup[i], false);
+                } finally {
+                    locks[i].unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes all the log messages held back by the sinks in this pool, waiting a short while for the sinks in use.
+     */
+    public void flushAll() {
+        for (int i = 0; i < objectGroup.length; i++) {
+            try {
+                if (locks[i].tryLock(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    try {
+                        flush(objectGroup[i], true);
+                    } finally {
+                        locks[i].unlock();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void flush(LogUnitContext context, boolean force) {
+        try {
+            context.sink().flushPending(force);
+        } catch (IOException e) {
+            reportError("ERROR", "Unable to write log.", e);
+        }
+    }
+
     public void release(int index) {
         locks[index].unlock();
     }
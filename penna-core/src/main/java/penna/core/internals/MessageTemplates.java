@@ -0,0 +1,116 @@
+package penna.core.internals;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the message formats already split around their placeholders, so constant formats, which are most of them,
+ * are only scanned and escaped once instead of in every message.
+ * <br />
+ * Formats are kept in an {@link IdentityCache}: a format is only compiled the second time it misses on its slot in
+ * a row, so formats built at runtime are formatted without the cache instead of evicting the constant ones.
+ * Formats longer than {@link MessageTemplates#MAX_LENGTH} are never cached.
+ * <br />
+ * Counting hits, misses and evictions would put shared counters on the path of every message, so they are only
+ * counted when the {@value MessageTemplates#METRICS_PROPERTY} system property is set to true; otherwise they
+ * stay at 0.
+ */
+public final class MessageTemplates {
+    private MessageTemplates() {}
+
+    /**
+     * How many formats the cache holds at most; a power of two.
+     */
+    static final int SLOTS = 1024;
+
+    /**
+     * Formats longer than this, in chars, are never cached.
+     */
+    static final int MAX_LENGTH = 2048;
+
+    /**
+     * The system property that turns the counting of hits, misses and evictions on.
+     */
+    public static final String METRICS_PROPERTY = "penna.templateCacheMetrics";
+
+    private static final boolean METRICS = Boolean.getBoolean(METRICS_PROPERTY);
+
+    private static final IdentityCache<Template> templates = new IdentityCache<>(SLOTS, MAX_LENGTH);
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    /**
+     * A format split around its placeholders.
+     * <br />
+     * There is one literal more than there are placeholders; placeholders are either slots for the next argument or
+     * placeholders escaped with a backslash in the format, which are written as is.
+     *
+     * @param format   The format the template was compiled from.
+     * @param literals The text around the placeholders, already escaped and encoded.
+     * @param escaped  For each placeholder, whether it was escaped in the format.
+     */
+    record Template(String format, byte[][] literals, boolean[] escaped) {}
+
+    /**
+     * @param format the message format.
+     * @return the cached template for that very format, or null if it is not cached.
+     */
+    static Template lookup(String format) {
+        var template = templates.get(format);
+        if (METRICS) {
+            (template == null ? misses : hits).increment();
+        }
+        return template;
+    }
+
+    /**
+     * Decides whether a format that missed the cache is worth compiling.
+     *
+     * @param format the message format.
+     * @return true if the format missed on its slot right before, false if it is taken as a one-off for now.
+     */
+    static boolean admit(String format) {
+        return templates.admit(format);
+    }
+
+    /**
+     * Caches a template, evicting whichever was in its slot.
+     *
+     * @param template the compiled template.
+     */
+    static void store(Template template) {
+        if (METRICS && templates.occupied(template.format())) {
+            evictions.increment();
+        }
+        templates.put(template.format(), template);
+    }
+
+    /**
+     * @return how many formats were found in the cache; 0 unless the metrics are turned on.
+     */
+    public static long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many formats were not found in the cache, either compiled then or formatted without it;
+     * 0 unless the metrics are turned on.
+     */
+    public static long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how many templates were replaced in the cache by another format; 0 unless the metrics are turned on.
+     */
+    public static long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return how many templates are currently cached.
+     */
+    public static int size() {
+        return templates.size();
+    }
+}
@@ -0,0 +1,103 @@
+package penna.core.internals;
+
+import penna.api.serialization.JsonWriter;
+import penna.api.serialization.ValueSerializer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+
+import static penna.api.audit.Logger.reportError;
+
+/**
+ * Writes records as JSON objects, with an entry for each of their components, in declaration order.
+ * <br />
+ * The accessors of a record class are looked up once, through {@link Class#getRecordComponents()}, and kept as
+ * method handles adapted to take any object and to return the component with its declared primitive type, if any,
+ * so reading a component doesn't box it. Records whose accessors can't be reached, i.e. because their module
+ * doesn't open them, are written through {@link Object#toString()} instead.
+ */
+final class RecordSerializer implements ValueSerializer<Record> {
+
+    /**
+     * A component of a record, with the accessor adapted to the call sites in {@link Component#write}.
+     *
+     * @param name     The name of the component, which is the key of its entry.
+     * @param type     The declared type of the component.
+     * @param accessor The accessor, taking the record as an {@link Object}.
+     */
+    record Component(String name, Class<?> type, MethodHandle accessor) {
+
+        static Component of(RecordComponent component) throws IllegalAccessException {
+            var accessor = component.getAccessor();
+            accessor.setAccessible(true);
+            var type = component.getType();
+            var handle = MethodHandles.lookup()
+                    .unreflect(accessor)
+                    .asType(MethodType.methodType(type.isPrimitive() ? type : Object.class, Object.class));
+            return new Component(component.getName(), type, handle);
+        }
+
+        void write(Record value, JsonWriter writer) throws Throwable {
+            writer.name(name);
+            if (type == int.class) {
+                writer.value((int) accessor.invokeExact((Object) value));
+            } else if (type == long.class) {
+                writer.value((long) accessor.invokeExact((Object) value));
+            } else if (type == double.class) {
+                writer.value((double) accessor.invokeExact((Object) value));
+            } else if (type == boolean.class) {
+                writer.value((boolean) accessor.invokeExact((Object) value));
+            } else if (type == float.class) {
+                writer.value((float) accessor.invokeExact((Object) value));
+            } else if (type == short.class) {
+                writer.value((short) accessor.invokeExact((Object) value));
+            } else if (type == byte.class) {
+                writer.value((byte) accessor.invokeExact((Object) value));
+            } else if (type == char.class) {
+                writer.value(String.valueOf((char) accessor.invokeExact((Object) value)));
+            } else {
+                writer.value((Object) accessor.invokeExact((Object) value));
+            }
+        }
+    }
+
+    // A null entry means the record can't be read and is written through its toString() instead.
+    private static final ClassValue<Component[]> COMPONENTS = new ClassValue<>() {
+        @Override
+        protected Component[] computeValue(Class<?> type) {
+            var components = type.getRecordComponents();
+            var compiled = new Component[components.length];
+            try {
+                for (int i = 0; i < components.length; i++) {
+                    compiled[i] = Component.of(components[i]);
+                }
+            } catch (IllegalAccessException | RuntimeException e) {
+                reportError("WARN", "Unable to access the components of " + type.getName() + "; using toString().", e);
+                return null;
+            }
+            return compiled;
+        }
+    };
+
+    @Override
+    public void write(Record value, JsonWriter writer) {
+        var components = COMPONENTS.get(value.getClass());
+        if (components == null) {
+            writer.value(value.toString());
+            return;
+        }
+        writer.beginObject();
+        try {
+            for (var component : components) {
+                component.write(value, writer);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read the components of " + value.getClass().getName(), e);
+        }
+        writer.endObject();
+    }
+}
@@ -0,0 +1,200 @@
+package penna.core.internals;
+
+import penna.api.serialization.SerializerProvider;
+import penna.api.serialization.SerializerRegistry;
+import penna.api.serialization.ValueSerializer;
+
+import java.nio.CharBuffer;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAmount;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static penna.api.audit.Logger.reportError;
+
+/**
+ * Keeps the {@link ValueSerializer}s for the objects logged as values of key/value pairs, which aren't natively
+ * supported by the sinks.
+ * <br />
+ * The serializer for a class is resolved once and cached; as registering a serializer can change the resolution
+ * for any of the subtypes of its type, the whole cache is dropped on every registration, which is expected to happen
+ * mostly at startup.
+ * <br />
+ * Serializers for records, {@code java.time}, {@link Optional}, {@link Collection} and primitive arrays are
+ * registered by default, and can be replaced. The {@link SerializerProvider}s on the class or module path are
+ * loaded the first time a serializer is needed.
+ */
+public final class Serializers {
+    private Serializers() {}
+
+    private static final ValueSerializer<Object> NONE = (value, writer) -> {};
+    private static final Map<Class<?>, ValueSerializer<?>> registered = new ConcurrentHashMap<>();
+    private static volatile ClassValue<ValueSerializer<Object>> resolved = newCache();
+
+    static {
+        register(Record.class, new RecordSerializer());
+        register(TemporalAccessor.class, (value, writer) -> writer.value(value.toString()));
+        register(TemporalAmount.class, (value, writer) -> writer.value(value.toString()));
+        register(Optional.class, (value, writer) -> writer.value(((Optional<?>) value).orElse(null)));
+        register(OptionalInt.class, (value, writer) -> {
+            if (value.isPresent()) {
+                writer.value(value.getAsInt());
+            } else {
+                writer.nullValue();
+            }
+        });
+        register(OptionalLong.class, (value, writer) -> {
+            if (value.isPresent()) {
+                writer.value(value.getAsLong());
+            } else {
+                writer.nullValue();
+            }
+        });
+        register(OptionalDouble.class, (value, writer) -> {
+            if (value.isPresent()) {
+                writer.value(value.getAsDouble());
+            } else {
+                writer.nullValue();
+            }
+        });
+        register(Collection.class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(int[].class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(long[].class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(short[].class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(byte[].class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(double[].class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(float[].class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(boolean[].class, (value, writer) -> {
+            writer.beginArray();
+            for (var item : value) {
+                writer.value(item);
+            }
+            writer.endArray();
+        });
+        register(char[].class, (value, writer) -> writer.value(CharBuffer.wrap(value)));
+
+        SerializerRegistry registry = Serializers::register;
+        try {
+            for (var provider : ServiceLoader.load(SerializerProvider.class)) {
+                try {
+                    provider.register(registry);
+                } catch (RuntimeException e) {
+                    reportError("ERROR", "Unable to register serializers from " + provider.getClass().getName(), e);
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            reportError("ERROR", "Unable to load serializer providers", e);
+        }
+    }
+
+    /**
+     * Registers a serializer for a type and its subtypes, replacing any previous one for that very type.
+     *
+     * @param type       the type of the objects.
+     * @param serializer the serializer for them.
+     * @param <T>        the type of the objects.
+     */
+    public static <T> void register(Class<T> type, ValueSerializer<? super T> serializer) {
+        registered.put(type, serializer);
+        resolved = newCache();
+    }
+
+    /**
+     * @param type the class of an object being logged.
+     * @return the serializer for it, or null if none is registered for any of its types.
+     */
+    public static ValueSerializer<Object> resolve(Class<?> type) {
+        var serializer = resolved.get(type);
+        return serializer == NONE ? null : serializer;
+    }
+
+    private static ClassValue<ValueSerializer<Object>> newCache() {
+        return new ClassValue<>() {
+            @Override
+            protected ValueSerializer<Object> computeValue(Class<?> type) {
+                return find(type);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueSerializer<Object> find(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            var serializer = registered.get(current);
+            if (serializer != null) {
+                return (ValueSerializer<Object>) serializer;
+            }
+        }
+
+        // Breadth-first, so the interfaces closer to the class win over the ones they extend
+        var pending = new ArrayDeque<Class<?>>();
+        var seen = new HashSet<Class<?>>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            Collections.addAll(pending, current.getInterfaces());
+        }
+        Class<?> next;
+        while ((next = pending.poll()) != null) {
+            if (!seen.add(next)) {
+                continue;
+            }
+            var serializer = registered.get(next);
+            if (serializer != null) {
+                return (ValueSerializer<Object>) serializer;
+            }
+            Collections.addAll(pending, next.getInterfaces());
+        }
+        return NONE;
+    }
+}
@@ -3,9 +3,8 @@ package penna.core.logger;
 import org.slf4j.Marker;
 import org.slf4j.event.Level;
 import org.slf4j.event.LoggingEvent;
-import org.slf4j.spi.LoggingEventBuilder;
+import penna.api.logging.PennaEventBuilder;
 import penna.core.internals.LogUnitContextPool;
-import penna.core.models.KeyValuePair;
 import penna.core.models.PennaLogEvent;
 import penna.core.sink.Sink;
 
@@ -19,7 +18,7 @@ public record LogUnitContext(
         int selfReference,
         Sink sink,
         PennaLogEvent logEvent
-) implements LoggingEventBuilder {
+) implements PennaEventBuilder {
 
     public void fromLoggingEvent(LoggingEvent event) {
         if (event instanceof PennaLogEvent pennaLogEvent) {
@@ -44,9 +43,7 @@ public record LogUnitContext(
         setCause(event.throwable);
         setMessage(event.message);
         addArguments(event.arguments);
-        for (var kvp : event.keyValuePairs) {
-            addKeyValue(kvp.key(), kvp.value());
-        }
+        logEvent.copyKeyValues(event);
         for (var marker : event.markers) {
             addMarker(marker);
         }
@@ -63,19 +60,19 @@ public record LogUnitContext(
     }
 
     @Override
-    public LoggingEventBuilder setCause(Throwable cause) {
+    public PennaEventBuilder setCause(Throwable cause) {
         logEvent.throwable = cause;
         return this;
     }
 
     @Override
-    public LoggingEventBuilder addMarker(Marker marker) {
+    public PennaEventBuilder addMarker(Marker marker) {
         logEvent.markers.add(marker);
         return this;
     }
 
     @Override
-    public LoggingEventBuilder addArgument(Object p) {
+    public PennaEventBuilder addArgument(Object p) {
         if (p instanceof Throwable throwable) {
             setCause(throwable);
         } else {
@@ -85,29 +82,53 @@ public record LogUnitContext(
     }
 
     @Override
-    public LoggingEventBuilder addArgument(Supplier<?> objectSupplier) {
+    public PennaEventBuilder addArgument(Supplier<?> objectSupplier) {
         return addArgument(objectSupplier.get());
     }
 
     @Override
-    public LoggingEventBuilder addKeyValue(String key, Object value) {
-        logEvent.keyValuePairs.add(new KeyValuePair(key, value));
+    public PennaEventBuilder addKeyValue(String key, Object value) {
+        logEvent.addKeyValue(key, value);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, long value) {
+        logEvent.addKeyValue(key, PennaLogEvent.LONG, value, null);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, double value) {
+        logEvent.addKeyValue(key, PennaLogEvent.DOUBLE, Double.doubleToRawLongBits(value), null);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addKeyValue(String key, boolean value) {
+        logEvent.addKeyValue(key, PennaLogEvent.BOOLEAN, value ? 1 : 0, null);
+        return this;
+    }
+
+    @Override
+    public PennaEventBuilder addText(String key, CharSequence value) {
+        logEvent.addKeyValue(key, PennaLogEvent.TEXT, 0, value);
         return this;
     }
 
     @Override
-    public LoggingEventBuilder addKeyValue(String key, Supplier<Object> valueSupplier) {
+    public PennaEventBuilder addKeyValue(String key, Supplier<Object> valueSupplier) {
         return addKeyValue(key, valueSupplier.get());
     }
 
     @Override
-    public LoggingEventBuilder setMessage(String message) {
+    public PennaEventBuilder setMessage(String message) {
         logEvent.message = message;
         return this;
     }
 
     @Override
-    public LoggingEventBuilder setMessage(Supplier<String> messageSupplier) {
+    public PennaEventBuilder setMessage(Supplier<String> messageSupplier) {
         logEvent.message = messageSupplier.get();
         return this;
     }
@@ -151,7 +172,7 @@ public record LogUnitContext(
         log();
     }
 
-    public LoggingEventBuilder addArguments(Object... args) {
+    public PennaEventBuilder addArguments(Object... args) {
         logEvent.addAllArguments(args);
         return this;
     }
@@ -1,9 +1,11 @@
 package penna.core.logger;
 
 import org.slf4j.Marker;
+import org.slf4j.event.Level;
 import org.slf4j.event.LoggingEvent;
 import org.slf4j.spi.LoggingEventBuilder;
 import penna.api.models.Config;
+import penna.core.internals.Admission;
 import penna.core.logger.guard.LevelGuard;
 import penna.core.models.LogConfig;
 
@@ -20,6 +22,7 @@ public final class PennaLogger implements IPennaLogger {
         this.nameAsChars = name.getBytes();
         this.config = LogConfig.fromConfig(config);
         levelGuard = LevelGuard.FromConfig.get(config);
+        LevelGuard.Shared.logUnits.scheduleFlushes(this, this.config.flushNanos);
     }
 
     public void updateConfig(Config config) {
@@ -27,6 +30,17 @@ public final class PennaLogger implements IPennaLogger {
             levelGuard = LevelGuard.FromConfig.get(config);
         }
         this.config.update(config);
+        LevelGuard.Shared.logUnits.scheduleFlushes(this, this.config.flushNanos);
+    }
+
+    /**
+     * Checks the backpressure policy of this logger before a message is built.
+     *
+     * @param level the level of the message.
+     * @return false if the message must be dropped because the async writer is not keeping up.
+     */
+    public boolean admits(Level level) {
+        return Admission.admit(config, level);
     }
 
     @Override
@@ -363,6 +377,9 @@ public final class PennaLogger implements IPennaLogger {
     @SuppressWarnings("PMD.GuardLogStatement")
     @Override
     public void log(LoggingEvent event) {
-        levelGuard.get(this, event.getLevel()).fromLoggingEvent(event);
+        // Dropped messages (see BackpressurePolicy) get a no-op builder instead of a log unit
+        if (levelGuard.get(this, event.getLevel()) instanceof LogUnitContext context) {
+            context.fromLoggingEvent(event);
+        }
     }
 }
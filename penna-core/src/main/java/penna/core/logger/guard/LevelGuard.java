@@ -7,7 +7,6 @@ import org.slf4j.spi.LoggingEventBuilder;
 import org.slf4j.spi.NOPLoggingEventBuilder;
 import penna.api.models.Config;
 import penna.core.internals.LogUnitContextPool;
-import penna.core.logger.LogUnitContext;
 import penna.core.logger.PennaLogger;
 
 /**
@@ -42,7 +41,10 @@ public sealed interface LevelGuard permits DebugLevelGuard, ErrorLevelGuard, Inf
     }
 
 
-    default LogUnitContext get(PennaLogger logger, Level level) {
+    default LoggingEventBuilder get(PennaLogger logger, Level level) {
+        if (!logger.admits(level)) {
+            return NOPLoggingEventBuilder.singleton();
+        }
         var eventBuilder = Shared.logUnits.get();
         eventBuilder.reset(logger, level);
 
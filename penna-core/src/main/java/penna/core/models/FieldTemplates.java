@@ -0,0 +1,124 @@
+package penna.core.models;
+
+import org.slf4j.event.Level;
+import penna.api.models.LogField;
+import penna.core.sink.FieldEmitter;
+import penna.core.sink.framing.Framing;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fragments of the JSON object that don't change from one message to the next, for a logger and a
+ * {@link Framing}, encoded ahead of time so they can be written in a single put each, along with the plan for
+ * writing the fields of its messages.
+ * <br />
+ * They are cached in the {@link LogConfig} of the logger and rebuilt whenever its fields, its name or the framing
+ * in use change.
+ *
+ * @param framing  The framing the keys were taken from.
+ * @param source   The fields of the logger the templates were compiled from.
+ * @param name     The name of the logger the templates were compiled for.
+ * @param fields   The fields to write, in the configured order, without the ones the framing leaves out.
+ * @param keys     The key of each field, as {@code "key":}, in the same order as the fields.
+ * @param logger   The whole logger name entry, as {@code "logger":"com.foo.Bar",}.
+ * @param levels   The whole level entry, as {@code "level":"INFO",}, indexed by level ordinal.
+ * @param emitters The emitter of each field, bound to its fragments, in the same order as the fields.
+ */
+public record FieldTemplates(
+        Framing framing,
+        LogField[] source,
+        byte[] name,
+        LogField[] fields,
+        byte[][] keys,
+        byte[] logger,
+        byte[][] levels,
+        FieldEmitter[] emitters
+) {
+
+    /**
+     * Encodes the templates for a logger.
+     *
+     * @param framing The framing of the sink writing the messages.
+     * @param fields  The fields configured for the logger.
+     * @param name    The name of the logger.
+     * @return the templates for the logger, for that framing.
+     */
+    static FieldTemplates compile(Framing framing, LogField[] fields, byte[] name) {
+        List<LogField> included = new ArrayList<>(fields.length);
+        List<byte[]> keys = new ArrayList<>(fields.length);
+        for (var field : fields) {
+            var key = framing.key(field);
+            if (key != null) {
+                included.add(field);
+                keys.add(key(key));
+            }
+        }
+
+        byte[] logger = null;
+        var loggerKey = framing.key(LogField.LOGGER_NAME);
+        if (loggerKey != null) {
+            logger = entry(loggerKey, name);
+        }
+
+        var levels = new byte[Level.values().length][];
+        var levelKey = framing.key(LogField.LEVEL);
+        if (levelKey != null) {
+            for (var level : Level.values()) {
+                levels[level.ordinal()] = entry(levelKey, level.name().getBytes());
+            }
+        }
+
+        var emitters = new FieldEmitter[included.size()];
+        for (int i = 0; i < emitters.length; i++) {
+            emitters[i] = FieldEmitter.of(included.get(i), keys.get(i), logger, levels);
+        }
+
+        return new FieldTemplates(
+                framing,
+                fields,
+                name,
+                included.toArray(LogField[]::new),
+                keys.toArray(byte[][]::new),
+                logger,
+                levels,
+                emitters
+        );
+    }
+
+    /**
+     * @return whether these templates are still valid for the given framing, fields and logger name.
+     */
+    boolean matches(Framing framing, LogField[] fields, byte[] name) {
+        return this.framing == framing && this.source == fields && this.name == name;
+    }
+
+    private static byte[] key(byte[] key) {
+        var out = new ByteArrayOutputStream(key.length + 3);
+        out.write('"');
+        out.writeBytes(key);
+        out.write('"');
+        out.write(':');
+        return out.toByteArray();
+    }
+
+    private static byte[] entry(byte[] key, byte[] value) {
+        var out = new ByteArrayOutputStream(key.length + value.length + 6);
+        out.writeBytes(key(key));
+        out.write('"');
+        for (byte chr : value) {
+            if (chr == '"' || chr == '\\') {
+                out.write('\\');
+                out.write(chr);
+            } else if (chr >= 0 && chr < 0x20) {
+                out.writeBytes(String.format("\\u%04x", chr).getBytes());
+            } else {
+                out.write(chr);
+            }
+        }
+        out.write('"');
+        out.write(',');
+        return out.toByteArray();
+    }
+}
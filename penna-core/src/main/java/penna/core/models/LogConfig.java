@@ -1,16 +1,37 @@
 package penna.core.models;
 
+import org.slf4j.event.Level;
+import penna.api.models.BackpressurePolicy;
 import penna.api.models.Config;
 import penna.api.models.LogField;
 import penna.core.internals.StackTraceFilter;
+import penna.core.sink.framing.Framing;
+
+import java.util.concurrent.TimeUnit;
 
 public final class LogConfig {
     public LogField[] fields;
     public StackTraceFilter filter;
     public int stacktraceDepth;
     public int traverseDepth;
+    public boolean flushImmediately;
+    public int flushBytes;
+    public long flushNanos;
+    // Indexed by Level ordinal, whether messages at that level can be dropped while the async writer is saturated.
+    public final boolean[] droppable = new boolean[Level.values().length];
+    // One in this many droppable messages is kept at random while saturated; 0 drops all of them.
+    public int sampleRate;
+    // Indexed by Level ordinal, the additional outputs the messages at that level are sent to.
+    public final RouteTarget[][] routes = new RouteTarget[Level.values().length][];
+    // Sizes past which the fields are truncated; 0 lifts the limit on bytes.
+    public int maxMessageBytes;
+    public int maxValueBytes;
+    public int maxElements;
+    public int maxDepth;
 
     private boolean deduplicate;
+    // Fragments encoded for the framing last used with this logger, rebuilt when they no longer match.
+    private volatile FieldTemplates templates;
 
     public static LogConfig fromConfig(Config config) {
         var cfg = new LogConfig();
@@ -26,10 +47,45 @@ public final class LogConfig {
     }
 
 
+    /**
+     * Gets the pre-encoded fragments of the messages of this logger, encoding them first if needed.
+     *
+     * @param framing The framing of the sink writing the message.
+     * @param name    The name of the logger, as in {@link PennaLogEvent#logger}.
+     * @return the templates for this logger and framing.
+     */
+    public FieldTemplates templates(Framing framing, byte[] name) {
+        var current = templates;
+        if (current == null || !current.matches(framing, fields, name)) {
+            current = FieldTemplates.compile(framing, fields, name);
+            templates = current;
+        }
+        return current;
+    }
+
     public void update(Config config) {
         this.fields = config.fields();
+        this.templates = null;
         this.stacktraceDepth = config.exceptionHandling().maxDepth();
         this.traverseDepth = config.exceptionHandling().traverseDepth();
+        this.flushImmediately = config.flushPolicy().isImmediate();
+        this.flushBytes = Math.max(config.flushPolicy().maxBytes(), 0);
+        this.flushNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(config.flushPolicy().maxDelayMicros(), 0L));
+        var backpressure = config.backpressure();
+        for (var level : Level.values()) {
+            this.droppable[level.ordinal()] = backpressure.canDrop(level);
+        }
+        this.sampleRate = backpressure.strategy() == BackpressurePolicy.Strategy.SAMPLE
+                ? Math.max(backpressure.sampleRate(), 1)
+                : 0;
+        for (var level : Level.values()) {
+            this.routes[level.ordinal()] = RouteTarget.compile(config.routes(), level);
+        }
+        var limits = config.limits();
+        this.maxMessageBytes = Math.max(limits.maxMessageBytes(), 0);
+        this.maxValueBytes = Math.max(limits.maxValueBytes(), 0);
+        this.maxElements = limits.maxElements() > 0 ? limits.maxElements() : Integer.MAX_VALUE;
+        this.maxDepth = limits.maxDepth() > 0 ? limits.maxDepth() : Integer.MAX_VALUE;
         if (config.exceptionHandling().deduplication() != this.deduplicate) {
             if (!config.exceptionHandling().deduplication()) {
                 this.filter = StackTraceFilter.Shared.getPassThroughFilter();
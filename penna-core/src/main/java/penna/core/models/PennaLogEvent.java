@@ -5,15 +5,35 @@ import org.slf4j.event.Level;
 import org.slf4j.event.LoggingEvent;
 import penna.core.internals.Clock;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 public final class PennaLogEvent implements LoggingEvent {
+    public static final byte OBJECT = 0;
+    public static final byte LONG = 1;
+    public static final byte DOUBLE = 2;
+    public static final byte BOOLEAN = 3;
+    public static final byte TEXT = 4;
+    private static final int KEY_VALUE_CAPACITY = 16;
+
     private int cursor;
     public Object[] arguments = new Object[8];
     public List<Marker> markers = new ArrayList<>();
-    public List<KeyValuePair> keyValuePairs = new ArrayList<>();
+    /*
+     * Key/value pairs, as parallel arrays reused from one event to the next and only grown when an event has more
+     * pairs than any before it. Primitive values are kept unboxed in primitiveValues, doubles as their raw bits and
+     * booleans as 0 or 1, while objects and text values are kept in objectValues; keyValueKinds tells them apart.
+     */
+    public int keyValueCount;
+    public String[] keys = new String[KEY_VALUE_CAPACITY];
+    public byte[] keyValueKinds = new byte[KEY_VALUE_CAPACITY];
+    public long[] primitiveValues = new long[KEY_VALUE_CAPACITY];
+    public Object[] objectValues = new Object[KEY_VALUE_CAPACITY];
+    private final KeyValueView keyValueView = new KeyValueView();
     public Object extra;
     public Level level;
     public String message;
@@ -33,7 +53,9 @@ public final class PennaLogEvent implements LoggingEvent {
         markers.clear();
         cursor = 0;
         Arrays.fill(arguments, null);
-        keyValuePairs.clear();
+        Arrays.fill(keys, 0, keyValueCount, null);
+        Arrays.fill(objectValues, 0, keyValueCount, null);
+        keyValueCount = 0;
 
         extra = null;
         message = null;
@@ -91,6 +113,65 @@ public final class PennaLogEvent implements LoggingEvent {
         System.arraycopy(newArguments, 0, arguments, cursor, newArguments.length);
     }
 
+    public void addKeyValue(String key, Object value) {
+        addKeyValue(key, OBJECT, 0, value);
+    }
+
+    public void addKeyValue(String key, byte kind, long primitive, Object value) {
+        if (keyValueCount == keys.length) {
+            int capacity = keyValueCount * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            keyValueKinds = Arrays.copyOf(keyValueKinds, capacity);
+            primitiveValues = Arrays.copyOf(primitiveValues, capacity);
+            objectValues = Arrays.copyOf(objectValues, capacity);
+        }
+        keys[keyValueCount] = key;
+        keyValueKinds[keyValueCount] = kind;
+        primitiveValues[keyValueCount] = primitive;
+        objectValues[keyValueCount] = value;
+        keyValueCount++;
+    }
+
+    /**
+     * Copies all the key/value pairs of another event, keeping the primitive ones unboxed.
+     *
+     * @param other the event to copy the pairs from.
+     */
+    public void copyKeyValues(PennaLogEvent other) {
+        for (int i = 0; i < other.keyValueCount; i++) {
+            addKeyValue(other.keys[i], other.keyValueKinds[i], other.primitiveValues[i], other.objectValues[i]);
+        }
+    }
+
+    /**
+     * @return the value of a key/value pair, boxed if it is a primitive.
+     */
+    public Object keyValue(int index) {
+        return switch (keyValueKinds[index]) {
+            case LONG -> primitiveValues[index];
+            case DOUBLE -> Double.longBitsToDouble(primitiveValues[index]);
+            case BOOLEAN -> primitiveValues[index] != 0;
+            default -> objectValues[index];
+        };
+    }
+
+    /**
+     * A read-only view over the key/value pairs of the event, for the SLF4J interfaces; the {@link
+     * org.slf4j.event.KeyValuePair}s are only created when they are read.
+     */
+    private final class KeyValueView extends AbstractList<org.slf4j.event.KeyValuePair> implements RandomAccess {
+        @Override
+        public org.slf4j.event.KeyValuePair get(int index) {
+            Objects.checkIndex(index, keyValueCount);
+            return new org.slf4j.event.KeyValuePair(keys[index], keyValue(index));
+        }
+
+        @Override
+        public int size() {
+            return keyValueCount;
+        }
+    }
+
     @Override
     public List<Marker> getMarkers() {
         return markers;
@@ -98,7 +179,7 @@ public final class PennaLogEvent implements LoggingEvent {
 
     @Override
     public List<org.slf4j.event.KeyValuePair> getKeyValuePairs() {
-        return keyValuePairs.stream().map(KeyValuePair::toSlf4j).toList();
+        return keyValueView;
     }
 
     @Override
@@ -122,7 +203,7 @@ public final class PennaLogEvent implements LoggingEvent {
                 "cursor=" + cursor +
                 ", arguments=" + Arrays.toString(arguments) +
                 ", markers=" + markers +
-                ", keyValuePairs=" + keyValuePairs +
+                ", keyValuePairs=" + keyValueView +
                 ", extra=" + extra +
                 ", level=" + level +
                 ", message='" + message + '\'' +
@@ -0,0 +1,94 @@
+package penna.core.models;
+
+import org.slf4j.Marker;
+import org.slf4j.event.Level;
+import penna.api.models.Route;
+import penna.core.sink.output.NamedOutput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The compiled form of the {@link Route}s of a logger for a single level: one target per output, with the names of
+ * the markers that send a message to it.
+ *
+ * @param output  The slot of the output the messages are written to.
+ * @param markers The marker names; any of them sends a message to the output. Empty if every message is sent.
+ */
+public record RouteTarget(
+        NamedOutput output,
+        String[] markers
+) {
+    private static final String[] ANY = new String[]{};
+    static final RouteTarget[] NONE = new RouteTarget[]{};
+
+    /**
+     * Compiles the routes that apply to a level, merging the rules for the same output, so a message is written
+     * at most once to each output.
+     *
+     * @param routes The routes of the logger.
+     * @param level  The level of the messages.
+     * @return the targets for that level, or an empty array if there are none.
+     */
+    static RouteTarget[] compile(Route[] routes, Level level) {
+        if (routes == null || routes.length == 0) {
+            return NONE;
+        }
+
+        List<String> outputs = new ArrayList<>();
+        List<List<String>> markers = new ArrayList<>();
+        for (var route : routes) {
+            if (route.output() == null || !route.accepts(level)) {
+                continue;
+            }
+            var index = outputs.indexOf(route.output());
+            if (index < 0) {
+                outputs.add(route.output());
+                markers.add(new ArrayList<>());
+                index = outputs.size() - 1;
+            }
+            var names = markers.get(index);
+            if (route.marker() == null) {
+                // Some rule sends every message to this output, so the markers don't matter anymore
+                names.clear();
+                names.add(null);
+            } else if (!names.contains(null) && !names.contains(route.marker())) {
+                names.add(route.marker());
+            }
+        }
+
+        if (outputs.isEmpty()) {
+            return NONE;
+        }
+        var targets = new RouteTarget[outputs.size()];
+        for (int i = 0; i < targets.length; i++) {
+            var names = markers.get(i);
+            targets[i] = new RouteTarget(
+                    NamedOutput.of(outputs.get(i)),
+                    names.contains(null) ? ANY : names.toArray(String[]::new)
+            );
+        }
+        return targets;
+    }
+
+    /**
+     * Checks whether a message is sent to this output.
+     *
+     * @param eventMarkers The markers of the message.
+     * @return true if the message has one of the markers, or if every message is sent.
+     */
+    public boolean matches(List<Marker> eventMarkers) {
+        if (markers.length == 0) {
+            return true;
+        }
+        for (int i = 0; i < eventMarkers.size(); i++) {
+            var marker = eventMarkers.get(i);
+            for (var name : markers) {
+                if (marker.contains(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
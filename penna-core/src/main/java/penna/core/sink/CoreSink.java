@@ -1,11 +1,18 @@
 package penna.core.sink;
 
 import org.slf4j.MDC;
-import penna.api.models.LogField;
+import org.slf4j.event.Level;
+import penna.api.serialization.JsonWriter;
+import penna.api.serialization.ValueSerializer;
 import penna.core.internals.DirectJson;
+import penna.core.internals.Serializers;
 import penna.core.internals.StackTraceBloomFilter;
 import penna.core.models.LogConfig;
 import penna.core.models.PennaLogEvent;
+import penna.core.models.RouteTarget;
+import penna.core.sink.framing.Framing;
+import penna.core.sink.framing.JsonLines;
+import penna.core.sink.output.SharedChannel;
 import penna.core.slf4j.PennaMDCAdapter;
 
 import java.io.Closeable;
@@ -13,12 +20,15 @@ import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 
 import static penna.api.audit.Logger.report;
+import static penna.api.audit.Logger.reportError;
 
 public final class CoreSink implements Sink, Closeable {
     private static final byte[] SUPPRESSED = "suppressed".getBytes();
@@ -31,23 +41,27 @@ public final class CoreSink implements Sink, Closeable {
     private static final byte[] NATIVE = "Native Method".getBytes();
     private static final byte[] UNKNOWN = "Unknown Source".getBytes();
 
-    private static final byte[][] LEVEL_ENUM_MAP = new byte[][]{
-            "ERROR".getBytes(),
-            "WARN".getBytes(),
-            "INFO".getBytes(),
-            "DEBUG".getBytes(),
-            "TRACE".getBytes()
-    };
-
     private final int[] filterHashes = new int[StackTraceBloomFilter.NUMBER_OF_HASHES];
 
     private final AtomicLong counter = new AtomicLong(0L);
 
+    // Earliest System.nanoTime() by which the messages held back in the buffer must be written, if any.
+    private boolean hasDeadline;
+    private long flushDeadline;
+
     private FileOutputStream fos;
     private final DirectJson jsonGenerator;
 
+    private final Framing framing;
+    private final byte[] delimiter;
+
+    private final ValueWriter valueWriter = new ValueWriter();
+    // How many maps, collections and objects the value being written is nested into.
+    private int depth;
+
     private final PennaMDCAdapter mdcAdapter;
     private final BiConsumer<String, String> mdcWriter;
+    private int mdcValueBytes;
 
     // From the same ticket that PMD references, https://bugs.openjdk.org/browse/JDK-8080225, it is noted that
     // in JDK 10 the problem was solved. We are targeting JDK 17+, so the problem won't affect us.
@@ -63,6 +77,16 @@ public final class CoreSink implements Sink, Closeable {
     }
 
     public CoreSink(WritableByteChannel channel) {
+        this(channel, JsonLines.instance());
+    }
+
+    /**
+     * Creates a sink that frames its messages for a specific protocol, such as syslog or GELF.
+     *
+     * @param channel the channel the messages are written to.
+     * @param framing how each message is framed around the JSON object.
+     */
+    public CoreSink(WritableByteChannel channel, Framing framing) {
         if (MDC.getMDCAdapter() instanceof PennaMDCAdapter adapter) {
             mdcAdapter = adapter;
         } else {
@@ -70,11 +94,19 @@ public final class CoreSink implements Sink, Closeable {
             mdcAdapter = null;
         }
         jsonGenerator = new DirectJson(channel);
-        mdcWriter = jsonGenerator::writeStringValue;
+        mdcWriter = this::writeMdcEntry;
+        this.framing = framing;
+        this.delimiter = framing.delimiter();
     }
 
+    /**
+     * Creates a sink writing to stdout through the {@link SharedChannel}, so all the pooled sinks
+     * have their messages batched in a single channel.
+     *
+     * @return a new sink instance.
+     */
     public static Sink getSink() {
-        return new CoreSink();
+        return new CoreSink(SharedChannel.stdout());
     }
 
     @Override
@@ -128,7 +160,7 @@ public final class CoreSink implements Sink, Closeable {
 
         if ((message = throwable.getMessage()) != null) {
             jsonGenerator.writeKey(MESSAGE);
-            jsonGenerator.writeString(message);
+            jsonGenerator.writeString(message, config.maxValueBytes);
         }
 
         if ((frames = throwable.getStackTrace()) != null && frames.length > 0) {
@@ -180,41 +212,87 @@ public final class CoreSink implements Sink, Closeable {
         }
     }
 
-    private void writeMap(LogConfig config, final Map<?,?> map) throws IOException {
-        jsonGenerator.checkSpace(4);
-        jsonGenerator.openObject();
-        for (var key : map.keySet()) {
-            var keystr = key.toString();
-            jsonGenerator.checkSpace(keystr.length());
-            jsonGenerator.writeString(keystr);
-            jsonGenerator.writeEntrySep();
-            writeObject(config, map.get(key));
+    private void writeMap(LogConfig config, final Map<?,?> map) {
+        if (depth >= config.maxDepth) {
+            jsonGenerator.writeTruncatedDepth();
+            return;
+        }
+        depth++;
+        try {
+            jsonGenerator.checkSpace(4);
+            jsonGenerator.openObject();
+            int left = config.maxElements;
+            for (var key : map.keySet()) {
+                if (left-- == 0) {
+                    break;
+                }
+                jsonGenerator.writeKey(key.toString());
+                writeObject(config, map.get(key));
+            }
+            if (left < 0) {
+                jsonGenerator.writeTruncatedKey();
+                jsonGenerator.writeTruncatedElements((long) map.size() - config.maxElements);
+            }
+            jsonGenerator.checkSpace(2);
+            jsonGenerator.closeObject();
             jsonGenerator.writeSep();
+        } finally {
+            depth--;
         }
-        jsonGenerator.closeObject();
-        jsonGenerator.writeSep();
     }
 
-    private void writeArray(LogConfig config, final List<?> lst) throws IOException {
-        jsonGenerator.openArray();
-        for (Object o : lst) {
-            writeObject(config, o);
+    private void writeArray(LogConfig config, final List<?> lst) {
+        if (depth >= config.maxDepth) {
+            jsonGenerator.writeTruncatedDepth();
+            return;
+        }
+        depth++;
+        try {
+            jsonGenerator.checkSpace(3);
+            jsonGenerator.openArray();
+            int left = config.maxElements;
+            for (Object o : lst) {
+                if (left-- == 0) {
+                    break;
+                }
+                writeObject(config, o);
+            }
+            if (left < 0) {
+                jsonGenerator.writeTruncatedElements((long) lst.size() - config.maxElements);
+            }
+            jsonGenerator.checkSpace(2);
+            jsonGenerator.closeArray();
+            jsonGenerator.writeSep();
+        } finally {
+            depth--;
         }
-        jsonGenerator.closeArray();
-        jsonGenerator.writeSep();
     }
 
-    private void writeArray(LogConfig config, final Object... lst) throws IOException {
-        jsonGenerator.checkSpace(3);
-        jsonGenerator.openArray();
-        for (Object o : lst) {
-            writeObject(config, o);
+    private void writeArray(LogConfig config, final Object... lst) {
+        if (depth >= config.maxDepth) {
+            jsonGenerator.writeTruncatedDepth();
+            return;
+        }
+        depth++;
+        try {
+            jsonGenerator.checkSpace(3);
+            jsonGenerator.openArray();
+            int size = Math.min(lst.length, config.maxElements);
+            for (int i = 0; i < size; i++) {
+                writeObject(config, lst[i]);
+            }
+            if (size < lst.length) {
+                jsonGenerator.writeTruncatedElements(lst.length - size);
+            }
+            jsonGenerator.checkSpace(2);
+            jsonGenerator.closeArray();
+            jsonGenerator.writeSep();
+        } finally {
+            depth--;
         }
-        jsonGenerator.closeArray();
-        jsonGenerator.writeSep();
     }
 
-    private void writeObject(LogConfig config, final Object object) throws IOException {
+    private void writeObject(LogConfig config, final Object object) {
 
         switch (object) {
             case Throwable throwable -> {
@@ -224,10 +302,7 @@ public final class CoreSink implements Sink, Closeable {
             case Map<?, ?> map -> writeMap(config, map);
             case List<?> lst -> writeArray(config, lst);
             case Object[] lst -> writeArray(config, lst);
-            case String str -> {
-                jsonGenerator.checkSpace(str.length());
-                jsonGenerator.writeString(str);
-            }
+            case String str -> jsonGenerator.writeString(str, config.maxValueBytes);
             case Long num -> {
                 // Long.MIN_SIZE will yield 20 chars
                 jsonGenerator.checkSpace(20);
@@ -249,68 +324,323 @@ public final class CoreSink implements Sink, Closeable {
                 jsonGenerator.writeNull();
             }
             default -> {
-                var str = object.toString();
-                jsonGenerator.checkSpace(str.length());
-                jsonGenerator.writeString(str);
+                var serializer = Serializers.resolve(object.getClass());
+                if (serializer != null) {
+                    writeSerialized(config, serializer, object);
+                } else {
+                    writeToString(config, object);
+                }
             }
         }
     }
 
-    private void emitMessage(final PennaLogEvent logEvent) {
-        jsonGenerator.checkSpace(20 + logEvent.message.length());
-        jsonGenerator.writeKey(LogField.MESSAGE.fieldName);
-        jsonGenerator.writeStringFormatting(logEvent.message, logEvent.arguments);
+    private void writeToString(LogConfig config, final Object object) {
+        jsonGenerator.writeString(object.toString(), config.maxValueBytes);
     }
 
-    // The method must conform to the functional interface, so we should ignore this rule here.
-    @SuppressWarnings("PMD.UnusedFormalParameter")
-    private void emitTimestamp(final PennaLogEvent logEvent) {
-        jsonGenerator.checkSpace(25);
-        jsonGenerator.writeKey(LogField.TIMESTAMP.fieldName);
-        jsonGenerator.writeNumber(logEvent.timestamp);
+    private void writeSerialized(LogConfig config, ValueSerializer<Object> serializer, final Object object) {
+        var start = jsonGenerator.offset();
+        var previous = valueWriter.config;
+        var base = valueWriter.base;
+        var level = depth;
+        valueWriter.config = config;
+        valueWriter.base = level;
+        try {
+            serializer.write(object, valueWriter);
+        } catch (DirectJson.MessageTooLarge e) {
+            throw e;
+        } catch (RuntimeException e) {
+            reportError("ERROR", "Unable to serialize " + object.getClass().getName() + ".", e);
+            if (jsonGenerator.rewind(start)) {
+                writeToString(config, object);
+            }
+        } finally {
+            // Also undoes whatever a serializer that failed or didn't close its objects and arrays left open
+            depth = level;
+            valueWriter.skipping = 0;
+            valueWriter.dropNext = false;
+            valueWriter.config = previous;
+            valueWriter.base = base;
+        }
     }
 
+    /**
+     * Writes the values of the registered serializers through this sink, as part of the message being encoded.
+     * <br />
+     * The objects and arrays opened through the writer count towards the depth of the value, and their elements
+     * towards the limit of elements; whatever goes past the limits is skipped, down to the matching end of the
+     * objects and arrays it opens, so the serializers don't need to be aware of the limits.
+     */
+    private final class ValueWriter implements JsonWriter {
+        // The configuration of the message being encoded, for the values written through writeObject.
+        private LogConfig config;
+        // The depth the current serializer was called at; the levels above it were opened through this writer.
+        private int base;
+        // How many objects and arrays deep in the value being skipped the serializer is, if one is being skipped.
+        private int skipping;
+        // Whether the value coming next is skipped, as the name of its entry went past the limit of elements.
+        private boolean dropNext;
+
+        // Indexed by depth, for the levels opened through this writer.
+        private boolean[] arrays = new boolean[8];
+        private int[] elements = new int[8];
+        private long[] dropped = new long[8];
+
+        /**
+         * Decides whether a value is written, counting it if it is an element of an array opened through this
+         * writer.
+         */
+        private boolean admit() {
+            if (skipping > 0) {
+                return false;
+            }
+            if (dropNext) {
+                dropNext = false;
+                return false;
+            }
+            if (depth > base && arrays[depth]) {
+                if (elements[depth] >= config.maxElements) {
+                    dropped[depth]++;
+                    return false;
+                }
+                elements[depth]++;
+            }
+            return true;
+        }
+
+        /**
+         * Decides whether an object or array is opened, skipping it otherwise.
+         */
+        private boolean open(boolean array) {
+            if (skipping > 0) {
+                skipping++;
+                return false;
+            }
+            if (!admit()) {
+                skipping = 1;
+                return false;
+            }
+            if (depth >= config.maxDepth) {
+                jsonGenerator.writeTruncatedDepth();
+                skipping = 1;
+                return false;
+            }
+            depth++;
+            if (depth >= arrays.length) {
+                int size = Math.max(arrays.length * 2, depth + 1);
+                arrays = Arrays.copyOf(arrays, size);
+                elements = Arrays.copyOf(elements, size);
+                dropped = Arrays.copyOf(dropped, size);
+            }
+            arrays[depth] = array;
+            elements[depth] = 0;
+            dropped[depth] = 0;
+            return true;
+        }
+
+        /**
+         * Decides whether an object or array is closed, as it was not skipped, writing what was left out of it.
+         */
+        private boolean close() {
+            if (skipping > 0) {
+                skipping--;
+                return false;
+            }
+            if (depth > base) {
+                if (dropped[depth] > 0) {
+                    if (!arrays[depth]) {
+                        jsonGenerator.writeTruncatedKey();
+                    }
+                    jsonGenerator.writeTruncatedElements(dropped[depth]);
+                }
+                depth--;
+            }
+            return true;
+        }
+
+        @Override
+        public JsonWriter beginObject() {
+            if (open(false)) {
+                jsonGenerator.checkSpace(1);
+                jsonGenerator.openObject();
+            }
+            return this;
+        }
 
-    // The method must conform to the functional interface, so we should ignore this rule here.
-    @SuppressWarnings("PMD.UnusedFormalParameter")
-    private void emitMDC(final PennaLogEvent logEvent) {
+        @Override
+        public JsonWriter endObject() {
+            if (close()) {
+                jsonGenerator.checkSpace(2);
+                jsonGenerator.closeObject();
+                jsonGenerator.writeSep();
+            }
+            return this;
+        }
+
+        @Override
+        public JsonWriter beginArray() {
+            if (open(true)) {
+                jsonGenerator.checkSpace(1);
+                jsonGenerator.openArray();
+            }
+            return this;
+        }
+
+        @Override
+        public JsonWriter endArray() {
+            if (close()) {
+                jsonGenerator.checkSpace(2);
+                jsonGenerator.closeArray();
+                jsonGenerator.writeSep();
+            }
+            return this;
+        }
+
+        @Override
+        public JsonWriter name(CharSequence name) {
+            if (skipping > 0) {
+                return this;
+            }
+            if (depth > base && !arrays[depth]) {
+                if (elements[depth] >= config.maxElements) {
+                    dropped[depth]++;
+                    dropNext = true;
+                    return this;
+                }
+                elements[depth]++;
+            }
+            if (name instanceof String key) {
+                jsonGenerator.writeKey(key);
+            } else {
+                jsonGenerator.writeString(name);
+                jsonGenerator.writeEntrySep();
+            }
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(CharSequence value) {
+            if (value == null) {
+                return nullValue();
+            }
+            if (admit()) {
+                jsonGenerator.writeString(value, config.maxValueBytes);
+            }
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(long value) {
+            if (!admit()) {
+                return this;
+            }
+            jsonGenerator.checkSpace(21);
+            jsonGenerator.writeNumber(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(double value) {
+            if (!admit()) {
+                return this;
+            }
+            jsonGenerator.checkSpace(32);
+            jsonGenerator.writeNumber(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(float value) {
+            if (!admit()) {
+                return this;
+            }
+            jsonGenerator.checkSpace(32);
+            jsonGenerator.writeNumber(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(boolean value) {
+            if (!admit()) {
+                return this;
+            }
+            jsonGenerator.checkSpace(6);
+            jsonGenerator.writeBoolean(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter nullValue() {
+            if (!admit()) {
+                return this;
+            }
+            jsonGenerator.checkSpace(5);
+            jsonGenerator.writeNull();
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(Object value) {
+            if (admit()) {
+                writeObject(config, value);
+            }
+            return this;
+        }
+    }
+
+    void emitMessage(final byte[] key, final PennaLogEvent logEvent) {
+        var maxBytes = logEvent.config.maxMessageBytes;
+        var length = logEvent.message.length();
+        jsonGenerator.checkSpace(key.length + 4 + (maxBytes > 0 ? Math.min(length, maxBytes) : length));
+        jsonGenerator.writeRaw(key);
+        jsonGenerator.writeStringFormatting(logEvent.message, logEvent.arguments, maxBytes);
+    }
+
+    void emitTimestamp(final byte[] key, final PennaLogEvent logEvent) {
+        jsonGenerator.checkSpace(key.length + 21);
+        jsonGenerator.writeRaw(key);
+        jsonGenerator.writeNumber(logEvent.timestamp);
+    }
+
+    void emitMDC(final byte[] key, final PennaLogEvent logEvent) {
         if (mdcAdapter.isNotEmpty()) {
-            jsonGenerator.openObject(LogField.MDC.fieldName);
+            mdcValueBytes = logEvent.config.maxValueBytes;
+            jsonGenerator.checkSpace(key.length + 1);
+            jsonGenerator.writeRaw(key);
+            jsonGenerator.openObject();
             mdcAdapter.forEach(mdcWriter);
             jsonGenerator.closeObject();
             jsonGenerator.writeSep();
         }
     }
 
-    private void emitLogger(final PennaLogEvent logEvent) {
-        jsonGenerator.checkSpace(9 + logEvent.logger.length);
-        jsonGenerator.writeKey(LogField.LOGGER_NAME.fieldName);
-        jsonGenerator.writeStringFromBytes(logEvent.logger);
+    private void writeMdcEntry(final String key, final String value) {
+        jsonGenerator.writeKey(key);
+        jsonGenerator.writeString(value, mdcValueBytes);
     }
 
-    private void emitLevel(final PennaLogEvent logEvent) {
-        jsonGenerator.checkSpace(10);
-        jsonGenerator.writeKey(LogField.LEVEL.fieldName);
-        jsonGenerator.writeStringFromBytes(LEVEL_ENUM_MAP[logEvent.level.ordinal()]);
+    void emitTemplate(final byte[] template) {
+        jsonGenerator.checkSpace(template.length);
+        jsonGenerator.writeRaw(template);
     }
 
-    private void emitThreadName(final PennaLogEvent logEvent) {
-        jsonGenerator.checkSpace(12 + logEvent.threadName.length);
-        jsonGenerator.writeKey(LogField.THREAD_NAME.fieldName);
+    void emitThreadName(final byte[] key, final PennaLogEvent logEvent) {
+        jsonGenerator.checkSpace(key.length + 3 + logEvent.threadName.length);
+        jsonGenerator.writeRaw(key);
         jsonGenerator.writeStringFromBytes(logEvent.threadName);
     }
 
-    // The method must conform to the functional interface, so we should ignore this rule here.
-    @SuppressWarnings("PMD.UnusedFormalParameter")
-    private void emitCounter(final PennaLogEvent logEvent) {
-        jsonGenerator.checkSpace(64);
-        jsonGenerator.writeKey(LogField.COUNTER.fieldName);
+    void emitCounter(final byte[] key) {
+        jsonGenerator.checkSpace(key.length + 21);
+        jsonGenerator.writeRaw(key);
         jsonGenerator.writeNumber(counter.getAndIncrement());
     }
 
-    private void emitMarkers(final PennaLogEvent logEvent) {
+    void emitMarkers(final byte[] key, final PennaLogEvent logEvent) {
         if (!logEvent.markers.isEmpty()) {
-            jsonGenerator.openArray(LogField.MARKERS.fieldName);
+            jsonGenerator.checkSpace(key.length + 1);
+            jsonGenerator.writeRaw(key);
+            jsonGenerator.openArray();
             for (int i = 0; i < logEvent.markers.size(); i++) {
                 var marker = logEvent.markers.get(i).getName();
                 jsonGenerator.checkSpace(4 + marker.length());
@@ -321,35 +651,57 @@ public final class CoreSink implements Sink, Closeable {
         }
     }
 
-    private void emitThrowable(final PennaLogEvent logEvent) {
+    void emitThrowable(final byte[] key, final PennaLogEvent logEvent) {
         if (logEvent.throwable != null) {
             logEvent.config.filter.reset();
-            jsonGenerator.openObject(LogField.THROWABLE.fieldName);
+            jsonGenerator.checkSpace(key.length + 1);
+            jsonGenerator.writeRaw(key);
+            jsonGenerator.openObject();
             writeThrowable(logEvent.throwable, logEvent.config, 0);
             jsonGenerator.closeObject();
             jsonGenerator.writeSep();
         }
     }
 
-    private void emitKeyValuePair(final PennaLogEvent logEvent) throws IOException {
+    void emitKeyValuePair(final byte[] key, final PennaLogEvent logEvent) throws IOException {
         jsonGenerator.checkSpace(16);
-        if (!logEvent.keyValuePairs.isEmpty()) {
-            jsonGenerator.openObject(LogField.KEY_VALUE_PAIRS.fieldName);
-            for (int i = 0; i < logEvent.keyValuePairs.size(); i++) {
-                var kvp = logEvent.keyValuePairs.get(i);
-                jsonGenerator.checkSpace(kvp.key().length() + 4);
-                jsonGenerator.writeString(kvp.key());
-                jsonGenerator.writeEntrySep();
-                writeObject(logEvent.config, kvp.value());
+        int count = logEvent.keyValueCount;
+        if (count > 0) {
+            jsonGenerator.checkSpace(key.length + 1);
+            jsonGenerator.writeRaw(key);
+            jsonGenerator.openObject();
+            for (int i = 0; i < count; i++) {
+                jsonGenerator.writeKey(logEvent.keys[i]);
+                jsonGenerator.checkSpace(32);
+                writeKeyValue(logEvent, i);
             }
             jsonGenerator.closeObject();
             jsonGenerator.writeSep();
         }
     }
 
-    private void emitExtra(final PennaLogEvent logEvent) throws IOException {
+    private void writeKeyValue(final PennaLogEvent logEvent, final int index) {
+        long primitive = logEvent.primitiveValues[index];
+        switch (logEvent.keyValueKinds[index]) {
+            case PennaLogEvent.LONG -> jsonGenerator.writeNumber(primitive);
+            case PennaLogEvent.DOUBLE -> jsonGenerator.writeNumber(Double.longBitsToDouble(primitive));
+            case PennaLogEvent.BOOLEAN -> jsonGenerator.writeBoolean(primitive != 0);
+            case PennaLogEvent.TEXT -> {
+                if (logEvent.objectValues[index] instanceof CharSequence text) {
+                    jsonGenerator.writeString(text, logEvent.config.maxValueBytes);
+                } else {
+                    jsonGenerator.writeNull();
+                }
+            }
+            default -> writeObject(logEvent.config, logEvent.objectValues[index]);
+        }
+    }
+
+    void emitExtra(final byte[] key, final PennaLogEvent logEvent) throws IOException {
         if (logEvent.extra != null) {
-            jsonGenerator.openObject(LogField.THROWABLE.fieldName);
+            jsonGenerator.checkSpace(key.length + 1);
+            jsonGenerator.writeRaw(key);
+            jsonGenerator.openObject();
             writeObject(logEvent.config, logEvent.throwable);
             jsonGenerator.closeObject();
             jsonGenerator.writeSep();
@@ -358,27 +710,93 @@ public final class CoreSink implements Sink, Closeable {
 
     @Override
     public void write(final PennaLogEvent logEvent) throws IOException {
-        jsonGenerator.openObject();
+        var start = jsonGenerator.beginMessage();
+        try {
+            framing.header(jsonGenerator, logEvent);
+            jsonGenerator.openObject();
+            framing.leadingFields(jsonGenerator, logEvent);
+
+            var emitters = logEvent.config.templates(framing, logEvent.logger).emitters();
+            for (int i = 0; i < emitters.length; i++) {
+                emitters[i].emit(this, logEvent);
+            }
+
+            jsonGenerator.closeObject();
+            jsonGenerator.endLine(delimiter);
+        } catch (DirectJson.MessageTooLarge e) {
+            // Writing part of the message would break the output, so it is dropped as a whole
+            jsonGenerator.rewind(start);
+            depth = 0;
+            reportError("ERROR", "Log message from " + new String(logEvent.logger, StandardCharsets.UTF_8) + " dropped.", e);
+            // Lets go of the buffer that grew for it, along with the messages held back before it
+            drain();
+            return;
+        }
+
+        var routes = logEvent.config.routes[logEvent.level.ordinal()];
+        if (routes.length > 0) {
+            route(routes, logEvent, start);
+        }
+        commit(logEvent.config, logEvent.level);
+    }
 
-        var fields = logEvent.config.fields;
+    // The message is encoded once and the same bytes are copied to each of the additional outputs, right away,
+    // while they're still batched for the main output according to the flush policy.
+    private void route(RouteTarget[] routes, PennaLogEvent logEvent, long start) {
+        for (var route : routes) {
+            var target = route.output().channel();
+            if (target == null || !route.matches(logEvent.markers)) {
+                continue;
+            }
+            try {
+                if (!jsonGenerator.copyTo(target, start)) {
+                    report("WARN", "Log message too large to be sent to output " + route.output().name + ".");
+                    return;
+                }
+            } catch (IOException e) {
+                // A failing output must not prevent the message from reaching the others
+                reportError("ERROR", "Unable to write log to output " + route.output().name + ".", e);
+            }
+        }
+    }
+
+    private void commit(LogConfig config, Level level) throws IOException {
+        if (config.flushImmediately || level == Level.ERROR) {
+            drain();
+            return;
+        }
+
+        if (config.flushBytes > 0 && jsonGenerator.pending() >= config.flushBytes) {
+            drain();
+            return;
+        }
 
-        for (int i = 0; i < fields.length; i++) {
-            switch (fields[i]) {
-                case LEVEL -> emitLevel(logEvent);
-                case COUNTER -> emitCounter(logEvent);
-                case LOGGER_NAME -> emitLogger(logEvent);
-                case MESSAGE -> emitMessage(logEvent);
-                case MARKERS -> emitMarkers(logEvent);
-                case KEY_VALUE_PAIRS -> emitKeyValuePair(logEvent);
-                case THREAD_NAME -> emitThreadName(logEvent);
-                case TIMESTAMP -> emitTimestamp(logEvent);
-                case THROWABLE -> emitThrowable(logEvent);
-                case MDC -> emitMDC(logEvent);
-                case EXTRA -> emitExtra(logEvent);
+        if (config.flushNanos > 0 || hasDeadline) {
+            var now = System.nanoTime();
+            if (hasDeadline && now - flushDeadline >= 0) {
+                drain();
+            } else if (config.flushNanos > 0 && (!hasDeadline || now + config.flushNanos - flushDeadline < 0)) {
+                // Loggers sharing this sink might have different policies, so we keep the tightest deadline
+                flushDeadline = now + config.flushNanos;
+                hasDeadline = true;
             }
         }
+    }
+
+    private void drain() throws IOException {
+        hasDeadline = false;
+        jsonGenerator.drain();
+    }
+
+    @Override
+    public void retire() {
+        jsonGenerator.release();
+    }
 
-        jsonGenerator.closeObject();
-        jsonGenerator.flush();
+    @Override
+    public void flushPending(boolean force) throws IOException {
+        if (jsonGenerator.pending() > 0 && (force || (hasDeadline && System.nanoTime() - flushDeadline >= 0))) {
+            drain();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package penna.core.sink;
+
+import penna.api.models.LogField;
+import penna.core.models.PennaLogEvent;
+
+import java.io.IOException;
+
+/**
+ * Writes a single field of a message through a {@link CoreSink}.
+ * <br />
+ * The emitters for the fields of a logger are compiled once, with their keys already bound, into the
+ * {@link penna.core.models.FieldTemplates} of the logger, so writing a message is a plain walk over an array, instead
+ * of deciding what to do with each field of each message.
+ */
+@FunctionalInterface
+public interface FieldEmitter {
+
+    /**
+     * Writes the field.
+     *
+     * @param sink  the sink writing the message.
+     * @param event the event being logged.
+     * @throws IOException if the underlying channel fails while writing.
+     */
+    void emit(CoreSink sink, PennaLogEvent event) throws IOException;
+
+    /**
+     * Binds the pre-encoded fragments of a field to the code that writes it.
+     *
+     * @param field  the field to be written.
+     * @param key    the key of the field, as {@code "key":}.
+     * @param logger the whole logger entry, only used for {@link LogField#LOGGER_NAME}.
+     * @param levels the whole level entries, only used for {@link LogField#LEVEL}.
+     * @return the emitter for the field.
+     */
+    static FieldEmitter of(LogField field, byte[] key, byte[] logger, byte[][] levels) {
+        return switch (field) {
+            case LEVEL -> (sink, event) -> sink.emitTemplate(levels[event.level.ordinal()]);
+            case COUNTER -> (sink, event) -> sink.emitCounter(key);
+            case LOGGER_NAME -> (sink, event) -> sink.emitTemplate(logger);
+            case MESSAGE -> (sink, event) -> sink.emitMessage(key, event);
+            case MARKERS -> (sink, event) -> sink.emitMarkers(key, event);
+            case KEY_VALUE_PAIRS -> (sink, event) -> sink.emitKeyValuePair(key, event);
+            case THREAD_NAME -> (sink, event) -> sink.emitThreadName(key, event);
+            case TIMESTAMP -> (sink, event) -> sink.emitTimestamp(key, event);
+            case THROWABLE -> (sink, event) -> sink.emitThrowable(key, event);
+            case MDC -> (sink, event) -> sink.emitMDC(key, event);
+            case EXTRA -> (sink, event) -> sink.emitExtra(key, event);
+        };
+    }
+}
@@ -6,4 +6,18 @@ import java.io.IOException;
 
 public sealed interface Sink permits CoreSink, InternalSink {
     void write(PennaLogEvent logEvent) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * Writes the log messages the sink is holding back because of their {@link penna.api.models.FlushPolicy}.
+     *
+     * @param force if false, only the messages that are past their deadline are written.
+     * @throws IOException if the underlying output fails to write.
+     */
+    default void flushPending(boolean force) throws IOException {}
+
+    /**
+     * Releases the resources held by the sink once it is replaced in the pool, without closing the output,
+     * which is shared with the other sinks. The sink must not be used afterwards.
+     */
+    default void retire() {}
+}
@@ -0,0 +1,94 @@
+package penna.core.sink.framing;
+
+import penna.api.models.LogField;
+import penna.core.internals.DirectJson;
+import penna.core.models.PennaLogEvent;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Defines how each log message is framed around the JSON object that {@link penna.core.sink.CoreSink} encodes,
+ * allowing the same encoding to be shipped in formats other than JSON lines (i.e. syslog or GELF).
+ */
+public interface Framing {
+
+    /**
+     * The key used to render each of the fields in the JSON object.
+     *
+     * @param field the field being rendered.
+     * @return the key for the field or null, if the field should be left out of the message.
+     */
+    byte[] key(LogField field);
+
+    /**
+     * The delimiter written after each message.
+     *
+     * @return the bytes separating a message from the next one.
+     */
+    byte[] delimiter();
+
+    /**
+     * Writes whatever precedes the JSON object of each message.
+     *
+     * @param json  the encoder for the message.
+     * @param event the event being logged.
+     */
+    default void header(DirectJson json, PennaLogEvent event) {}
+
+    /**
+     * Writes fields right after the JSON object is opened, before any of the configured fields.
+     *
+     * @param json  the encoder for the message.
+     * @param event the event being logged.
+     */
+    default void leadingFields(DirectJson json, PennaLogEvent event) {}
+
+    /**
+     * Maps the log level to a syslog severity, which both syslog and GELF use.
+     *
+     * @param event the event being logged.
+     * @return the severity of the event.
+     */
+    static int severity(PennaLogEvent event) {
+        return switch (event.level) {
+            case ERROR -> 3;
+            case WARN -> 4;
+            case INFO -> 6;
+            case DEBUG, TRACE -> 7;
+        };
+    }
+
+    /**
+     * Makes a name safe for the headers, keeping only printable ascii characters other than space.
+     *
+     * @param name      the name to be sanitized.
+     * @param maxLength the maximum length the name can have.
+     * @return the sanitized name, or "-" if nothing is left of it.
+     */
+    static String sanitize(String name, int maxLength) {
+        if (name == null || name.isEmpty()) {
+            return "-";
+        }
+        var result = new StringBuilder(Math.min(name.length(), maxLength));
+        for (int i = 0; i < name.length() && result.length() < maxLength; i++) {
+            var chr = name.charAt(i);
+            result.append(chr > 0x20 && chr < 0x7F && chr != '"' && chr != '\\' ? chr : '_');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Resolves the name of this host, to identify where the messages come from.
+     *
+     * @return the host name, or "-" if it can't be resolved.
+     */
+    static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            var fromEnv = System.getenv("HOSTNAME");
+            return fromEnv == null ? "-" : fromEnv;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package penna.core.sink.framing;
+
+import penna.api.models.LogField;
+import penna.core.internals.DirectJson;
+import penna.core.models.PennaLogEvent;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames each message as a GELF 1.1 payload, for Graylog and compatible servers.
+ * <br />
+ * The message is rendered as {@code short_message} and the GELF {@code version}, {@code host},
+ * {@code timestamp} (in seconds) and {@code level} (as a syslog severity) fields are added to each message.
+ * All the other fields are rendered as additional fields, prefixed with an underscore; structured fields
+ * (i.e. {@code _mdc} or {@code _data}) are kept as nested JSON, which GELF servers store as strings.
+ * <br />
+ * Over TCP, messages are delimited by a null byte. Over UDP, each message is sent in its own datagram;
+ * chunked GELF is not supported, so messages larger than a datagram are dropped.
+ */
+public final class Gelf implements Framing {
+    private static final byte[] NULL_BYTE = new byte[]{0};
+    private static final byte[] VERSION_KEY = "version".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VERSION = "1.1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HOST_KEY = "host".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIMESTAMP_KEY = "timestamp".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEVEL_KEY = "level".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[][] keys = new byte[LogField.values().length][];
+    private final byte[] host;
+
+    /**
+     * Creates a GELF framing that identifies the messages as coming from this host.
+     */
+    public Gelf() {
+        this(Framing.hostname());
+    }
+
+    /**
+     * Creates a GELF framing.
+     *
+     * @param host the {@code host} field in the messages.
+     */
+    public Gelf(String host) {
+        this.host = Framing.sanitize(host, 255).getBytes(StandardCharsets.US_ASCII);
+        for (var field : LogField.values()) {
+            keys[field.ordinal()] = switch (field) {
+                case MESSAGE -> "short_message".getBytes(StandardCharsets.US_ASCII);
+                // Already rendered as the GELF timestamp
+                case TIMESTAMP -> null;
+                default -> ("_" + new String(field.fieldName, StandardCharsets.US_ASCII)).getBytes(StandardCharsets.US_ASCII);
+            };
+        }
+    }
+
+    @Override
+    public byte[] key(LogField field) {
+        return keys[field.ordinal()];
+    }
+
+    @Override
+    public byte[] delimiter() {
+        return NULL_BYTE;
+    }
+
+    @Override
+    public void leadingFields(DirectJson json, PennaLogEvent event) {
+        json.checkSpace(64 + host.length);
+        json.writeKey(VERSION_KEY);
+        json.writeStringFromBytes(VERSION);
+        json.writeKey(HOST_KEY);
+        json.writeStringFromBytes(host);
+        json.writeKey(TIMESTAMP_KEY);
+        json.writeNumberRaw(Math.floorDiv(event.timestamp, 1000L));
+        json.writeRaw('.');
+        Syslog.writePadded(json, (int) Math.floorMod(event.timestamp, 1000L), 3);
+        json.writeSep();
+        json.writeKey(LEVEL_KEY);
+        json.writeNumber(Framing.severity(event));
+    }
+}
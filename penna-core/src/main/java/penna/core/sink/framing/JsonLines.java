@@ -0,0 +1,32 @@
+package penna.core.sink.framing;
+
+import penna.api.models.LogField;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The default framing: each message is a JSON object on its own line.
+ */
+public final class JsonLines implements Framing {
+    private static final JsonLines singleton = new JsonLines();
+    private static final byte[] LINE_BREAK = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private JsonLines() {}
+
+    /**
+     * @return the shared instance, as this framing holds no state.
+     */
+    public static JsonLines instance() {
+        return singleton;
+    }
+
+    @Override
+    public byte[] key(LogField field) {
+        return field.fieldName;
+    }
+
+    @Override
+    public byte[] delimiter() {
+        return LINE_BREAK;
+    }
+}
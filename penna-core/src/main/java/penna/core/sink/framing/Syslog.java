@@ -0,0 +1,120 @@
+package penna.core.sink.framing;
+
+import penna.api.models.LogField;
+import penna.core.internals.DirectJson;
+import penna.core.models.PennaLogEvent;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames each message as an RFC 5424 syslog message, with the JSON object as the message body:
+ * {@code <PRI>1 TIMESTAMP HOSTNAME APP-NAME PROCID - - {...}}.
+ * <br />
+ * Over TCP, messages are delimited by a line break (the non-transparent framing from RFC 6587), which is safe
+ * since the JSON body never contains one. Over UDP, each message is sent in its own datagram (RFC 5426).
+ */
+public final class Syslog implements Framing {
+    /**
+     * The facility for user-level messages.
+     */
+    public static final int USER = 1;
+
+    private static final byte[] LINE_BREAK = new byte[]{'\n'};
+    private static final byte[] VERSION = ">1 ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NIL_MSGID_AND_SD = " - - ".getBytes(StandardCharsets.US_ASCII);
+
+    private final int facility;
+    // HOSTNAME APP-NAME PROCID, which are fixed for the lifetime of the process
+    private final byte[] origin;
+
+    /**
+     * Creates a syslog framing with the {@link Syslog#USER} facility.
+     *
+     * @param appName the APP-NAME field in the header.
+     */
+    public Syslog(String appName) {
+        this(USER, appName);
+    }
+
+    /**
+     * Creates a syslog framing.
+     *
+     * @param facility the facility for all the messages, from 0 to 23.
+     * @param appName  the APP-NAME field in the header.
+     */
+    public Syslog(int facility, String appName) {
+        if (facility < 0 || facility > 23) {
+            throw new IllegalArgumentException("Syslog facility must be between 0 and 23, got " + facility);
+        }
+        this.facility = facility;
+        this.origin = (Framing.sanitize(Framing.hostname(), 255) + " " +
+                Framing.sanitize(appName, 48) + " " +
+                ProcessHandle.current().pid()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public byte[] key(LogField field) {
+        return field.fieldName;
+    }
+
+    @Override
+    public byte[] delimiter() {
+        return LINE_BREAK;
+    }
+
+    @Override
+    public void header(DirectJson json, PennaLogEvent event) {
+        json.checkSpace(64 + origin.length);
+        json.writeRaw('<');
+        json.writeNumberRaw(facility * 8L + Framing.severity(event));
+        json.writeRaw(VERSION);
+        writeTimestamp(json, event.timestamp);
+        json.writeRaw(' ');
+        json.writeRaw(origin);
+        json.writeRaw(NIL_MSGID_AND_SD);
+    }
+
+    // Writes the timestamp as YYYY-MM-DDThh:mm:ss.sssZ, without going through java.time
+    static void writeTimestamp(DirectJson json, long epochMillis) {
+        long epochSeconds = Math.floorDiv(epochMillis, 1000L);
+        int millis = (int) Math.floorMod(epochMillis, 1000L);
+        long days = Math.floorDiv(epochSeconds, 86_400L);
+        int secondOfDay = (int) Math.floorMod(epochSeconds, 86_400L);
+
+        // Civil from days, from http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719_468L;
+        long era = Math.floorDiv(z, 146_097L);
+        long dayOfEra = z - era * 146_097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        writePadded(json, (int) year, 4);
+        json.writeRaw('-');
+        writePadded(json, month, 2);
+        json.writeRaw('-');
+        writePadded(json, day, 2);
+        json.writeRaw('T');
+        writePadded(json, secondOfDay / 3_600, 2);
+        json.writeRaw(':');
+        writePadded(json, (secondOfDay / 60) % 60, 2);
+        json.writeRaw(':');
+        writePadded(json, secondOfDay % 60, 2);
+        json.writeRaw('.');
+        writePadded(json, millis, 3);
+        json.writeRaw('Z');
+    }
+
+    static void writePadded(DirectJson json, int value, int width) {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            json.writeRaw((char) ('0' + (value / divisor) % 10));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package penna.core.sink.output;
+
+import penna.core.internals.DirectBuffers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static penna.api.audit.Logger.report;
+
+/**
+ * Output stage that sends the log messages over UDP, i.e. to a syslog or GELF server.
+ * <br />
+ * Both syslog (RFC 5426) and GELF expect each datagram to hold a single message, so the bytes written to this
+ * channel are split on the message delimiter and each message is sent in its own datagram, without the delimiter.
+ * A message can span multiple writes, as the bytes are accumulated until the delimiter is found.
+ * <br />
+ * The socket is non-blocking and UDP gives no delivery guarantees anyway, so messages that don't fit in a
+ * datagram or that can't be sent right away are dropped instead of holding the writing thread back. Dropped
+ * messages are counted and reported once messages can be sent again.
+ */
+public final class DatagramSocketChannel implements GatheringByteChannel {
+
+    /**
+     * Default maximum datagram size, which is the size GELF recommends chunking at and is safe for most networks.
+     */
+    public static final int DEFAULT_MAX_DATAGRAM_SIZE = 8192;
+
+    private final InetSocketAddress address;
+    private final byte delimiter;
+    private final DatagramChannel socket;
+    private final ByteBuffer message;
+
+    private final Lock lock = new ReentrantLock();
+
+    // Whether the message being accumulated didn't fit the datagram and is being skipped until the next delimiter.
+    private boolean oversized;
+    private long dropped;
+    private long sent;
+    private boolean open = true;
+
+    /**
+     * Creates a datagram socket channel with the default maximum datagram size.
+     *
+     * @param address   The address the server is listening to.
+     * @param delimiter The byte that terminates each message.
+     * @throws IOException if the socket can't be opened.
+     */
+    public DatagramSocketChannel(InetSocketAddress address, byte delimiter) throws IOException {
+        this(address, delimiter, DEFAULT_MAX_DATAGRAM_SIZE);
+    }
+
+    /**
+     * Creates a datagram socket channel.
+     *
+     * @param address         The address the server is listening to.
+     * @param delimiter       The byte that terminates each message.
+     * @param maxDatagramSize The maximum size, in bytes, of each datagram; larger messages are dropped.
+     * @throws IOException if the socket can't be opened.
+     */
+    public DatagramSocketChannel(InetSocketAddress address, byte delimiter, int maxDatagramSize) throws IOException {
+        if (maxDatagramSize <= 0 || maxDatagramSize > 65_507) {
+            throw new IllegalArgumentException("Datagram size must be between 1 and 65507, got " + maxDatagramSize);
+        }
+        this.address = address;
+        this.delimiter = delimiter;
+        this.message = DirectBuffers.allocate(maxDatagramSize);
+        this.socket = DatagramChannel.open();
+        this.socket.configureBlocking(false);
+    }
+
+    private void drop() {
+        if (dropped == 0) {
+            report("WARN", "Dropping log messages that can't be sent to " + address);
+        }
+        dropped++;
+    }
+
+    private void send() {
+        message.flip();
+        try {
+            if (oversized || socket.send(message, address) == 0) {
+                drop();
+            } else {
+                sent++;
+                if (dropped > 0) {
+                    report("WARN", "Dropped " + dropped + " log messages that couldn't be sent to " + address);
+                    dropped = 0;
+                }
+            }
+        } catch (IOException e) {
+            drop();
+        } finally {
+            message.clear();
+            oversized = false;
+        }
+    }
+
+    private void split(ByteBuffer src) {
+        while (src.hasRemaining()) {
+            int end = src.position();
+            int limit = src.limit();
+            while (end < limit && src.get(end) != delimiter) {
+                end++;
+            }
+
+            int size = end - src.position();
+            if (oversized || size > message.remaining()) {
+                oversized = true;
+                src.position(end);
+            } else {
+                message.put(message.position(), src, src.position(), size);
+                message.position(message.position() + size);
+                src.position(end);
+            }
+
+            if (end < limit) {
+                // Skips the delimiter
+                src.get();
+                send();
+            }
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int length = src.remaining();
+        lock.lock();
+        try {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            split(src);
+        } finally {
+            lock.unlock();
+        }
+        return length;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long size = 0;
+        lock.lock();
+        try {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            for (int i = offset; i < offset + length; i++) {
+                size += srcs[i].remaining();
+                split(srcs[i]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return size;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    /**
+     * @return the amount of datagrams sent so far.
+     */
+    public long sent() {
+        lock.lock();
+        try {
+            return sent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of messages dropped since the last one that was sent.
+     */
+    public long dropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return open;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the socket. A message that wasn't terminated by the delimiter is discarded.
+     *
+     * @throws IOException if the socket can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            DirectBuffers.free(message);
+            if (dropped > 0) {
+                report("WARN", "Dropped " + dropped + " log messages that couldn't be sent to " + address);
+            }
+            socket.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
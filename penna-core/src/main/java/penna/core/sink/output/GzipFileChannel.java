@@ -0,0 +1,248 @@
+package penna.core.sink.output;
+
+import penna.core.internals.DirectBuffers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stage that writes the log messages to gzip-compressed files.
+ * <br />
+ * Files are written in segments named {@code <name>.<index>.log.gz}, each segment being a complete and independent
+ * gzip member, so every file can be decompressed on its own and concatenating them still yields a valid gzip
+ * stream. The raw deflate stream is produced by a single {@link Deflater}, reset between segments, which is fed
+ * straight from the buffers being written and deflates into a reusable direct buffer, so compressing doesn't
+ * allocate.
+ * <br />
+ * A segment is rolled over to the next one when its compressed size reaches the configured segment size or when
+ * it has been open for longer than the configured maximum age. Since this is only checked in between writes,
+ * the segment size is a soft limit.
+ * <br />
+ * Compressing is much more expensive than copying the bytes around, so this channel is meant to be written by a
+ * background stage (i.e. through a {@link RingBufferChannel}) instead of by the logging threads.
+ * Also note that the compressor holds back data until it has enough to compress efficiently, so the messages
+ * only reach the file in chunks and, at the latest, when the segment is finished.
+ */
+public final class GzipFileChannel implements GatheringByteChannel {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] GZIP_HEADER = new byte[]{
+            0x1f, (byte) 0x8b, // Magic number
+            Deflater.DEFLATED, // Compression method
+            0, // Flags
+            0, 0, 0, 0, // Modification time
+            0, // Extra flags
+            (byte) 0xff // Operating system: unknown
+    };
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private final SegmentFiles segments;
+    private final long segmentSize;
+    private final long maxAgeNanos;
+
+    private final Lock lock = new ReentrantLock();
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer output = DirectBuffers.allocate(OUTPUT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private FileChannel file;
+    private long openedAt;
+    private int index;
+    private boolean open = true;
+
+    /**
+     * Creates a gzip file channel that rolls segments only by size, with the default compression level.
+     *
+     * @param directory   The directory where the segments are created.
+     * @param name        The prefix of the segment file names.
+     * @param segmentSize The compressed size, in bytes, of each segment.
+     * @throws IOException if the directory or the first segment can't be created.
+     */
+    public GzipFileChannel(Path directory, String name, long segmentSize) throws IOException {
+        this(directory, name, segmentSize, Duration.ZERO, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a gzip file channel.
+     *
+     * @param directory   The directory where the segments are created.
+     * @param name        The prefix of the segment file names.
+     * @param segmentSize The compressed size, in bytes, of each segment.
+     * @param maxAge      How long a segment is written to before rolling over to the next one;
+     *                    {@link Duration#ZERO} to roll only by size.
+     * @param level       The compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+     * @throws IOException if the directory or the first segment can't be created.
+     */
+    public GzipFileChannel(Path directory, String name, long segmentSize, Duration maxAge, int level) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive, got " + segmentSize);
+        }
+        this.segments = new SegmentFiles(directory, name, ".log.gz");
+        this.segmentSize = segmentSize;
+        this.maxAgeNanos = maxAge.toNanos();
+        // The gzip header and trailer are written by hand, so the deflater only produces the raw deflate stream.
+        this.deflater = new Deflater(level, true);
+        this.index = segments.lastIndex();
+        openSegment();
+    }
+
+    /**
+     * @param segmentIndex the index of a segment.
+     * @return the path to the segment file with the given index.
+     */
+    public Path segmentPath(int segmentIndex) {
+        return segments.path(segmentIndex);
+    }
+
+    private void openSegment() throws IOException {
+        index++;
+        file = FileChannel.open(segments.path(index), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        deflater.reset();
+        crc.reset();
+        output.clear();
+        output.put(GZIP_HEADER);
+        openedAt = System.nanoTime();
+    }
+
+    private void finishSegment() throws IOException {
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflateInto();
+            }
+            if (output.remaining() < GZIP_TRAILER_SIZE) {
+                writeOutput();
+            }
+            output.putInt((int) crc.getValue());
+            // ISIZE is the uncompressed size modulo 2^32
+            output.putInt((int) deflater.getBytesRead());
+            writeOutput();
+        } finally {
+            file.close();
+            file = null;
+        }
+    }
+
+    private void deflateInto() throws IOException {
+        deflater.deflate(output, Deflater.NO_FLUSH);
+        if (!output.hasRemaining()) {
+            writeOutput();
+        }
+    }
+
+    private void writeOutput() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            file.write(output);
+        }
+        output.clear();
+    }
+
+    private void ensureSegment() throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (file != null) {
+            boolean tooOld = maxAgeNanos > 0 && System.nanoTime() - openedAt >= maxAgeNanos;
+            boolean tooBig = GZIP_HEADER.length + deflater.getBytesWritten() >= segmentSize;
+            if ((tooBig || tooOld) && deflater.getBytesRead() > 0) {
+                finishSegment();
+            }
+        }
+        if (file == null) {
+            openSegment();
+        }
+    }
+
+    private void compress(ByteBuffer src) throws IOException {
+        var position = src.position();
+        crc.update(src);
+        src.position(position);
+
+        deflater.setInput(src);
+        while (!deflater.needsInput()) {
+            deflateInto();
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int length = src.remaining();
+        lock.lock();
+        try {
+            ensureSegment();
+            compress(src);
+        } finally {
+            lock.unlock();
+        }
+        return length;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long size = 0;
+        lock.lock();
+        try {
+            // All the buffers go to the same segment, as they might be parts of the same message.
+            ensureSegment();
+            for (int i = offset; i < offset + length; i++) {
+                size += srcs[i].remaining();
+                compress(srcs[i]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return size;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return open;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finishes the gzip member of the current segment and closes it.
+     *
+     * @throws IOException if the segment can't be finished.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            // Finishing the segment below still uses the buffer, it's just no longer accounted for
+            DirectBuffers.free(output);
+            if (file != null) {
+                finishSegment();
+            }
+        } finally {
+            deflater.end();
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package penna.core.sink.output;
+
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A named slot for an additional output, which log messages can be routed to through {@link penna.api.models.Route}.
+ * <br />
+ * Slots are created the first time their name is referenced and are never removed, so the loggers can resolve
+ * their routes once, when their configuration is updated, and keep a direct reference to the slot. Registering,
+ * replacing or removing the output only swaps the channel in the slot.
+ * <br />
+ * As with the main output, the channel is written to from all the logging threads, so it must be thread-safe.
+ */
+public final class NamedOutput {
+    private static final Map<String, NamedOutput> registry = new ConcurrentHashMap<>();
+
+    public final String name;
+    private volatile WritableByteChannel channel;
+
+    private NamedOutput(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the slot for the given name, creating an empty one if it doesn't exist yet.
+     *
+     * @param name The name of the output.
+     * @return the slot for the name.
+     */
+    public static NamedOutput of(String name) {
+        return registry.computeIfAbsent(name, NamedOutput::new);
+    }
+
+    /**
+     * @return the channel in this slot, or null if no output is registered under this name.
+     */
+    public WritableByteChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Sets the channel in this slot.
+     *
+     * @param next The channel the messages routed to this output are written to, or null to drop them.
+     * @return the previous channel in this slot, if any.
+     */
+    public WritableByteChannel replace(WritableByteChannel next) {
+        var previous = channel;
+        channel = next;
+        return previous;
+    }
+}
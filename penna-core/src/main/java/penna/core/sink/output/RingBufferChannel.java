@@ -0,0 +1,396 @@
+package penna.core.sink.output;
+
+import penna.core.internals.DirectBuffers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static penna.api.audit.Logger.reportError;
+
+/**
+ * Asynchronous output stage that decouples the logging threads from the underlying (potentially slow) channel.
+ * <br />
+ * Callers still encode the log message in their own {@link penna.core.internals.DirectJson} buffer, but instead
+ * of issuing a {@code write(2)} to the target, the encoded bytes are copied into a preallocated off-heap ring.
+ * A single writer thread drains the ring into the target channel, batching everything that accumulated while
+ * the previous write was in flight into a single (gathering) write.
+ * <br />
+ * The ring is accounted in two ever-increasing counters: {@link RingBufferChannel#head} is the number of bytes
+ * accepted by the ring and {@link RingBufferChannel#tail} is the number of bytes already written to the target.
+ * The producers only ever write to the free region of the ring, whereas the writer only reads the region between
+ * tail and head, so the copy into the ring is the only work done while holding the lock.
+ * <br />
+ * When the ring is full the producers block until the writer frees enough space, so no message is lost.
+ * Before that happens, the ring is flagged as {@link RingBufferChannel#saturated()}, so messages that can be
+ * dropped according to the {@link penna.api.models.BackpressurePolicy} are turned away before being encoded.
+ * <br />
+ * Optionally, a memory-mapped {@link SpillFile} can absorb the messages that don't fit in the ring, so the
+ * producers only block once the spill file is full as well. While the spill file holds any message, every new
+ * message is appended to it as well, and the writer replays it once the ring is empty, so the order is kept.
+ * <br />
+ * The writer is a daemon thread, so whoever owns the ring has to {@link RingBufferChannel#stop()} (or close) it
+ * before the JVM exits; for the rings created through {@link penna.core.api.SinkController}, that is done by its
+ * shutdown hook, once the sinks have been flushed.
+ */
+public final class RingBufferChannel implements WritableByteChannel {
+
+    /**
+     * Default ring size (1MiB) which fits a couple of thousands of regular log messages.
+     */
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    private final WritableByteChannel target;
+    private final ByteBuffer ring;
+    private final int capacity;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private long head;
+    private long tail;
+    private volatile boolean open = true;
+    // Set once less than an eighth of the ring is free, read without the lock by the logging threads.
+    private volatile boolean saturated;
+    private final int saturationThreshold;
+
+    // Reusable views over the ring, only touched by the writer thread, so draining doesn't allocate.
+    private final ByteBuffer[] views = new ByteBuffer[2];
+    private final Thread writer;
+
+    // Optional overflow area, along with its metrics; all of them are guarded by the lock.
+    private final SpillFile spill;
+    private long spilledBytes;
+    private long replayedBytes;
+    private long spillingSince;
+
+    public RingBufferChannel(WritableByteChannel target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    public RingBufferChannel(WritableByteChannel target, int capacity) {
+        this(target, capacity, null);
+    }
+
+    /**
+     * Creates an async writer that appends the messages that don't fit in the ring to a memory-mapped spill file,
+     * instead of making the logging threads wait for the writer.
+     *
+     * @param target         the channel the messages are written to.
+     * @param capacity       the size, in bytes, of the ring.
+     * @param spillDirectory the directory where the spill file is created; it is deleted once this is closed.
+     * @param spillCapacity  the size, in bytes, of the spill file.
+     * @throws IOException if the spill file can't be created or mapped.
+     */
+    public RingBufferChannel(WritableByteChannel target, int capacity, Path spillDirectory, int spillCapacity) throws IOException {
+        this(target, capacity, new SpillFile(spillDirectory, spillCapacity));
+    }
+
+    private RingBufferChannel(WritableByteChannel target, int capacity, SpillFile spill) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring capacity must be positive, got " + capacity);
+        }
+        this.target = target;
+        this.capacity = capacity;
+        this.saturationThreshold = capacity / 8;
+        this.ring = DirectBuffers.allocate(capacity);
+        this.views[0] = ring.duplicate();
+        this.views[1] = ring.duplicate();
+        this.spill = spill;
+
+        // This thread spends most of its time blocked in write(2), so it is kept as a platform thread
+        // instead of pinning a carrier thread as a virtual thread would.
+        this.writer = Thread.ofPlatform()
+                .daemon()
+                .name("penna-async-writer")
+                .start(this::drainLoop);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int length = src.remaining();
+        lock.lock();
+        try {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+
+            while (true) {
+                if (spilling()) {
+                    // Older messages are waiting in the spill file, so this one has to go after them
+                    if (spill.offer(src)) {
+                        spilledBytes += length;
+                        return length;
+                    }
+                } else if (capacity - (head - tail) >= length) {
+                    break;
+                } else if (spill != null && spill.offer(src)) {
+                    spilledBytes += length;
+                    spillingSince = System.nanoTime();
+                    saturated = true;
+                    notEmpty.signal();
+                    return length;
+                } else if (length > capacity && head == tail) {
+                    // Oversized messages can never fit in the ring; once it is empty we are next in line,
+                    // so writing through still preserves the order.
+                    writeFully(src);
+                    return length;
+                }
+                saturated = true;
+                notFull.awaitUninterruptibly();
+            }
+
+            int index = (int) (head % capacity);
+            int first = Math.min(length, capacity - index);
+            ring.put(index, src, src.position(), first);
+            if (first < length) {
+                ring.put(0, src, src.position() + first, length - first);
+            }
+            src.position(src.limit());
+
+            boolean wasEmpty = head == tail;
+            head += length;
+            updateSaturation();
+            if (wasEmpty) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return length;
+    }
+
+    /**
+     * Blocks the calling thread until everything that was accepted by the ring was written to the target.
+     */
+    public void drain() {
+        lock.lock();
+        try {
+            while ((head != tail || spilling()) && writer.isAlive()) {
+                notFull.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many bytes are waiting in the ring to be written.
+     *
+     * @return the amount of pending bytes.
+     */
+    public int pending() {
+        lock.lock();
+        try {
+            return (int) (head - tail);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns how many bytes were appended to the spill file because the ring was full, since this was created.
+     *
+     * @return the amount of spilled bytes, or 0 if there is no spill file.
+     */
+    public long spilledBytes() {
+        lock.lock();
+        try {
+            return spilledBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many bytes from the spill file were written to the target, since this was created.
+     *
+     * @return the amount of replayed bytes, or 0 if there is no spill file.
+     */
+    public long replayedBytes() {
+        lock.lock();
+        try {
+            return replayedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many bytes are waiting in the spill file to be replayed.
+     *
+     * @return the amount of pending bytes in the spill file.
+     */
+    public long spillPending() {
+        lock.lock();
+        try {
+            return spill == null ? 0 : spill.pending();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns for how long the spill file has been holding messages back, which is how far behind
+     * the oldest message waiting in it can be.
+     *
+     * @return the lag in nanoseconds, or 0 if no message is waiting in the spill file.
+     */
+    public long replayLagNanos() {
+        lock.lock();
+        try {
+            return spilling() ? System.nanoTime() - spillingSince : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether the ring is (nearly) full, meaning the writer is not keeping up with the logging threads.
+     * This is read without locking, so it can be checked before doing any work for a message.
+     *
+     * @return true if there is little room left in the ring.
+     */
+    public boolean saturated() {
+        return saturated;
+    }
+
+    // Must be called while holding the lock
+    private boolean spilling() {
+        return spill != null && spill.head != spill.tail;
+    }
+
+    // Must be called while holding the lock
+    private void updateSaturation() {
+        saturated = capacity - (head - tail) < saturationThreshold || spilling();
+    }
+
+    private void drainLoop() {
+        while (true) {
+            long start;
+            long end;
+            boolean replaying;
+            lock.lock();
+            try {
+                while (head == tail && !spilling() && open) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                // The ring always holds older messages than the spill file, so it is drained first
+                replaying = head == tail;
+                if (replaying && !spilling()) {
+                    return;
+                }
+                start = replaying ? spill.tail : tail;
+                end = replaying ? spill.head : head;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (replaying) {
+                    writeRange(spill.views, spill.capacity(), start, end);
+                } else {
+                    writeRange(views, capacity, start, end);
+                }
+            } catch (IOException e) {
+                reportError("ERROR", "Unable to write log messages from async writer.", e);
+            }
+
+            lock.lock();
+            try {
+                if (replaying) {
+                    spill.tail = end;
+                    replayedBytes += end - start;
+                } else {
+                    tail = end;
+                }
+                updateSaturation();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void writeRange(ByteBuffer[] views, int capacity, long start, long end) throws IOException {
+        int index = (int) (start % capacity);
+        int length = (int) (end - start);
+        int first = Math.min(length, capacity - index);
+
+        views[0].clear().position(index).limit(index + first);
+        if (first == length) {
+            writeFully(views[0]);
+            return;
+        }
+
+        views[1].clear().limit(length - first);
+        if (target instanceof GatheringByteChannel gathering) {
+            while (views[1].hasRemaining()) {
+                gathering.write(views);
+            }
+        } else {
+            writeFully(views[0]);
+            writeFully(views[1]);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Stops accepting new messages and waits for the writer thread to write everything that was accepted,
+     * without closing the target channel.
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        DirectBuffers.free(ring);
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                reportError("ERROR", "Unable to remove the spill file of the async writer.", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+        target.close();
+    }
+}
@@ -0,0 +1,208 @@
+package penna.core.sink.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Output stage that writes the log messages to local files instead of stdout.
+ * <br />
+ * Files are written in segments named {@code <name>.<index>.log}, where each segment is preallocated to its full
+ * size and memory-mapped once, when it is opened. Appending a message is then a plain copy into the mapping,
+ * without any system call or filesystem metadata update for growing the file.
+ * <br />
+ * A segment is rolled over to the next one when the message being written doesn't fit in the space left or when
+ * the segment has been open for longer than the configured maximum age. Once rolled over (or once this channel is
+ * closed), the segment is truncated to the amount of bytes actually written, so no trailing zeroes are left behind.
+ * <br />
+ * Since the messages are only copied to the page cache, they are as durable as a regular {@code write(2)};
+ * the operating system is in charge of writing them to the disk.
+ */
+public final class RollingFileChannel implements GatheringByteChannel {
+
+    /**
+     * Default segment size (64MiB).
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private final SegmentFiles segments;
+    private final long segmentSize;
+    private final long maxAgeNanos;
+
+    private final Lock lock = new ReentrantLock();
+
+    private FileChannel file;
+    private MappedByteBuffer mapping;
+    private long openedAt;
+    private int index;
+    private boolean open = true;
+
+    /**
+     * Creates a rolling file channel that rolls segments only by size.
+     *
+     * @param directory   The directory where the segments are created.
+     * @param name        The prefix of the segment file names.
+     * @param segmentSize The size, in bytes, of each segment.
+     * @throws IOException if the directory or the first segment can't be created.
+     */
+    public RollingFileChannel(Path directory, String name, long segmentSize) throws IOException {
+        this(directory, name, segmentSize, Duration.ZERO);
+    }
+
+    /**
+     * Creates a rolling file channel.
+     *
+     * @param directory   The directory where the segments are created.
+     * @param name        The prefix of the segment file names.
+     * @param segmentSize The size, in bytes, of each segment.
+     * @param maxAge      How long a segment is written to before rolling over to the next one;
+     *                    {@link Duration#ZERO} to roll only by size.
+     * @throws IOException if the directory or the first segment can't be created.
+     */
+    public RollingFileChannel(Path directory, String name, long segmentSize, Duration maxAge) throws IOException {
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + Integer.MAX_VALUE + " bytes, got " + segmentSize);
+        }
+        this.segments = new SegmentFiles(directory, name, ".log");
+        this.segmentSize = segmentSize;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.index = segments.lastIndex();
+        openSegment(segmentSize);
+    }
+
+    /**
+     * @param segmentIndex the index of a segment.
+     * @return the path to the segment file with the given index.
+     */
+    public Path segmentPath(int segmentIndex) {
+        return segments.path(segmentIndex);
+    }
+
+    /**
+     * @return the path to the segment currently being written.
+     */
+    public Path currentSegment() {
+        lock.lock();
+        try {
+            return segmentPath(index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void openSegment(long size) throws IOException {
+        index++;
+        file = FileChannel.open(
+                segmentPath(index),
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        // Mapping beyond the end of the file grows it to the full segment size up front.
+        mapping = file.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        openedAt = System.nanoTime();
+    }
+
+    private void closeSegment() throws IOException {
+        try {
+            file.truncate(mapping.position());
+        } finally {
+            file.close();
+            // The mapping itself is only released once it is garbage collected.
+            mapping = null;
+        }
+    }
+
+    private void ensureSpace(long length) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (mapping != null) {
+            boolean tooOld = maxAgeNanos > 0 && System.nanoTime() - openedAt >= maxAgeNanos;
+            if (length > mapping.remaining() || (tooOld && mapping.position() > 0)) {
+                closeSegment();
+            }
+        }
+        if (mapping == null) {
+            // A message larger than a segment gets a segment of its own
+            openSegment(Math.max(segmentSize, length));
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int length = src.remaining();
+        lock.lock();
+        try {
+            ensureSpace(length);
+            mapping.put(src);
+        } finally {
+            lock.unlock();
+        }
+        return length;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long size = 0;
+        for (int i = offset; i < offset + length; i++) {
+            size += srcs[i].remaining();
+        }
+
+        lock.lock();
+        try {
+            // All the buffers go to the same segment, as they might be parts of the same message.
+            ensureSpace(size);
+            for (int i = offset; i < offset + length; i++) {
+                mapping.put(srcs[i]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return size;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return open;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Truncates the current segment to the amount of bytes written to it and closes it.
+     *
+     * @throws IOException if the segment can't be truncated.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            if (mapping != null) {
+                closeSegment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
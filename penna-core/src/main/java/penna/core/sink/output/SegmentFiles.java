@@ -0,0 +1,40 @@
+package penna.core.sink.output;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Naming scheme for the segments of the rolling file outputs: {@code <name>.<index><suffix>} within a directory.
+ */
+final class SegmentFiles {
+    private final Path directory;
+    private final String name;
+    private final String suffix;
+    private final Pattern pattern;
+
+    SegmentFiles(Path directory, String name, String suffix) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.name = name;
+        this.suffix = suffix;
+        this.pattern = Pattern.compile(Pattern.quote(name) + "\\.(\\d+)" + Pattern.quote(suffix));
+    }
+
+    Path path(int index) {
+        return directory.resolve(name + "." + index + suffix);
+    }
+
+    // Numbering continues from the existing segments, so restarting the application never overwrites old logs.
+    int lastIndex() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files
+                    .map(path -> pattern.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .mapToInt(matcher -> Integer.parseInt(matcher.group(1)))
+                    .max()
+                    .orElse(-1);
+        }
+    }
+}
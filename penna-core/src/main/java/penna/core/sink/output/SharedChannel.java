@@ -0,0 +1,190 @@
+package penna.core.sink.output;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Output stage shared by all the pooled sinks, so stdout is written through a single channel.
+ * <br />
+ * Writes are batched through a group-commit scheme: each caller enqueues its finished buffer and the first caller
+ * that finds no write in flight becomes the leader, writing everything that was enqueued so far with a single
+ * gathering write. All the other callers wait until the batch containing their buffer is written, since their
+ * buffers will be reused right after the write returns.
+ * <br />
+ * Under contention this collapses many {@code write(2)} calls into a single {@code writev(2)}, while only the
+ * leader ever writes to the target, so whole buffers (and thus whole lines) are never interleaved.
+ * <br />
+ * If writing a batch fails, every caller whose buffer wasn't written in full gets an {@link IOException}, not only
+ * the leader, so no message is taken as written when it wasn't.
+ */
+public final class SharedChannel implements GatheringByteChannel {
+
+    private static final int MAX_BATCH = 64;
+
+    private static final class Stdout {
+        // From the same ticket that PMD references, https://bugs.openjdk.org/browse/JDK-8080225, it is noted that
+        // in JDK 10 the problem was solved. We are targeting JDK 17+, so the problem won't affect us.
+        // Plus, any other alternative is significantly slower.
+        @SuppressWarnings("PMD.AvoidFileStream")
+        private static final SharedChannel instance = new SharedChannel(new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    /**
+     * Returns the shared channel for stdout.
+     *
+     * @return the process-wide {@link SharedChannel} wrapping stdout.
+     */
+    public static SharedChannel stdout() {
+        return Stdout.instance;
+    }
+
+    private final GatheringByteChannel target;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition committed = lock.newCondition();
+    private final Condition hasRoom = lock.newCondition();
+
+    // Double buffered: callers enqueue to `accumulating` while the leader writes `inFlight`.
+    private ByteBuffer[] accumulating = new ByteBuffer[MAX_BATCH];
+    private ByteBuffer[] inFlight = new ByteBuffer[MAX_BATCH];
+    private int count;
+
+    private long openBatch;
+    private long committedBatch = -1;
+    private boolean writing;
+    // Why the last batch that failed wasn't written, handed to the callers whose buffers were in it.
+    private IOException failure;
+
+    public SharedChannel(GatheringByteChannel target) {
+        this.target = target;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int size = src.remaining();
+        lock.lock();
+        try {
+            while (count == accumulating.length) {
+                hasRoom.awaitUninterruptibly();
+            }
+            accumulating[count++] = src;
+            commit(openBatch);
+            if (src.hasRemaining()) {
+                throw failed();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return size;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long size = 0;
+        lock.lock();
+        try {
+            // All the buffers have to go in the same batch, otherwise other writers could be interleaved in between.
+            while (accumulating.length - count < length) {
+                if (count == 0) {
+                    accumulating = new ByteBuffer[length];
+                    // The leader still holds the array in flight, and clears it once written
+                    inFlight = new ByteBuffer[length];
+                } else {
+                    hasRoom.awaitUninterruptibly();
+                }
+            }
+            for (int i = offset; i < offset + length; i++) {
+                size += srcs[i].remaining();
+                accumulating[count++] = srcs[i];
+            }
+            commit(openBatch);
+            for (int i = offset; i < offset + length; i++) {
+                if (srcs[i].hasRemaining()) {
+                    throw failed();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return size;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    // Must be called holding the lock; returns once the batch the caller enqueued to is written.
+    private void commit(long batch) throws IOException {
+        while (committedBatch < batch) {
+            if (writing) {
+                committed.awaitUninterruptibly();
+                continue;
+            }
+
+            var toWrite = accumulating;
+            var size = count;
+            accumulating = inFlight;
+            inFlight = toWrite;
+            count = 0;
+            long taken = openBatch++;
+            writing = true;
+            hasRoom.signalAll();
+
+            IOException error = null;
+            lock.unlock();
+            try {
+                writeFully(toWrite, size);
+            } catch (IOException e) {
+                error = e;
+                throw e;
+            } finally {
+                lock.lock();
+                if (error != null) {
+                    failure = error;
+                }
+                Arrays.fill(toWrite, 0, size, null);
+                writing = false;
+                committedBatch = taken;
+                committed.signalAll();
+            }
+        }
+    }
+
+    // Must be called holding the lock, by a caller whose buffer was left (partly) unwritten by a failed batch, so it
+    // doesn't go on reusing the buffer as if it had been written.
+    private IOException failed() {
+        return new IOException("Unable to write to the shared channel.", failure);
+    }
+
+    private void writeFully(ByteBuffer[] buffers, int size) throws IOException {
+        if (!target.isOpen()) {
+            throw new ClosedChannelException();
+        }
+        int first = 0;
+        while (first < size) {
+            target.write(buffers, first, size - first);
+            while (first < size && !buffers[first].hasRemaining()) {
+                first++;
+            }
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return target.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+}
@@ -0,0 +1,104 @@
+package penna.core.sink.output;
+
+import penna.core.internals.DirectBuffers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Memory-mapped overflow area of a {@link RingBufferChannel}: messages that don't fit in the ring are appended to
+ * this file instead of blocking the logging threads, and replayed to the target once the writer catches up.
+ * <br />
+ * Like the ring, the file is used circularly and accounted in two ever-increasing counters, {@link SpillFile#head}
+ * and {@link SpillFile#tail}, which are only touched while holding the lock of the ring. The region between them
+ * is only read by the writer thread, so replaying happens without the lock.
+ * <br />
+ * The file is created with a unique name and deleted once closed (or right away, where open files can be
+ * unlinked), so messages are only kept in it while the application is running.
+ * <br />
+ * While open, the mapping is accounted for in {@link DirectBuffers#footprint()}. A mapping can only be released by
+ * the garbage collector, so on close the file is truncated, which gives its space back right away, and every
+ * reference to the mapping is dropped, so it can be unmapped on the next collection.
+ */
+final class SpillFile implements Closeable {
+    private final FileChannel file;
+    private MappedByteBuffer map;
+    private final int capacity;
+
+    // Reusable views over the file, only touched by the writer thread, so replaying doesn't allocate.
+    final ByteBuffer[] views = new ByteBuffer[2];
+
+    long head;
+    long tail;
+
+    SpillFile(Path directory, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Spill capacity must be positive, got " + capacity);
+        }
+        var path = Files.createTempFile(Files.createDirectories(directory), "penna-spill-", ".log");
+        this.file = FileChannel.open(path, READ, WRITE, DELETE_ON_CLOSE);
+        this.map = DirectBuffers.map(file, capacity);
+        this.capacity = capacity;
+        this.views[0] = map.duplicate();
+        this.views[1] = map.duplicate();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long pending() {
+        return head - tail;
+    }
+
+    /**
+     * Appends the whole buffer to the file, if there is room for it.
+     *
+     * @param src the message to append.
+     * @return false if the message doesn't fit, in which case nothing is appended.
+     */
+    boolean offer(ByteBuffer src) {
+        int length = src.remaining();
+        if (capacity - (head - tail) < length) {
+            return false;
+        }
+
+        int index = (int) (head % capacity);
+        int first = Math.min(length, capacity - index);
+        map.put(index, src, src.position(), first);
+        if (first < length) {
+            map.put(0, src, src.position() + first, length - first);
+        }
+        src.position(src.limit());
+        head += length;
+        return true;
+    }
+
+    // Must only be called once the writer thread is done with the views and no message can be offered anymore
+    @Override
+    public void close() throws IOException {
+        if (map == null) {
+            return;
+        }
+        DirectBuffers.free(map);
+        map = null;
+        views[0] = null;
+        views[1] = null;
+        try {
+            file.truncate(0);
+        } catch (IOException ignored) {
+            // Some platforms (i.e. Windows) can't truncate a file that is still mapped; it is only gone once unmapped
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package penna.core.sink.output;
+
+import penna.core.internals.DirectBuffers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static penna.api.audit.Logger.report;
+
+/**
+ * Output stage that writes the log messages to a stream socket, either a unix domain socket (i.e. for a log
+ * shipper running as a sidecar) or a TCP connection (i.e. to a syslog or GELF server).
+ * <br />
+ * The socket is non-blocking: partial writes are resumed until the buffers are fully written and, if the peer
+ * doesn't accept more bytes within the write timeout, whatever is left is moved to the backlog, so the message
+ * is resumed in the next write instead of blocking the writing thread indefinitely.
+ * <br />
+ * Whenever the peer is unavailable, the messages are kept in a bounded backlog and the connection is attempted
+ * again on a later write, backing off exponentially up to a maximum delay. Once connected, the backlog is written
+ * before any new message. If the backlog is full, new messages are dropped and the amount of dropped bytes
+ * is reported once the connection is reestablished.
+ * <br />
+ * Note that a connection dropping in the middle of a write can leave a single message split across two
+ * connections.
+ * <br />
+ * Reconnecting is done by the writing thread and writes can wait up to the write timeout for the peer, so this
+ * channel is best used behind a {@link RingBufferChannel}.
+ */
+public final class StreamSocketChannel implements GatheringByteChannel {
+
+    /**
+     * Default backlog size (4MiB).
+     */
+    public static final int DEFAULT_BACKLOG_CAPACITY = 4 * 1024 * 1024;
+
+    /**
+     * Default maximum delay in between connection attempts.
+     */
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(5);
+
+    /**
+     * Default time to wait for the peer to connect or to accept more bytes.
+     */
+    public static final Duration DEFAULT_WRITE_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final SocketAddress address;
+    private final long maxBackoffNanos;
+    private final long writeTimeoutMillis;
+    private final ByteBuffer backlog;
+
+    private final Lock lock = new ReentrantLock();
+    // Reusable holders for single buffer writes, only touched while holding the lock.
+    private final ByteBuffer[] single = new ByteBuffer[1];
+    private final ByteBuffer[] backlogHolder;
+
+    private SocketChannel socket;
+    private Selector selector;
+    private long backoffNanos;
+    private long nextAttempt;
+    private long dropped;
+    private boolean open = true;
+
+    /**
+     * Creates a channel to a unix domain socket with the default backlog capacity, maximum backoff
+     * and write timeout.
+     *
+     * @param path The path to the socket the peer is listening to.
+     */
+    public StreamSocketChannel(Path path) {
+        this(UnixDomainSocketAddress.of(path));
+    }
+
+    /**
+     * Creates a channel with the default backlog capacity, maximum backoff and write timeout.
+     *
+     * @param address The address the peer is listening to, either a {@link UnixDomainSocketAddress}
+     *                or an {@link InetSocketAddress}.
+     */
+    public StreamSocketChannel(SocketAddress address) {
+        this(address, DEFAULT_BACKLOG_CAPACITY, DEFAULT_MAX_BACKOFF, DEFAULT_WRITE_TIMEOUT);
+    }
+
+    /**
+     * Creates a stream socket channel.
+     *
+     * @param address         The address the peer is listening to, either a {@link UnixDomainSocketAddress}
+     *                        or an {@link InetSocketAddress}.
+     * @param backlogCapacity The size, in bytes, of the backlog kept while the peer is unavailable.
+     * @param maxBackoff      The maximum delay in between connection attempts.
+     * @param writeTimeout    How long to wait for the peer to connect or to accept more bytes.
+     */
+    public StreamSocketChannel(SocketAddress address, int backlogCapacity, Duration maxBackoff, Duration writeTimeout) {
+        if (!(address instanceof UnixDomainSocketAddress) && !(address instanceof InetSocketAddress)) {
+            throw new IllegalArgumentException("Unsupported socket address: " + address);
+        }
+        this.address = address;
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        // Selector#select(0) blocks indefinitely, so the timeout is at least a millisecond.
+        this.writeTimeoutMillis = Math.max(1, writeTimeout.toMillis());
+        this.backlog = DirectBuffers.allocate(backlogCapacity);
+        this.backlogHolder = new ByteBuffer[]{backlog};
+        this.nextAttempt = System.nanoTime();
+    }
+
+    private boolean connect() {
+        if (socket != null) {
+            return true;
+        }
+        var now = System.nanoTime();
+        if (now - nextAttempt < 0) {
+            return false;
+        }
+
+        try {
+            if (address instanceof UnixDomainSocketAddress) {
+                socket = SocketChannel.open(StandardProtocolFamily.UNIX);
+            } else {
+                socket = SocketChannel.open();
+                // Messages are already batched before being written
+                socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            socket.configureBlocking(false);
+            if (!socket.connect(address) && !(await(SelectionKey.OP_CONNECT) && socket.finishConnect())) {
+                disconnect(now);
+                return false;
+            }
+        } catch (IOException e) {
+            disconnect(now);
+            return false;
+        }
+
+        backoffNanos = 0;
+        if (dropped > 0) {
+            report("WARN", "Dropped " + dropped + " bytes of log messages while " + address + " was unavailable");
+            dropped = 0;
+        }
+        return true;
+    }
+
+    private void disconnect(long now) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Nothing else to do with a broken connection
+            }
+            socket = null;
+        }
+        backoffNanos = Math.min(Math.max(backoffNanos * 2, INITIAL_BACKOFF_NANOS), maxBackoffNanos);
+        nextAttempt = now + backoffNanos;
+    }
+
+    // Waits for the socket to be ready for the operation, returning false if the timeout expires first.
+    private boolean await(int operation) throws IOException {
+        if (selector == null) {
+            selector = Selector.open();
+        }
+        socket.register(selector, operation);
+        try {
+            return selector.select(writeTimeoutMillis) > 0;
+        } finally {
+            selector.selectedKeys().clear();
+        }
+    }
+
+    private static long remaining(ByteBuffer[] srcs, int offset, int length) {
+        long size = 0;
+        for (int i = offset; i < offset + length; i++) {
+            size += srcs[i].remaining();
+        }
+        return size;
+    }
+
+    // Returns true if everything was written; otherwise, either the peer timed out or the connection was dropped.
+    private boolean send(ByteBuffer[] srcs, int offset, int length) {
+        var left = remaining(srcs, offset, length);
+        try {
+            while (left > 0) {
+                var written = socket.write(srcs, offset, length);
+                if (written == 0 && !await(SelectionKey.OP_WRITE)) {
+                    return false;
+                }
+                left -= written;
+            }
+            return true;
+        } catch (IOException e) {
+            disconnect(System.nanoTime());
+            return false;
+        }
+    }
+
+    private boolean sendBacklog() {
+        if (backlog.position() == 0) {
+            return true;
+        }
+        backlog.flip();
+        var sent = send(backlogHolder, 0, 1);
+        backlog.compact();
+        return sent;
+    }
+
+    // Buffers are kept or dropped together, as they might be parts of the same message.
+    private void enqueue(ByteBuffer[] srcs, int offset, int length, long size) {
+        var left = remaining(srcs, offset, length);
+        if (left == 0) {
+            return;
+        }
+        if (left > backlog.remaining()) {
+            dropped += left;
+            for (int i = offset; i < offset + length; i++) {
+                srcs[i].position(srcs[i].limit());
+            }
+            if (left < size && socket != null) {
+                // The peer got part of a message that won't be completed, so the connection starts over.
+                disconnect(System.nanoTime());
+            }
+            return;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            backlog.put(srcs[i]);
+        }
+    }
+
+    private void write(ByteBuffer[] srcs, int offset, int length, long size) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (connect() && sendBacklog()) {
+            send(srcs, offset, length);
+        }
+        enqueue(srcs, offset, length, size);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int length = src.remaining();
+        lock.lock();
+        try {
+            single[0] = src;
+            write(single, 0, 1, length);
+        } finally {
+            single[0] = null;
+            lock.unlock();
+        }
+        return length;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long size = remaining(srcs, offset, length);
+        lock.lock();
+        try {
+            write(srcs, offset, length, size);
+        } finally {
+            lock.unlock();
+        }
+        return size;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    /**
+     * @return the amount of bytes waiting in the backlog for the peer to become available.
+     */
+    public int backlogged() {
+        lock.lock();
+        try {
+            return backlog.position();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of bytes dropped because the backlog was full, since the last time the connection was
+     * reestablished.
+     */
+    public long dropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return open;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes a last attempt at writing the backlog and closes the connection.
+     *
+     * @throws IOException if the connection can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            DirectBuffers.free(backlog);
+            nextAttempt = System.nanoTime();
+            if (connect()) {
+                sendBacklog();
+            }
+            if (socket != null) {
+                socket.close();
+                socket = null;
+            }
+            if (selector != null) {
+                selector.close();
+                selector = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.helpers.BasicMarkerFactory;
 import org.slf4j.spi.MDCAdapter;
 import org.slf4j.spi.SLF4JServiceProvider;
 import penna.api.config.Manager;
+import penna.core.api.SinkController;
 import penna.core.internals.ManagerHolder;
 
 import static penna.api.audit.Logger.report;
@@ -53,6 +54,7 @@ public final class PennaServiceProvider implements SLF4JServiceProvider {
         // TODO Write Penna's own marker factory
         markerFactory = new BasicMarkerFactory();
         mdcAdapter = new PennaMDCAdapter();
+        SinkController.registerShutdownHook();
         report("INFO", "Penna initialized successfully");
     }
 }
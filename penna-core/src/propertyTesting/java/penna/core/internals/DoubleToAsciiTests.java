@@ -0,0 +1,48 @@
+package penna.core.internals;
+
+import net.jqwik.api.*;
+import org.junit.jupiter.api.Assertions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+class DoubleToAsciiTests {
+
+    private static String write(double value) {
+        var buffer = ByteBuffer.allocate(32);
+        new DoubleToAscii().doubleToAscii(value, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+    }
+
+    private static String write(float value) {
+        var buffer = ByteBuffer.allocate(32);
+        new DoubleToAscii().floatToAscii(value, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+    }
+
+    @Provide
+    public static Arbitrary<Double> anyFiniteDouble() {
+        return Arbitraries.longs().map(Double::longBitsToDouble).filter(Double::isFinite);
+    }
+
+    @Provide
+    public static Arbitrary<Float> anyFiniteFloat() {
+        return Arbitraries.integers().map(Float::intBitsToFloat).filter(Float::isFinite);
+    }
+
+    // Since JDK 19, Double.toString yields the shortest decimal that rounds back, which is what we aim for.
+    @Property(tries = 100_000)
+    void doublesMatchTheJdk(@ForAll("anyFiniteDouble") double value) {
+        Assertions.assertEquals(Double.toString(value), write(value));
+    }
+
+    @Property(tries = 10_000)
+    void decimalDoublesMatchTheJdk(@ForAll double value) {
+        Assertions.assertEquals(Double.toString(value), write(value));
+    }
+
+    @Property(tries = 100_000)
+    void floatsMatchTheJdk(@ForAll("anyFiniteFloat") float value) {
+        Assertions.assertEquals(Float.toString(value), write(value));
+    }
+}
@@ -1,5 +1,6 @@
 package penna.core.logger;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.jqwik.api.*;
 import org.junit.jupiter.api.Assertions;
@@ -7,17 +8,21 @@ import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 import org.slf4j.event.Level;
 import penna.api.models.Config;
+import penna.api.models.Limits;
 import penna.api.models.LogField;
 import penna.core.internals.TestContextPoolManager;
-import penna.core.models.KeyValuePair;
 import penna.core.models.LogConfig;
 import penna.core.models.PennaLogEvent;
 import penna.core.sink.CoreSink;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.util.ArrayDeque;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -75,11 +80,11 @@ class CoreSinkTests {
                 .ofMaxSize(128);
 
         Arbitrary<String> keys = Arbitraries.strings().alpha().ofMinLength(3).ofMaxLength(5);
-        Arbitrary<List<KeyValuePair>> kvps = Arbitraries
+        Arbitrary<List<Map.Entry<String, String>>> kvps = Arbitraries
                 .strings()
                 .all()
                 .excludeChars('"')
-                .flatMap(val -> keys.map(key -> new KeyValuePair(key, val)))
+                .flatMap(val -> keys.map(key -> Map.entry(key, val)))
                 .list();
         Arbitrary<Level> levels = Arbitraries.of(Level.class);
 
@@ -113,7 +118,9 @@ class CoreSinkTests {
                     return evt;
                 })
                 .use(kvps).in((evt, m) -> {
-                    evt.keyValuePairs.addAll(m);
+                    for (var kvp : m) {
+                        evt.addKeyValue(kvp.getKey(), kvp.getValue());
+                    }
                     return evt;
                 })
                 .use(levels).in((evt, m) -> {
@@ -201,5 +208,91 @@ class CoreSinkTests {
         fos.close();
     }
 
+    record Wrapper(Object value) {}
+
+    @Provide
+    Arbitrary<Limits> limits() {
+        Arbitrary<Integer> bytes = Arbitraries.integers().between(0, 256);
+        Arbitrary<Integer> counts = Arbitraries.integers().between(0, 6);
+        return Combinators.combine(bytes, bytes, counts, counts).as(Limits::new);
+    }
+
+    @Provide
+    Arbitrary<Object> payloads() {
+        Arbitrary<Object> leaves = Arbitraries.oneOf(
+                Arbitraries.strings().all().ofMaxLength(512).map(Object.class::cast),
+                Arbitraries.longs().map(Object.class::cast),
+                Arbitraries.doubles().map(Object.class::cast)
+        );
+        return Arbitraries.recursive(
+                () -> leaves,
+                values -> Arbitraries.oneOf(
+                        values.list().ofMaxSize(10).map(Object.class::cast),
+                        values.list().ofMaxSize(10).map(List::toArray),
+                        values.list().ofMaxSize(10).map(ArrayDeque::new),
+                        Arbitraries.maps(Arbitraries.strings().all().ofMaxLength(16), values)
+                                .ofMaxSize(10)
+                                .map(Object.class::cast),
+                        values.map(Wrapper::new)
+                ),
+                0,
+                6
+        );
+    }
+
+    /**
+     * Checks the value is within the limits: its depth, its containers, with a marker at most as an extra element,
+     * and the strings it holds, which are never shorter encoded as JSON than in plain UTF-8.
+     */
+    private static int assertWithinLimits(JsonNode node, Limits limits) {
+        if (node.isTextual()) {
+            assertFitsIn(node.asText(), limits.maxValueBytes());
+            return 0;
+        }
+        if (limits.maxElements() > 0) {
+            Assertions.assertTrue(node.size() <= limits.maxElements() + 1, node::toString);
+        }
+        int depth = 0;
+        for (var child : node) {
+            depth = Math.max(depth, assertWithinLimits(child, limits));
+        }
+        return node.isContainerNode() ? depth + 1 : 0;
+    }
+
+    private static void assertFitsIn(String text, int maxBytes) {
+        var marker = text.lastIndexOf("\u2026(truncated ");
+        var kept = marker >= 0 ? text.substring(0, marker) : text;
+        if (maxBytes > 0) {
+            Assertions.assertTrue(kept.getBytes(StandardCharsets.UTF_8).length <= maxBytes, text);
+        }
+    }
+
+    @Property
+    void validJsonUnderTruncation(
+            @ForAll("limits") Limits limits,
+            @ForAll("payloads") Object payload,
+            @ForAll String message
+    ) throws IOException {
+        var output = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(output);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        Config config = Config.getDefault()
+                .replaceFields(LogField.MESSAGE, LogField.KEY_VALUE_PAIRS)
+                .replaceLimits(limits);
+        LoggerStorage cache = new LoggerStorage();
+        cache.replaceConfig(config);
+        PennaLogger logger = cache.getOrCreate("c.est.moi");
 
+        logger.atInfo()
+                .addKeyValue("payload", payload)
+                .log(message + " {}", payload);
+
+        var node = Assertions.assertDoesNotThrow(() -> om.readTree(output.toByteArray()));
+        assertFitsIn(node.get("message").asText(), limits.maxMessageBytes());
+        var depth = assertWithinLimits(node.get("data").get("payload"), limits);
+        if (limits.maxDepth() > 0) {
+            Assertions.assertTrue(depth <= limits.maxDepth(), node::toString);
+        }
+    }
 }
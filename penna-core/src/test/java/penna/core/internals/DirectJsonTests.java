@@ -1,12 +1,21 @@
 package penna.core.internals;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DirectJsonTests {
     static class Helper {
@@ -31,6 +40,49 @@ class DirectJsonTests {
         assertEquals("123,", chars);
     }
 
+    @Test
+    void can_write_negative_longs_to_buffer() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeNumber(-123);
+            directJson.writeNumber(Long.MIN_VALUE);
+        });
+
+        assertEquals("-123,-9223372036854775808,", chars);
+    }
+
+    @Test
+    void can_write_doubles_to_buffer() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeNumber(1.0);
+            directJson.writeNumber(-0.1);
+            directJson.writeNumber(1234.5678);
+            directJson.writeNumber(1e-7);
+            directJson.writeNumber(Double.MAX_VALUE);
+        });
+
+        assertEquals("1.0,-0.1,1234.5678,1.0E-7,1.7976931348623157E308,", chars);
+    }
+
+    @Test
+    void floats_are_written_with_their_own_precision() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeNumber(0.1f);
+            directJson.writeNumber(3.4028235E38f);
+        });
+
+        assertEquals("0.1,3.4028235E38,", chars);
+    }
+
+    @Test
+    void non_finite_numbers_are_written_as_strings() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeNumber(Double.NaN);
+            directJson.writeNumber(Double.POSITIVE_INFINITY);
+            directJson.writeNumber(Float.NEGATIVE_INFINITY);
+        });
+
+        assertEquals("\"NaN\",\"Infinity\",\"-Infinity\",", chars);
+    }
 
     @Test
     void can_write_strings_to_buffer() {
@@ -126,4 +178,229 @@ class DirectJsonTests {
 
         assertEquals("String with {} placeholder", chars);
     }
+
+    @Test
+    void escapes_quotes_and_control_characters() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeString("say \"hi\"\u0001\b\f\u001f\u007f");
+        });
+
+        assertEquals("\"say \\\"hi\\\"\\u0001\\b\\f\\u001f\u007f\",", chars);
+    }
+
+    @Test
+    void every_ascii_character_is_valid_json() throws Exception {
+        var builder = new StringBuilder();
+        // Long enough to span several chunks, with the special characters at every alignment
+        for (int i = 0; i < 5; i++) {
+            for (char chr = 0; chr < 0x80; chr++) {
+                builder.append(chr).append("plain text ".repeat(i));
+            }
+            builder.append("café");
+        }
+        var original = builder.toString();
+        var chars = Helper.write(directJson -> {
+            directJson.openObject();
+            directJson.writeStringValue("message", original);
+            directJson.writeStringValueFormatting("formatted", original + " {}", original);
+            directJson.closeObject();
+        });
+
+        var node = new ObjectMapper().readTree(chars);
+        assertEquals(original, node.get("message").asText());
+        assertEquals(original + " " + original, node.get("formatted").asText());
+        chars.chars().forEach(chr -> assertTrue(chr >= 0x20, "Unescaped control character in output"));
+    }
+
+    @Test
+    void formatting_handles_escapes_and_braces_at_the_edges() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeRawFormatting("\\{} {} {", "world");
+        });
+
+        assertEquals("{} world {", chars);
+    }
+
+    @Test
+    void cached_formats_are_written_like_scanned_ones() {
+        Object[][] arguments = {
+                {},
+                {"world"},
+                {null, "world"},
+                {"a", "b", "c", "d"},
+        };
+        String[] formats = {
+                "",
+                "{}",
+                "hello {}!",
+                "\\{} {} \\\\{} {",
+                "{}{}\\{}{} \"quoted\" olá {}",
+                "no placeholders, but a \\ and a tab\t",
+        };
+
+        for (var format : formats) {
+            for (var args : arguments) {
+                var scanned = Helper.write(directJson -> directJson.writeRawFormatting(new String(format), args));
+                var cached = Helper.write(directJson -> {
+                    var template = directJson.compile(format);
+                    MessageTemplates.store(template);
+                    directJson.writeRawFormatting(format, args);
+                });
+
+                assertEquals(scanned, cached, () -> "Format: " + format);
+            }
+        }
+    }
+
+    @Test
+    void formats_are_only_cached_once_seen_twice() {
+        var format = new String("cached {}");
+
+        var chars = Helper.write(directJson -> {
+            directJson.writeRawFormatting(format, "once");
+            assertNull(MessageTemplates.lookup(format));
+            directJson.writeRawFormatting(format, "twice");
+            assertNotNull(MessageTemplates.lookup(format));
+            directJson.writeRawFormatting(format, "thrice");
+        });
+
+        assertEquals("cached oncecached twicecached thrice", chars);
+    }
+
+    @Test
+    void keys_are_escaped_whether_cached_or_not() {
+        var key = new String("the \"key\" é\n");
+        var chars = Helper.write(directJson -> {
+            for (int i = 0; i < 3; i++) {
+                directJson.writeKey(key);
+            }
+        });
+
+        assertEquals("\"the \\\"key\\\" é\\n\":".repeat(3), chars);
+    }
+
+    enum Outcome {
+        SUCCESS,
+        FAILURE {
+            @Override
+            public String toString() {
+                return "failed \"badly\"";
+            }
+        }
+    }
+
+    @Test
+    void arguments_are_written_as_their_string_representation() {
+        Object[] arguments = {
+                Long.MIN_VALUE,
+                -42,
+                (short) 7,
+                (byte) -1,
+                0.1 + 0.2,
+                -0.0,
+                Double.NaN,
+                Double.NEGATIVE_INFINITY,
+                1.0E-5f,
+                Float.POSITIVE_INFINITY,
+                true,
+                'é',
+                '"',
+                new UUID(0x0123456789abcdefL, 0xfedcba9876543210L),
+                UUID.randomUUID(),
+                TimeUnit.SECONDS,
+                Outcome.SUCCESS,
+                Outcome.FAILURE,
+                new StringBuilder("a \"quoted\" 👋🏽 ").repeat("é", 300),
+                new StringBuffer("tab\tseparated"),
+                new BigDecimal("1.50"),
+                List.of(1, "two"),
+        };
+
+        for (var argument : arguments) {
+            var expected = Helper.write(directJson -> directJson.writeRaw(argument.toString()));
+            var chars = Helper.write(directJson -> directJson.writeArgument(argument));
+
+            assertEquals(expected, chars, () -> "Argument: " + argument.getClass());
+        }
+    }
+
+    @Test
+    void encodes_non_ascii_characters_as_utf8() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeString("olá, 世界! 👋🏽 \"ñ\"");
+        });
+
+        assertEquals("\"olá, 世界! 👋🏽 \\\"ñ\\\"\",", chars);
+    }
+
+    @Test
+    void surrogate_pairs_are_not_split_across_chunks() {
+        var message = "x".repeat(255) + "🙂".repeat(300);
+        var chars = Helper.write(directJson -> {
+            directJson.writeRaw(message);
+        });
+
+        assertEquals(message, chars);
+    }
+
+    @Test
+    void lone_surrogates_are_escaped() {
+        var chars = Helper.write(directJson -> {
+            directJson.writeRaw("broken \uD83D pair \uDE42");
+        });
+
+        assertEquals("broken \\ud83d pair \\ude42", chars);
+    }
+
+    @Test
+    void strings_are_truncated_at_character_boundaries() throws IOException {
+        var original = "a\"é😀\\\n\u0001b".repeat(8);
+        var om = new ObjectMapper();
+        for (int maxBytes = 1; maxBytes < 120; maxBytes++) {
+            var limit = maxBytes;
+            var chars = Helper.write(directJson -> {
+                directJson.openObject();
+                directJson.writeKey("value");
+                directJson.writeString(original, limit);
+                directJson.closeObject();
+            });
+
+            var value = om.readTree(chars).get("value").asText();
+            var marker = value.indexOf("…(truncated ");
+            assertTrue(marker >= 0 && value.endsWith(" bytes)"), value);
+            var kept = value.substring(0, marker);
+            assertTrue(original.startsWith(kept), value);
+            assertTrue(escapedSize(kept) <= limit, value);
+            // The bytes left out are counted as escaped, just like the limit
+            var skipped = value.substring(marker + "…(truncated ".length(), value.length() - " bytes)".length());
+            assertEquals(escapedSize(original) - escapedSize(kept), Integer.parseInt(skipped), value);
+            // Nothing more than needed is left out
+            var next = original.substring(0, kept.length() + Character.charCount(original.codePointAt(kept.length())));
+            assertTrue(escapedSize(next) > limit, value);
+        }
+    }
+
+    private static int escapedSize(String str) {
+        return Helper.write(directJson -> directJson.writeRaw(str)).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Test
+    void messages_are_truncated_along_with_their_arguments() {
+        var arguments = new Object[]{"x".repeat(100), 42};
+        for (int i = 0; i < 3; i++) {
+            // Written both with and without the format cache
+            var chars = Helper.write(directJson -> {
+                directJson.writeStringFormatting("hello {} and {}", arguments, 20);
+            });
+
+            assertEquals("\"hello " + "x".repeat(14) + "…(truncated 93 bytes)\",", chars);
+        }
+
+        var chars = Helper.write(directJson -> {
+            directJson.writeStringFormatting("hello {}", new Object[]{"world"}, 20);
+            directJson.writeStringFormatting("hello {}", new Object[]{"x".repeat(100)}, 0);
+            directJson.writeString("short", 5);
+        });
+        assertEquals("\"hello world\",\"hello " + "x".repeat(100) + "\",\"short\",", chars);
+    }
 }
@@ -2,6 +2,9 @@ package penna.core.internals;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class IntToAsciiTest {
@@ -62,4 +65,23 @@ class IntToAsciiTest {
         assertEquals('9', digits[7]);
     }
 
-}
\ No newline at end of file
+    @Test
+    void longToAsciiBuffer() {
+        var intToAscii = new IntToAscii();
+        var buffer = ByteBuffer.allocate(32);
+        long[] values = {
+                0, 7, -7, 10, -10, 99, 100, -100, 1_700_000_000_042L,
+                Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE - 1L, Integer.MAX_VALUE + 1L,
+                999_999_999_999_999_999L, 1_000_000_000_000_000_000L,
+                Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE + 1
+        };
+
+        for (long value : values) {
+            buffer.clear().put((byte) '[');
+            intToAscii.longToAscii(value, buffer);
+            buffer.put((byte) ']');
+            assertEquals("[" + value + "]",
+                    new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+        }
+    }
+}
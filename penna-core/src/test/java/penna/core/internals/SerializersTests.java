@@ -0,0 +1,61 @@
+package penna.core.internals;
+
+import org.junit.jupiter.api.Test;
+import penna.api.serialization.ValueSerializer;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SerializersTests {
+    interface Named {}
+
+    interface Identified extends Named {}
+
+    static class Base implements Named {}
+
+    static class Entity extends Base implements Identified {}
+
+    static class Unrelated {}
+
+    record Point(int x, int y) {}
+
+    @Test
+    void classes_win_over_interfaces_and_closer_types_win() {
+        ValueSerializer<Named> named = (value, writer) -> writer.value("named");
+        ValueSerializer<Identified> identified = (value, writer) -> writer.value("identified");
+        ValueSerializer<Base> base = (value, writer) -> writer.value("base");
+
+        Serializers.register(Named.class, named);
+        assertSame(named, Serializers.resolve(Entity.class));
+
+        Serializers.register(Identified.class, identified);
+        assertSame(identified, Serializers.resolve(Entity.class));
+        assertSame(named, Serializers.resolve(Base.class));
+
+        Serializers.register(Base.class, base);
+        assertSame(base, Serializers.resolve(Entity.class));
+    }
+
+    @Test
+    void unknown_types_have_no_serializer() {
+        assertNull(Serializers.resolve(Unrelated.class));
+        assertNull(Serializers.resolve(Object.class));
+    }
+
+    @Test
+    void common_types_have_serializers_by_default() {
+        assertNotNull(Serializers.resolve(Point.class));
+        assertNotNull(Serializers.resolve(Instant.class));
+        assertNotNull(Serializers.resolve(LocalDate.class));
+        assertNotNull(Serializers.resolve(Optional.class));
+        assertNotNull(Serializers.resolve(HashSet.class));
+        assertNotNull(Serializers.resolve(int[].class));
+        assertNotNull(Serializers.resolve(char[].class));
+    }
+}
@@ -7,19 +7,48 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.MDC;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+import penna.api.logging.PennaEventBuilder;
+import penna.api.models.BackpressurePolicy;
+import penna.api.models.Config;
+import penna.api.models.FlushPolicy;
+import penna.api.models.Limits;
+import penna.api.models.LogField;
+import penna.api.models.Route;
+import penna.core.api.SinkController;
+import penna.core.internals.Admission;
+import penna.core.internals.DirectBuffers;
 import penna.core.internals.TestContextPoolManager;
 import penna.core.logger.guard.InfoLevelGuard;
+import penna.core.models.PennaLogEvent;
 import penna.core.sink.CoreSink;
 import penna.core.sink.Sink;
 import penna.core.sink.TestSink;
+import penna.core.sink.output.NamedOutput;
+import penna.core.sink.output.RingBufferChannel;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 class LoggerTests {
     record ThrowableLog(
@@ -145,4 +174,446 @@ class LoggerTests {
         fos.close();
     }
 
+    @Test
+    void held_back_messages_are_written_on_error() {
+        var output = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(output);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault().replaceFlushPolicy(FlushPolicy.everyBytes(1024 * 1024)));
+        PennaLogger logger = cache.getOrCreate("flush.by.size");
+
+        logger.info("held back");
+        logger.warn("held back as well");
+        Assertions.assertEquals(0, output.size());
+
+        logger.error("written right away");
+        Assertions.assertEquals(3, output.toString().lines().count());
+    }
+
+    @Test
+    void held_back_messages_are_written_after_the_delay() {
+        var output = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(output);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault().replaceFlushPolicy(FlushPolicy.everyMicros(1_000)));
+        PennaLogger logger = cache.getOrCreate("flush.by.time");
+
+        logger.info("held back for a bit");
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (output.size() == 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assertions.assertEquals(1, output.toString().lines().count());
+    }
+
+    @Test
+    void chatty_messages_are_dropped_while_the_async_writer_is_saturated() throws IOException {
+        var output = new ByteArrayOutputStream();
+        var target = Channels.newChannel(output);
+        var release = new CountDownLatch(1);
+        WritableByteChannel stalled = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return target.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        var ring = new RingBufferChannel(stalled, 4 * 1024);
+        TestContextPoolManager.replace(() -> new CoreSink(ring));
+        Admission.watch(ring);
+        // The background reporter would otherwise take the count (and write a message) if this runs for too long
+        Admission.reportManually(true);
+        try {
+            var cache = new LoggerStorage();
+            cache.replaceConfig(Config.getDefault()
+                    .replaceLevel(Level.DEBUG)
+                    .replaceBackpressure(BackpressurePolicy.drop(Level.DEBUG)));
+            PennaLogger logger = cache.getOrCreate("chatty");
+
+            // The writer is stuck, so without the policy this would block once the ring is full
+            for (int i = 0; i < 1_000; i++) {
+                logger.debug("chatty message {}", i);
+            }
+            Assertions.assertTrue(ring.saturated());
+
+            release.countDown();
+            logger.error("still written");
+            ring.drain();
+
+            var lines = output.toString().lines().toList();
+            Assertions.assertTrue(lines.getLast().contains("still written"));
+            Assertions.assertEquals(1_000 - (lines.size() - 1), Admission.report());
+        } finally {
+            Admission.reportManually(false);
+            Admission.watch(null);
+            ring.stop();
+        }
+    }
+
+    @Test
+    void messages_are_routed_to_additional_outputs() {
+        var main = new ByteArrayOutputStream();
+        var audit = new ByteArrayOutputStream();
+        var alerts = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+        NamedOutput.of("test-audit").replace(Channels.newChannel(audit));
+        NamedOutput.of("test-alerts").replace(Channels.newChannel(alerts));
+
+        try {
+            var cache = new LoggerStorage();
+            cache.replaceConfig("routed", Config.getDefault().replaceRoutes(
+                    Route.to("test-audit").replaceMarker("AUDIT"),
+                    Route.to("test-alerts").replaceLevel(Level.ERROR),
+                    Route.to("test-alerts").replaceMarker("AUDIT").replaceLevel(Level.WARN)
+            ));
+            PennaLogger routed = cache.getOrCreate("routed.Service");
+            PennaLogger other = cache.getOrCreate("other.Service");
+            Marker marker = MarkerFactory.getMarker("AUDIT");
+
+            routed.info("only main");
+            routed.info(marker, "audited");
+            routed.warn(marker, "audited and alerted");
+            routed.error("alerted");
+            other.error(marker, "not routed");
+
+            Assertions.assertEquals(5, main.toString().lines().count());
+
+            var auditLines = audit.toString().lines().toList();
+            Assertions.assertEquals(2, auditLines.size());
+            Assertions.assertTrue(auditLines.get(0).contains("\"audited\""));
+            Assertions.assertTrue(auditLines.get(1).contains("audited and alerted"));
+
+            // Both rules for the alerts output match the WARN message, but it is only written once
+            var alertLines = alerts.toString().lines().toList();
+            Assertions.assertEquals(2, alertLines.size());
+            Assertions.assertTrue(alertLines.get(0).contains("audited and alerted"));
+            Assertions.assertTrue(alertLines.get(1).contains("\"alerted\""));
+
+            // The copies are the same bytes written to the main output
+            Assertions.assertEquals(main.toString().lines().toList().get(3), alertLines.get(1));
+        } finally {
+            NamedOutput.of("test-audit").replace(null);
+            NamedOutput.of("test-alerts").replace(null);
+        }
+    }
+
+    @Test
+    void templates_follow_configuration_changes() throws IOException {
+        var main = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault().replaceFlushPolicy(FlushPolicy.immediate()));
+        PennaLogger logger = cache.getOrCreate("templated.\"Service\"");
+        logger.warn("before");
+
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.MESSAGE, LogField.LEVEL, LogField.LOGGER_NAME)
+                .replaceFlushPolicy(FlushPolicy.immediate()));
+        logger.info("after");
+
+        var lines = main.toString().lines().toList();
+        Assertions.assertEquals(2, lines.size());
+        var before = om.readValue(lines.get(0), LogMessage.class);
+        Assertions.assertEquals("WARN", before.level());
+        Assertions.assertEquals("templated.\"Service\"", before.logger());
+        Assertions.assertEquals(
+                "{\"message\":\"after\",\"level\":\"INFO\",\"logger\":\"templated.\\\"Service\\\"\"}",
+                lines.get(1));
+    }
+
+    record Money(long cents, String currency) {}
+
+    record Broken() {
+        @Override
+        public String toString() {
+            return "broken";
+        }
+    }
+
+    @Test
+    void values_are_written_through_the_registered_serializers() throws IOException {
+        SinkController.registerSerializer(Money.class, (money, writer) -> writer.beginObject()
+                .name("cents").value(money.cents())
+                .name("currency").value(money.currency())
+                .endObject());
+        SinkController.registerSerializer(Broken.class, (broken, writer) -> {
+            writer.beginObject().name("partial");
+            throw new IllegalStateException("Can't serialize");
+        });
+
+        var main = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.KEY_VALUE_PAIRS)
+                .replaceFlushPolicy(FlushPolicy.immediate()));
+        PennaLogger logger = cache.getOrCreate("serializers");
+        logger.atInfo()
+                .addKeyValue("price", new Money(1050, "EUR"))
+                .addKeyValue("tags", new TreeSet<>(Set.of("b", "a")))
+                .addKeyValue("maybe", Optional.of(new Money(1, "\"X\"")))
+                .addKeyValue("nothing", Optional.empty())
+                .addKeyValue("ids", new int[]{1, 2})
+                .addKeyValue("ratios", new float[]{0.1f})
+                .addKeyValue("at", Instant.ofEpochSecond(0))
+                .addKeyValue("broken", new Broken())
+                .log("Priced");
+
+        Assertions.assertEquals(
+                "{\"data\":{\"price\":{\"cents\":1050,\"currency\":\"EUR\"},\"tags\":[\"a\",\"b\"],"
+                        + "\"maybe\":{\"cents\":1,\"currency\":\"\\\"X\\\"\"},\"nothing\":null,\"ids\":[1,2],"
+                        + "\"ratios\":[0.1],\"at\":\"1970-01-01T00:00:00Z\",\"broken\":\"broken\"}}",
+                main.toString().strip());
+    }
+
+    record Dimensions(int width, double ratio, boolean visible, char unit, float scale) {}
+
+    record Shape(String name, Dimensions dimensions, List<Integer> points, Money price) {}
+
+    @Test
+    void records_are_written_as_objects() throws IOException {
+        var main = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.KEY_VALUE_PAIRS)
+                .replaceFlushPolicy(FlushPolicy.immediate()));
+        PennaLogger logger = cache.getOrCreate("records");
+        logger.atInfo()
+                .addKeyValue("shape", new Shape("\"box\"", new Dimensions(3, 0.5, true, 'm', 1.5f), List.of(1, 2), null))
+                .log("Drawn");
+
+        Assertions.assertEquals(
+                "{\"data\":{\"shape\":{\"name\":\"\\\"box\\\"\",\"dimensions\":{\"width\":3,\"ratio\":0.5,"
+                        + "\"visible\":true,\"unit\":\"m\",\"scale\":1.5},\"points\":[1,2],\"price\":null}}}",
+                main.toString().strip());
+    }
+
+    @Test
+    void primitive_key_values_are_written_in_order() throws IOException {
+        var main = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.KEY_VALUE_PAIRS)
+                .replaceFlushPolicy(FlushPolicy.immediate()));
+        PennaLogger logger = cache.getOrCreate("primitives");
+        var builder = PennaEventBuilder.of(logger.atInfo());
+        builder.addKeyValue("path", "/api")
+                .addKeyValue("status", 200)
+                .addKeyValue("latency", 12.5)
+                .addKeyValue("cached", false)
+                .addText("user", new StringBuilder("\"root\""));
+        for (int i = 0; i < 10; i++) {
+            builder.addKeyValue("k" + i, i);
+        }
+        builder.addKeyValue("last", (Object) null);
+
+        var event = ((LogUnitContext) builder).logEvent();
+        Assertions.assertEquals(16, event.getKeyValuePairs().size());
+        Assertions.assertEquals(200L, event.getKeyValuePairs().get(1).value);
+        Assertions.assertEquals("last", event.getKeyValuePairs().get(15).key);
+        builder.log("Served");
+
+        Assertions.assertEquals(
+                "{\"data\":{\"path\":\"/api\",\"status\":200,\"latency\":12.5,\"cached\":false,"
+                        + "\"user\":\"\\\"root\\\"\",\"k0\":0,\"k1\":1,\"k2\":2,\"k3\":3,\"k4\":4,\"k5\":5,"
+                        + "\"k6\":6,\"k7\":7,\"k8\":8,\"k9\":9,\"last\":null}}",
+                main.toString().strip());
+    }
+
+    @Test
+    void copied_events_keep_all_their_key_values() throws IOException {
+        var main = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.KEY_VALUE_PAIRS)
+                .replaceFlushPolicy(FlushPolicy.immediate()));
+        PennaLogger logger = cache.getOrCreate("copied");
+
+        var event = new PennaLogEvent();
+        event.level = Level.INFO;
+        event.message = "Copied";
+        var expected = new StringBuilder("{\"data\":{");
+        for (int i = 0; i < 20; i++) {
+            event.addKeyValue("k" + i, PennaLogEvent.LONG, i, null);
+            expected.append("\"k").append(i).append("\":").append(i).append(',');
+        }
+        event.addKeyValue("text", PennaLogEvent.TEXT, 0, new StringBuilder("sb"));
+        event.addKeyValue("object", List.of(1));
+        expected.append("\"text\":\"sb\",\"object\":[1]}}");
+        logger.log(event);
+
+        Assertions.assertEquals(22, event.getKeyValuePairs().size());
+        Assertions.assertEquals(19L, event.getKeyValuePairs().get(19).value);
+        Assertions.assertEquals(expected.toString(), main.toString().strip());
+    }
+
+    @Test
+    void maps_and_mdc_keys_are_written_as_valid_json() throws IOException {
+        var main = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.KEY_VALUE_PAIRS, LogField.MDC)
+                .replaceFlushPolicy(FlushPolicy.immediate()));
+        PennaLogger logger = cache.getOrCreate("maps");
+        var map = new LinkedHashMap<String, Object>();
+        map.put("count", 1);
+        map.put("\"quoted\"", "value");
+        MDC.put("request\"id", "1234");
+        try {
+            for (int i = 0; i < 3; i++) {
+                logger.atInfo().addKeyValue("map", map).log("Mapped");
+            }
+        } finally {
+            MDC.remove("request\"id");
+        }
+
+        var expected = "{\"data\":{\"map\":{\"count\":1,\"\\\"quoted\\\"\":\"value\"}},"
+                + "\"mdc\":{\"request\\\"id\":\"1234\"}}";
+        Assertions.assertEquals(List.of(expected, expected, expected), main.toString().lines().toList());
+    }
+
+    record Samples(List<Integer> values) {}
+
+    @Test
+    void fields_are_truncated_at_the_configured_limits() throws IOException {
+        var main = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(main);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.MESSAGE, LogField.KEY_VALUE_PAIRS)
+                .replaceLimits(new Limits(16, 8, 2, 2))
+                .replaceFlushPolicy(FlushPolicy.immediate()));
+        PennaLogger logger = cache.getOrCreate("limits");
+        var map = new LinkedHashMap<String, Object>();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+
+        logger.atInfo()
+                .addKeyValue("text", "abcdefghij")
+                .addKeyValue("list", List.of(1, 2, 3, 4))
+                .addKeyValue("map", map)
+                .addKeyValue("nested", List.of(List.of(List.of(1))))
+                .addKeyValue("set", new TreeSet<>(List.of(1, 2, 3)))
+                .addKeyValue("record", new Samples(List.of(1, 2, 3)))
+                .log("message {}", "y".repeat(100));
+
+        var elided = "\"…(truncated 1 elements)\"";
+        Assertions.assertEquals("{\"message\":\"message yyyyyyyy…(truncated 92 bytes)\",\"data\":{"
+                + "\"text\":\"abcdefgh…(truncated 2 bytes)\","
+                + "\"list\":[1,2,\"…(truncated 2 elements)\"],"
+                + "\"map\":{\"a\":1,\"b\":2,\"…\":" + elided + "},"
+                + "\"nested\":[[\"…(truncated depth)\"]],"
+                + "\"set\":[1,2," + elided + "],"
+                + "\"record\":{\"values\":[1,2," + elided + "]}}}", main.toString().strip());
+        Assertions.assertDoesNotThrow(() -> om.readTree(main.toString()));
+    }
+
+    @Test
+    void other_builders_are_adapted() {
+        Assertions.assertDoesNotThrow(() -> PennaEventBuilder.of(NOPLoggingEventBuilder.singleton())
+                .addKeyValue("status", 200)
+                .addKeyValue("cached", true)
+                .log("Ignored"));
+    }
+
+    @Test
+    void messages_too_large_for_the_buffer_are_dropped_whole() {
+        var output = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(output);
+        TestContextPoolManager.replace(() -> new CoreSink(channel));
+
+        var cache = new LoggerStorage();
+        cache.replaceConfig(Config.getDefault()
+                .replaceFields(LogField.MESSAGE, LogField.KEY_VALUE_PAIRS)
+                .replaceLimits(Limits.unbounded())
+                .replaceFlushPolicy(FlushPolicy.everyBytes(1024 * 1024)));
+        PennaLogger logger = cache.getOrCreate("huge.payload");
+
+        logger.info("held back before");
+        // Grows past the maximum size of the buffer one element at a time
+        logger.atInfo().addKeyValue("items", Collections.nCopies(80_000, "x".repeat(1024))).log("dropped");
+        logger.error("written after");
+
+        var lines = output.toString().lines().toList();
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).contains("held back before"));
+        Assertions.assertTrue(lines.get(1).contains("written after"));
+        for (var line : lines) {
+            Assertions.assertDoesNotThrow(() -> om.readTree(line));
+        }
+    }
+
+    @Test
+    void large_messages_do_not_pin_off_heap_memory() {
+        var written = new AtomicLong();
+        WritableByteChannel discard = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                var size = src.remaining();
+                src.position(src.limit());
+                written.addAndGet(size);
+                return size;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {}
+        };
+        TestContextPoolManager.replace(() -> new CoreSink(discard));
+
+        var cache = new LoggerStorage();
+        // Truncation would keep the message from growing the buffer at all
+        cache.replaceConfig(Config.getDefault().replaceLimits(Limits.unbounded()));
+        PennaLogger logger = cache.getOrCreate("large.payload");
+        logger.info("warm up");
+        var baseline = DirectBuffers.footprint();
+
+        var payload = "x".repeat(10 * 1024 * 1024);
+        logger.info("payload: {}", payload);
+
+        Assertions.assertTrue(written.get() > payload.length());
+        Assertions.assertEquals(baseline, DirectBuffers.footprint());
+    }
 }
@@ -0,0 +1,114 @@
+package penna.core.sink.framing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import penna.api.models.Config;
+import penna.core.models.LogConfig;
+import penna.core.models.PennaLogEvent;
+import penna.core.sink.CoreSink;
+import penna.core.sink.output.DatagramSocketChannel;
+import penna.core.sink.output.LoopbackServer;
+import penna.core.sink.output.StreamSocketChannel;
+
+import java.net.InetSocketAddress;
+import java.util.regex.Pattern;
+
+class FramingTests {
+    private static final ObjectMapper om = new ObjectMapper();
+
+    // 2023-11-14T22:13:20.042Z
+    private static final long TIMESTAMP = 1_700_000_000_042L;
+
+    private static final Pattern SYSLOG = Pattern.compile(
+            "<(\\d+)>1 (\\S+) (\\S+) (\\S+) (\\d+) - - (\\{.*})"
+    );
+
+    private static PennaLogEvent event(Level level, String message) {
+        var event = new PennaLogEvent();
+        event.reset("penna.test".getBytes(), LogConfig.fromConfig(Config.getDefault()), level, Thread.currentThread());
+        event.message = message;
+        event.timestamp = TIMESTAMP;
+        return event;
+    }
+
+    @Test
+    void sends_syslog_messages_over_tcp() throws Exception {
+        try (var server = LoopbackServer.tcp()) {
+            var sink = new CoreSink(new StreamSocketChannel(server.address()), new Syslog(Syslog.USER, "my app"));
+
+            sink.write(event(Level.INFO, "first"));
+            sink.write(event(Level.WARN, "second"));
+            sink.close();
+
+            var messages = server.messages("\n");
+            Assertions.assertEquals(2, messages.size());
+
+            var first = SYSLOG.matcher(messages.get(0));
+            Assertions.assertTrue(first.matches(), messages.get(0));
+            Assertions.assertEquals("14", first.group(1));
+            Assertions.assertEquals("2023-11-14T22:13:20.042Z", first.group(2));
+            Assertions.assertEquals("my_app", first.group(4));
+            Assertions.assertEquals(String.valueOf(ProcessHandle.current().pid()), first.group(5));
+            var body = om.readTree(first.group(6));
+            Assertions.assertEquals("first", body.get("message").asText());
+            Assertions.assertEquals("INFO", body.get("level").asText());
+
+            var second = SYSLOG.matcher(messages.get(1));
+            Assertions.assertTrue(second.matches(), messages.get(1));
+            Assertions.assertEquals("12", second.group(1));
+            Assertions.assertEquals("second", om.readTree(second.group(6)).get("message").asText());
+        }
+    }
+
+    @Test
+    void sends_gelf_messages_over_udp() throws Exception {
+        try (var server = LoopbackServer.udp()) {
+            var gelf = new Gelf("test-host");
+            var channel = new DatagramSocketChannel((InetSocketAddress) server.address(), gelf.delimiter()[0]);
+            var sink = new CoreSink(channel, gelf);
+
+            sink.write(event(Level.ERROR, "first"));
+            sink.write(event(Level.DEBUG, "second"));
+
+            var datagrams = server.datagrams(2);
+            Assertions.assertEquals(2, datagrams.size());
+
+            JsonNode first = om.readTree(datagrams.get(0));
+            Assertions.assertEquals("1.1", first.get("version").asText());
+            Assertions.assertEquals("test-host", first.get("host").asText());
+            Assertions.assertEquals(1_700_000_000.042, first.get("timestamp").asDouble());
+            Assertions.assertEquals(3, first.get("level").asInt());
+            Assertions.assertEquals("first", first.get("short_message").asText());
+            Assertions.assertEquals("ERROR", first.get("_level").asText());
+            Assertions.assertEquals("penna.test", first.get("_logger").asText());
+            Assertions.assertFalse(first.has("_timestamp"));
+
+            JsonNode second = om.readTree(datagrams.get(1));
+            Assertions.assertEquals(7, second.get("level").asInt());
+            Assertions.assertEquals("second", second.get("short_message").asText());
+            sink.close();
+        }
+    }
+
+    @Test
+    void formats_syslog_timestamps_in_utc() throws Exception {
+        try (var server = LoopbackServer.tcp()) {
+            var sink = new CoreSink(new StreamSocketChannel(server.address()), new Syslog("app"));
+            var beforeEpoch = event(Level.INFO, "before");
+            beforeEpoch.timestamp = -1L;
+            var leapDay = event(Level.INFO, "leap");
+            leapDay.timestamp = 951_868_799_999L;
+
+            sink.write(beforeEpoch);
+            sink.write(leapDay);
+            sink.close();
+
+            var messages = server.messages("\n");
+            Assertions.assertTrue(messages.get(0).contains(" 1969-12-31T23:59:59.999Z "), messages.get(0));
+            Assertions.assertTrue(messages.get(1).contains(" 2000-02-29T23:59:59.999Z "), messages.get(1));
+        }
+    }
+}
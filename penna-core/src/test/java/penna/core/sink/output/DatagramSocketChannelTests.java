@@ -0,0 +1,101 @@
+package penna.core.sink.output;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class DatagramSocketChannelTests {
+
+    private static ByteBuffer bytes(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void sends_one_datagram_per_message() throws Exception {
+        try (var server = LoopbackServer.udp()) {
+            var channel = new DatagramSocketChannel((InetSocketAddress) server.address(), (byte) '\n');
+
+            // Multiple messages batched in a single write
+            channel.write(bytes("message-0\nmessage-1\nmessage-2\n"));
+
+            Assertions.assertEquals(List.of("message-0", "message-1", "message-2"), server.datagrams(3));
+            Assertions.assertEquals(3, channel.sent());
+            channel.close();
+        }
+    }
+
+    @Test
+    void messages_can_span_multiple_writes() throws Exception {
+        try (var server = LoopbackServer.udp()) {
+            var channel = new DatagramSocketChannel((InetSocketAddress) server.address(), (byte) 0);
+
+            channel.write(bytes("split-"));
+            channel.write(new ByteBuffer[]{bytes("across-"), bytes("writes\0next"), bytes("\0")});
+
+            Assertions.assertEquals(List.of("split-across-writes", "next"), server.datagrams(2));
+            channel.close();
+        }
+    }
+
+    @Test
+    void drops_messages_larger_than_a_datagram() throws Exception {
+        try (var server = LoopbackServer.udp()) {
+            var channel = new DatagramSocketChannel((InetSocketAddress) server.address(), (byte) '\n', 16);
+
+            channel.write(bytes("small\n" + "x".repeat(32) + "\n"));
+            Assertions.assertEquals(1, channel.dropped());
+
+            channel.write(bytes("after\n"));
+            Assertions.assertEquals(0, channel.dropped());
+
+            Assertions.assertEquals(List.of("small", "after"), server.datagrams(2));
+            channel.close();
+        }
+    }
+
+    @Test
+    void sends_from_multiple_threads_without_mixing_messages() throws Exception {
+        try (var server = LoopbackServer.udp()) {
+            var channel = new DatagramSocketChannel((InetSocketAddress) server.address(), (byte) '\n');
+            int producers = 4;
+            int messages = 50;
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < messages; i++) {
+                        try {
+                            channel.write(new ByteBuffer[]{bytes("producer-" + producer), bytes("-message-" + i + "\n")});
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }));
+            }
+            for (var thread : threads) {
+                thread.join();
+            }
+
+            for (var datagram : server.datagrams(producers * messages)) {
+                Assertions.assertTrue(datagram.matches("producer-\\d+-message-\\d+"), datagram);
+            }
+            channel.close();
+        }
+    }
+
+    @Test
+    void rejects_writes_after_being_closed() throws IOException {
+        var channel = new DatagramSocketChannel(new InetSocketAddress("localhost", 514), (byte) '\n');
+        channel.close();
+
+        Assertions.assertFalse(channel.isOpen());
+        Assertions.assertThrows(IOException.class, () -> channel.write(bytes("too late\n")));
+    }
+}
@@ -0,0 +1,137 @@
+package penna.core.sink.output;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+class GzipFileChannelTests {
+
+    private Path directory;
+
+    @BeforeEach
+    void prep() throws IOException {
+        directory = Files.createTempDirectory("gzip");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static ByteBuffer line(String content) {
+        return ByteBuffer.wrap((content + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> decompress(InputStream compressed) throws IOException {
+        try (var gzip = new GZIPInputStream(compressed)) {
+            return Arrays.asList(new String(gzip.readAllBytes(), StandardCharsets.UTF_8).split("\n"));
+        }
+    }
+
+    private static List<String> decompress(Path segment) throws IOException {
+        return decompress(Files.newInputStream(segment));
+    }
+
+    @Test
+    void writes_a_valid_gzip_file() throws IOException {
+        var channel = new GzipFileChannel(directory, "app", 1024 * 1024);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            var content = "{\"level\":\"INFO\",\"message\":\"message-" + i + "\"}";
+            expected.add(content);
+            channel.write(line(content));
+        }
+        channel.close();
+
+        Assertions.assertEquals(expected, decompress(channel.segmentPath(0)));
+        Assertions.assertFalse(Files.exists(channel.segmentPath(1)));
+    }
+
+    @Test
+    void each_segment_is_an_independent_gzip_member() throws IOException {
+        // Level 0 stores the data as is, so the segments roll over at a predictable pace
+        var channel = new GzipFileChannel(directory, "app", 16 * 1024, Duration.ZERO, Deflater.NO_COMPRESSION);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            var content = "message-" + i;
+            expected.add(content);
+            channel.write(line(content));
+        }
+        channel.close();
+
+        var concatenated = new ByteArrayOutputStream();
+        List<String> fromSegments = new ArrayList<>();
+        int segment = 0;
+        for (; Files.exists(channel.segmentPath(segment)); segment++) {
+            fromSegments.addAll(decompress(channel.segmentPath(segment)));
+            concatenated.write(Files.readAllBytes(channel.segmentPath(segment)));
+        }
+
+        Assertions.assertTrue(segment > 1, "Expected multiple segments, got " + segment);
+        Assertions.assertEquals(expected, fromSegments);
+        Assertions.assertEquals(expected, decompress(new ByteArrayInputStream(concatenated.toByteArray())));
+    }
+
+    @Test
+    void compresses_in_the_background_behind_a_ring() throws Exception {
+        var ring = new RingBufferChannel(new GzipFileChannel(directory, "app", 1024 * 1024), 1024);
+        int producers = 4;
+        int messages = 1_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < messages; i++) {
+                    try {
+                        ring.write(line("producer-" + producer + "-message-" + i));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        ring.close();
+
+        var lines = decompress(directory.resolve("app.0.log.gz"));
+        Assertions.assertEquals(producers * messages, lines.size());
+        for (var line : lines) {
+            Assertions.assertTrue(line.matches("producer-\\d+-message-\\d+"), line);
+        }
+    }
+
+    @Test
+    void rejects_writes_after_being_closed() throws IOException {
+        var channel = new GzipFileChannel(directory, "app", 1024);
+        channel.close();
+
+        Assertions.assertFalse(channel.isOpen());
+        Assertions.assertThrows(IOException.class, () -> channel.write(line("too late")));
+    }
+}
@@ -0,0 +1,147 @@
+package penna.core.sink.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for the log collectors (a sidecar, a syslog or a GELF server) that the network outputs write to.
+ * <br />
+ * Stream servers accept a single connection and collect everything sent through it; datagram servers collect
+ * each datagram as a separate message. Servers can be created on hold, in which case nothing is read until they are
+ * released, to simulate a peer that isn't keeping up.
+ */
+public final class LoopbackServer implements AutoCloseable {
+    private final NetworkChannel server;
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private final List<String> datagrams = new ArrayList<>();
+    private final CountDownLatch gate;
+    private final Thread reader;
+
+    private LoopbackServer(ServerSocketChannel server, boolean onHold) {
+        this.server = server;
+        this.gate = new CountDownLatch(onHold ? 1 : 0);
+        this.reader = Thread.ofPlatform().start(() -> {
+            try (var connection = server.accept()) {
+                gate.await();
+                var buffer = ByteBuffer.allocate(64 * 1024);
+                while (connection.read(buffer) >= 0) {
+                    buffer.flip();
+                    synchronized (received) {
+                        received.write(buffer.array(), 0, buffer.limit());
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException | InterruptedException ignored) {
+                // The test is done with this server
+            }
+        });
+    }
+
+    private LoopbackServer(DatagramChannel server) {
+        this.server = server;
+        this.gate = new CountDownLatch(0);
+        this.reader = Thread.ofPlatform().start(() -> {
+            var buffer = ByteBuffer.allocate(65_536);
+            try {
+                while (server.receive(buffer) != null) {
+                    buffer.flip();
+                    synchronized (datagrams) {
+                        datagrams.add(StandardCharsets.UTF_8.decode(buffer).toString());
+                        datagrams.notifyAll();
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException ignored) {
+                // The test is done with this server
+            }
+        });
+    }
+
+    public static LoopbackServer unix(Path path) throws IOException {
+        var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(path));
+        return new LoopbackServer(server, false);
+    }
+
+    public static LoopbackServer tcp() throws IOException {
+        return tcp(false);
+    }
+
+    public static LoopbackServer tcp(boolean onHold) throws IOException {
+        var server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return new LoopbackServer(server, onHold);
+    }
+
+    public static LoopbackServer udp() throws IOException {
+        var server = DatagramChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return new LoopbackServer(server);
+    }
+
+    public SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Starts reading from the connection, if the server was created on hold.
+     */
+    public void release() {
+        gate.countDown();
+    }
+
+    /**
+     * Waits for the writer to close the connection and splits everything that was received.
+     *
+     * @param delimiter the delimiter in between the messages.
+     * @return the messages received.
+     * @throws InterruptedException if interrupted while waiting for the connection to be closed.
+     */
+    public List<String> messages(String delimiter) throws InterruptedException {
+        reader.join(Duration.ofSeconds(5));
+        synchronized (received) {
+            return Arrays.asList(received.toString(StandardCharsets.UTF_8).split(delimiter));
+        }
+    }
+
+    /**
+     * Waits for a number of datagrams to arrive.
+     *
+     * @param count the amount of datagrams expected.
+     * @return the datagrams received, which can be fewer than expected if they didn't arrive in time.
+     * @throws InterruptedException if interrupted while waiting for the datagrams.
+     */
+    public List<String> datagrams(int count) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        synchronized (datagrams) {
+            long left;
+            while (datagrams.size() < count && (left = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(datagrams, left);
+            }
+            return List.copyOf(datagrams);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+        server.close();
+    }
+}
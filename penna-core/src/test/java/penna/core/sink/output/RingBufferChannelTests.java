@@ -0,0 +1,245 @@
+package penna.core.sink.output;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import penna.core.internals.DirectBuffers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+class RingBufferChannelTests {
+
+    /**
+     * Accepts at most a handful of bytes per write, forcing the writer to deal with partial writes.
+     * Optionally, each write is also throttled, so the writer can't keep up with the producers.
+     */
+    static final class TrickleChannel implements WritableByteChannel {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final int maxChunk;
+        final long pauseNanos;
+
+        TrickleChannel(int maxChunk) {
+            this(maxChunk, 0);
+        }
+
+        TrickleChannel(int maxChunk, long pauseNanos) {
+            this.maxChunk = maxChunk;
+            this.pauseNanos = pauseNanos;
+        }
+
+        @Override
+        public synchronized int write(ByteBuffer src) {
+            if (pauseNanos > 0) {
+                LockSupport.parkNanos(pauseNanos);
+            }
+            int size = Math.min(maxChunk, src.remaining());
+            byte[] chunk = new byte[size];
+            src.get(chunk);
+            received.write(chunk, 0, size);
+            return size;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+
+        synchronized List<String> lines() {
+            return Arrays.asList(received.toString(StandardCharsets.UTF_8).split("\n"));
+        }
+    }
+
+    private static final Pattern PRODUCER_LINE = Pattern.compile("producer-(\\d+)-message-(\\d+)");
+
+    private Path spillDirectory;
+
+    @BeforeEach
+    void prep() throws IOException {
+        spillDirectory = Files.createTempDirectory("spill");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (var files = Files.walk(spillDirectory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static ByteBuffer line(String content) {
+        return ByteBuffer.wrap((content + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void preserves_order_for_a_single_producer() throws IOException {
+        var target = new TrickleChannel(7);
+        var ring = new RingBufferChannel(target, 64);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            var content = "message-" + i;
+            expected.add(content);
+            ring.write(line(content));
+        }
+        ring.close();
+
+        Assertions.assertEquals(expected, target.lines());
+    }
+
+    @Test
+    void messages_larger_than_the_ring_are_written_through() throws IOException {
+        var target = new TrickleChannel(13);
+        var ring = new RingBufferChannel(target, 32);
+
+        var big = "x".repeat(100);
+        ring.write(line("small"));
+        ring.write(line(big));
+        ring.write(line("after"));
+        ring.close();
+
+        Assertions.assertEquals(List.of("small", big, "after"), target.lines());
+    }
+
+    @Test
+    void lines_from_multiple_producers_are_never_mixed() throws Exception {
+        var target = new TrickleChannel(11);
+        var ring = new RingBufferChannel(target, 128);
+        int producers = 8;
+        int messages = 500;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < messages; i++) {
+                    try {
+                        ring.write(line("producer-" + producer + "-message-" + i));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        ring.close();
+
+        var lines = target.lines();
+        Assertions.assertEquals(producers * messages, lines.size());
+        Assertions.assertEquals(producers * messages, new HashSet<>(lines).size());
+        for (var line : lines) {
+            Assertions.assertTrue(line.matches("producer-\\d+-message-\\d+"), line);
+        }
+    }
+
+    @Test
+    void rejects_writes_after_being_closed() throws IOException {
+        var ring = new RingBufferChannel(new TrickleChannel(8), 32);
+        ring.close();
+
+        Assertions.assertFalse(ring.isOpen());
+        Assertions.assertThrows(IOException.class, () -> ring.write(line("too late")));
+    }
+
+    @Test
+    void overflow_is_spilled_and_replayed_in_order() throws IOException {
+        var target = new TrickleChannel(64, TimeUnit.MICROSECONDS.toNanos(50));
+        var ring = new RingBufferChannel(target, 256, spillDirectory, 1024 * 1024);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            var content = "message-" + i;
+            expected.add(content);
+            ring.write(line(content));
+        }
+        Assertions.assertTrue(ring.spilledBytes() > 0);
+        ring.close();
+
+        Assertions.assertEquals(expected, target.lines());
+        Assertions.assertEquals(0, ring.spillPending());
+        Assertions.assertEquals(0, ring.replayLagNanos());
+        Assertions.assertEquals(ring.spilledBytes(), ring.replayedBytes());
+    }
+
+    @Test
+    void no_message_is_lost_or_reordered_under_a_throttled_channel() throws Exception {
+        var target = new TrickleChannel(512, TimeUnit.MICROSECONDS.toNanos(20));
+        // The spill file is too small for the whole burst, so producers also wait for it to be replayed
+        var ring = new RingBufferChannel(target, 1024, spillDirectory, 16 * 1024);
+        int producers = 8;
+        int messages = 2_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < messages; i++) {
+                    try {
+                        ring.write(line("producer-" + producer + "-message-" + i));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        ring.close();
+
+        var lines = target.lines();
+        Assertions.assertEquals(producers * messages, lines.size());
+        var next = new int[producers];
+        for (var line : lines) {
+            var matcher = PRODUCER_LINE.matcher(line);
+            Assertions.assertTrue(matcher.matches(), line);
+            int producer = Integer.parseInt(matcher.group(1));
+            Assertions.assertEquals(next[producer]++, Integer.parseInt(matcher.group(2)), line);
+        }
+        Assertions.assertTrue(ring.spilledBytes() > 0);
+        Assertions.assertEquals(ring.spilledBytes(), ring.replayedBytes());
+    }
+
+    @Test
+    void spill_file_is_removed_once_closed() throws IOException {
+        var ring = new RingBufferChannel(new TrickleChannel(8), 32, spillDirectory, 1024);
+        for (int i = 0; i < 100; i++) {
+            ring.write(line("message-" + i));
+        }
+        ring.close();
+        try (var files = Files.list(spillDirectory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void spill_file_mapping_is_accounted_until_closed() throws IOException {
+        long before = DirectBuffers.footprint();
+        var ring = new RingBufferChannel(new TrickleChannel(8), 32, spillDirectory, 1024);
+        Assertions.assertEquals(before + 32 + 1024, DirectBuffers.footprint());
+
+        ring.write(line("message"));
+        ring.close();
+        Assertions.assertEquals(before, DirectBuffers.footprint());
+    }
+}
@@ -0,0 +1,127 @@
+package penna.core.sink.output;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+class RollingFileChannelTests {
+
+    private Path directory;
+
+    @BeforeEach
+    void prep() throws IOException {
+        directory = Files.createTempDirectory("rolling");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static ByteBuffer line(String content) {
+        return ByteBuffer.wrap((content + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> lines(Path segment) throws IOException {
+        return Files.readAllLines(segment, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void rolls_by_size_and_truncates_the_segments() throws IOException {
+        var channel = new RollingFileChannel(directory, "app", 32);
+
+        channel.write(line("message-0")); // 10 bytes
+        channel.write(line("message-1"));
+        channel.write(line("message-2"));
+        channel.write(line("message-3")); // Doesn't fit in the first segment
+        channel.close();
+
+        Assertions.assertEquals(30, Files.size(channel.segmentPath(0)));
+        Assertions.assertEquals(List.of("message-0", "message-1", "message-2"), lines(channel.segmentPath(0)));
+        Assertions.assertEquals(10, Files.size(channel.segmentPath(1)));
+        Assertions.assertEquals(List.of("message-3"), lines(channel.segmentPath(1)));
+    }
+
+    @Test
+    void rolls_by_time() throws IOException {
+        var channel = new RollingFileChannel(directory, "app", 1024, Duration.ofMillis(10));
+
+        channel.write(line("before"));
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+        channel.write(line("after"));
+        channel.close();
+
+        Assertions.assertEquals(List.of("before"), lines(channel.segmentPath(0)));
+        Assertions.assertEquals(List.of("after"), lines(channel.segmentPath(1)));
+    }
+
+    @Test
+    void messages_larger_than_a_segment_get_their_own_segment() throws IOException {
+        var channel = new RollingFileChannel(directory, "app", 16);
+        var big = "x".repeat(100);
+
+        channel.write(line("small"));
+        channel.write(line(big));
+        channel.write(line("after"));
+        channel.close();
+
+        Assertions.assertEquals(List.of("small"), lines(channel.segmentPath(0)));
+        Assertions.assertEquals(List.of(big), lines(channel.segmentPath(1)));
+        Assertions.assertEquals(List.of("after"), lines(channel.segmentPath(2)));
+    }
+
+    @Test
+    void gathered_buffers_are_written_to_the_same_segment() throws IOException {
+        var channel = new RollingFileChannel(directory, "app", 32);
+
+        channel.write(line("message-0"));
+        channel.write(new ByteBuffer[]{
+                ByteBuffer.wrap("split-".getBytes(StandardCharsets.UTF_8)),
+                line("across-the-buffers")
+        });
+        channel.close();
+
+        Assertions.assertEquals(List.of("message-0"), lines(channel.segmentPath(0)));
+        Assertions.assertEquals(List.of("split-across-the-buffers"), lines(channel.segmentPath(1)));
+    }
+
+    @Test
+    void continues_numbering_from_existing_segments() throws IOException {
+        var first = new RollingFileChannel(directory, "app", 1024);
+        first.write(line("first run"));
+        first.close();
+
+        var second = new RollingFileChannel(directory, "app", 1024);
+        second.write(line("second run"));
+        second.close();
+
+        Assertions.assertEquals(second.segmentPath(1), second.currentSegment());
+        Assertions.assertEquals(List.of("first run"), lines(first.segmentPath(0)));
+        Assertions.assertEquals(List.of("second run"), lines(second.segmentPath(1)));
+    }
+
+    @Test
+    void rejects_writes_after_being_closed() throws IOException {
+        var channel = new RollingFileChannel(directory, "app", 1024);
+        channel.close();
+
+        Assertions.assertFalse(channel.isOpen());
+        Assertions.assertThrows(IOException.class, () -> channel.write(line("too late")));
+    }
+}
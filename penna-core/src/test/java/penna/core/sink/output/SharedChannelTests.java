@@ -0,0 +1,193 @@
+package penna.core.sink.output;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+class SharedChannelTests {
+
+    /**
+     * Records everything written and how many calls were made, taking a while on every call so
+     * concurrent writers pile up behind the leader.
+     */
+    static final class RecordingChannel implements GatheringByteChannel {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        int calls;
+
+        @Override
+        public synchronized long write(ByteBuffer[] srcs, int offset, int length) {
+            calls++;
+            LockSupport.parkNanos(50_000);
+            long size = 0;
+            for (int i = offset; i < offset + length; i++) {
+                byte[] chunk = new byte[srcs[i].remaining()];
+                srcs[i].get(chunk);
+                received.write(chunk, 0, chunk.length);
+                size += chunk.length;
+            }
+            return size;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src}, 0, 1);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    @Test
+    void batches_concurrent_writes_without_mixing_lines() throws Exception {
+        var target = new RecordingChannel();
+        var shared = new SharedChannel(target);
+        int writers = 16;
+        int messages = 200;
+        var start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(Thread.ofPlatform().start(() -> {
+                // Each writer reuses its buffer, just like the pooled DirectJson instances do.
+                var buffer = ByteBuffer.allocateDirect(64);
+                try {
+                    start.await();
+                    for (int i = 0; i < messages; i++) {
+                        buffer.put(("writer-" + writer + "-message-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                        buffer.flip();
+                        shared.write(buffer);
+                        buffer.clear();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        var lines = target.received.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(writers * messages, lines.length);
+        Assertions.assertEquals(writers * messages, new HashSet<>(List.of(lines)).size());
+        for (var line : lines) {
+            Assertions.assertTrue(line.matches("writer-\\d+-message-\\d+"), line);
+        }
+        Assertions.assertTrue(target.calls < writers * messages, "Expected writes to be batched, got " + target.calls + " calls");
+    }
+
+    @Test
+    void gathered_buffers_are_written_together() throws IOException {
+        var target = new RecordingChannel();
+        var shared = new SharedChannel(target);
+
+        var buffers = new ByteBuffer[100];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(("part-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        shared.write(buffers);
+
+        Assertions.assertEquals(1, target.calls);
+        Assertions.assertEquals(100, target.received.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    /**
+     * Holds the first batch until released, so the next writers pile up behind it, and fails every later batch.
+     */
+    static final class BrokenAfterFirstBatch implements GatheringByteChannel {
+        final RecordingChannel recorded = new RecordingChannel();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean started;
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (started) {
+                throw new IOException("Broken pipe");
+            }
+            started = true;
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return recorded.write(srcs, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return (int) write(new ByteBuffer[]{src}, 0, 1);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    @Test
+    void every_writer_in_a_failed_batch_gets_the_error() throws Exception {
+        var target = new BrokenAfterFirstBatch();
+        var shared = new SharedChannel(target);
+        var failures = new AtomicInteger();
+        Runnable writer = () -> {
+            try {
+                shared.write(ByteBuffer.wrap("message\n".getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                failures.incrementAndGet();
+            }
+        };
+
+        var leader = Thread.ofPlatform().start(writer);
+        while (!target.started) {
+            Thread.onSpinWait();
+        }
+        List<Thread> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            followers.add(Thread.ofPlatform().start(writer));
+        }
+        for (var follower : followers) {
+            while (follower.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+        }
+        target.release.countDown();
+        leader.join();
+        for (var follower : followers) {
+            follower.join();
+        }
+
+        Assertions.assertEquals("message\n", target.recorded.received.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(4, failures.get());
+    }
+}
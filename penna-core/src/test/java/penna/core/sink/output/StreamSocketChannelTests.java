@@ -0,0 +1,166 @@
+package penna.core.sink.output;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+class StreamSocketChannelTests {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+
+    private Path directory;
+    private Path socket;
+
+    @BeforeEach
+    void prep() throws IOException {
+        directory = Files.createTempDirectory("socket");
+        socket = directory.resolve("shipper.sock");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static ByteBuffer line(String content) {
+        return ByteBuffer.wrap((content + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writes_to_the_peer() throws Exception {
+        try (var peer = LoopbackServer.unix(socket)) {
+            var channel = new StreamSocketChannel(socket);
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                var content = "message-" + i;
+                expected.add(content);
+                channel.write(line(content));
+            }
+            channel.close();
+
+            Assertions.assertEquals(expected, peer.messages("\n"));
+        }
+    }
+
+    @Test
+    void keeps_a_backlog_while_the_peer_is_down() throws Exception {
+        var channel = new StreamSocketChannel(UnixDomainSocketAddress.of(socket), 1024, Duration.ZERO, TIMEOUT);
+
+        channel.write(line("before-0"));
+        channel.write(line("before-1"));
+        Assertions.assertEquals(18, channel.backlogged());
+
+        try (var peer = LoopbackServer.unix(socket)) {
+            channel.write(line("after"));
+            Assertions.assertEquals(0, channel.backlogged());
+            channel.close();
+
+            Assertions.assertEquals(List.of("before-0", "before-1", "after"), peer.messages("\n"));
+        }
+    }
+
+    @Test
+    void drops_messages_once_the_backlog_is_full() throws Exception {
+        var channel = new StreamSocketChannel(UnixDomainSocketAddress.of(socket), 32, Duration.ZERO, TIMEOUT);
+
+        channel.write(line("message-0")); // 10 bytes
+        channel.write(line("message-1"));
+        channel.write(line("message-2"));
+        channel.write(line("message-3")); // Doesn't fit in the backlog
+        Assertions.assertEquals(30, channel.backlogged());
+        Assertions.assertEquals(10, channel.dropped());
+
+        try (var peer = LoopbackServer.unix(socket)) {
+            channel.write(line("message-4"));
+            channel.close();
+
+            Assertions.assertEquals(0, channel.dropped());
+            Assertions.assertEquals(List.of("message-0", "message-1", "message-2", "message-4"), peer.messages("\n"));
+        }
+    }
+
+    @Test
+    void backs_off_in_between_connection_attempts() throws Exception {
+        var channel = new StreamSocketChannel(UnixDomainSocketAddress.of(socket), 1024, Duration.ofHours(1), TIMEOUT);
+
+        channel.write(line("before"));
+        try (var peer = LoopbackServer.unix(socket)) {
+            // The peer is up, but the channel won't try again for a while
+            channel.write(line("after"));
+            Assertions.assertEquals(13, channel.backlogged());
+
+            // Closing makes a last attempt at writing the backlog
+            channel.close();
+            Assertions.assertEquals(List.of("before", "after"), peer.messages("\n"));
+        }
+    }
+
+    @Test
+    void writes_to_a_tcp_peer() throws Exception {
+        try (var peer = LoopbackServer.tcp()) {
+            var channel = new StreamSocketChannel(peer.address());
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                var content = "message-" + i;
+                expected.add(content);
+                channel.write(new ByteBuffer[]{
+                        ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)),
+                        ByteBuffer.wrap(new byte[]{'\n'})
+                });
+            }
+            channel.close();
+
+            Assertions.assertEquals(expected, peer.messages("\n"));
+        }
+    }
+
+    @Test
+    void resumes_partial_writes_when_the_peer_is_slow() throws Exception {
+        try (var peer = LoopbackServer.tcp(true)) {
+            var channel = new StreamSocketChannel(peer.address(), 64 * 1024 * 1024, Duration.ZERO, Duration.ofMillis(50));
+
+            // Enough to fill the socket buffers while the peer isn't reading
+            var payload = "x".repeat(1024 * 1024);
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                var content = i + "-" + payload;
+                expected.add(content);
+                channel.write(line(content));
+            }
+            Assertions.assertTrue(channel.backlogged() > 0, "Expected the writes to time out");
+
+            peer.release();
+            channel.close();
+
+            Assertions.assertEquals(0, channel.dropped());
+            Assertions.assertEquals(expected, peer.messages("\n"));
+        }
+    }
+
+    @Test
+    void rejects_writes_after_being_closed() throws IOException {
+        var channel = new StreamSocketChannel(socket);
+        channel.close();
+
+        Assertions.assertFalse(channel.isOpen());
+        Assertions.assertThrows(IOException.class, () -> channel.write(line("too late")));
+    }
+}
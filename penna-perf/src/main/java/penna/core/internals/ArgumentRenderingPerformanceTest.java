@@ -0,0 +1,93 @@
+package penna.core.internals;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import penna.core.logger.utils.RunnerOptions;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing placeholder arguments straight into the buffer against going through their
+ * {@link Object#toString()}, for the types most commonly logged.
+ * <br />
+ * The allocation figures come from the gc profiler: {@code gc.alloc.rate.norm} is expected to be zero bytes per
+ * operation for {@code specialized} with any argument.
+ */
+public class ArgumentRenderingPerformanceTest {
+
+    public enum Argument {
+        Long(1_234_567_890_123L),
+        Integer(42),
+        Double(15.375),
+        Uuid(new UUID(0x0123456789abcdefL, 0xfedcba9876543210L)),
+        Enum(TimeUnit.MILLISECONDS),
+        Builder(new StringBuilder("user=").append(1234).append(" region=eu-west-1"));
+
+        final Object value;
+
+        Argument(Object value) {
+            this.value = value;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        @Param
+        Argument argument;
+
+        DirectJson json;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            json = new DirectJson(new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) {
+                    var size = src.remaining();
+                    bh.consume(src);
+                    src.position(src.limit());
+                    return size;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {}
+            });
+        }
+
+        @TearDown
+        public void tearDown() {
+            json.release();
+        }
+    }
+
+    @Benchmark
+    public int specialized(TestState state) {
+        state.json.buffer.clear();
+        state.json.writeArgument(state.argument.value);
+        return state.json.buffer.position();
+    }
+
+    @Benchmark
+    public int viaToString(TestState state) {
+        state.json.buffer.clear();
+        state.json.writeRaw(state.argument.value.toString());
+        return state.json.buffer.position();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(ArgumentRenderingPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,88 @@
+package penna.core.internals;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import penna.core.logger.utils.RunnerOptions;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * Compares the shortest-representation double formatting in {@link DoubleToAscii} against the previous
+ * {@link BigDecimal}-based one, on values typical of metrics logged as key/value pairs.
+ */
+public class DoubleFormattingPerformanceTest {
+
+    public enum Values {
+        // Latencies in milliseconds, with a few decimal places
+        Latencies,
+        // Ratios in [0, 1), using all the digits
+        Ratios,
+        // Whole numbers stored in doubles, like counters
+        Counters
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        @Param
+        Values values;
+
+        final double[] samples = new double[1024];
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        final IntToAscii intToAscii = new IntToAscii();
+        final DoubleToAscii doubleToAscii = new DoubleToAscii();
+        int cursor;
+
+        @Setup
+        public void setUp() {
+            var random = new SplittableRandom(42);
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = switch (values) {
+                    case Latencies -> random.nextInt(1_000_000) / 1000.0;
+                    case Ratios -> random.nextDouble();
+                    case Counters -> random.nextInt(1_000_000);
+                };
+            }
+        }
+
+        double next() {
+            return samples[cursor++ & (samples.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public int schubfach(TestState state) {
+        var buffer = state.buffer.clear();
+        state.doubleToAscii.doubleToAscii(state.next(), buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int bigDecimal(TestState state) {
+        var buffer = state.buffer.clear();
+        double number = state.next();
+        if (number < 0) {
+            buffer.put((byte) '-');
+            number = Math.abs(number);
+        }
+        state.intToAscii.longToAscii((long) number, buffer);
+        buffer.put((byte) '.');
+        BigDecimal fractional = BigDecimal.valueOf(number).remainder(BigDecimal.ONE);
+        while (!fractional.equals(BigDecimal.ZERO)) {
+            fractional = fractional.movePointRight(1);
+            buffer.put((byte) (fractional.intValue() + 48));
+            fractional = fractional.remainder(BigDecimal.ONE);
+        }
+        return buffer.position();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(DoubleFormattingPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,108 @@
+package penna.core.internals;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import penna.core.logger.utils.RunnerOptions;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Compares the table-driven, SWAR-based string escaping in {@link DirectJson} against the previous per-character
+ * implementation, on mostly ASCII messages as well as CJK and emoji ones.
+ * <br />
+ * The allocation figures come from the gc profiler: {@code gc.alloc.rate.norm} is expected to be zero bytes per
+ * operation for {@code swar} with any message.
+ */
+public class EscaperPerformanceTest {
+
+    public enum Message {
+        Short("User 1234 logged in from 10.0.0.12"),
+        Long("Request completed: method=GET path=/api/v1/accounts/1234/transactions status=200 duration=15ms "
+                .repeat(12)),
+        Quoted("Unable to parse \"{\\\"id\\\": 1234, \\\"name\\\": \\\"test\\\"}\" at line 1\n\tcolumn 12"
+                .repeat(4)),
+        Cjk("注文 #1234 は正常に処理されました。お客様: 山田太郎、配送先: 東京都渋谷区 「至急」".repeat(4)),
+        Emoji("Deploy finished 🚀🎉 by 👩🏽‍💻 — all checks ✅, rollback plan 🔙 ready ".repeat(4));
+
+        final String text;
+
+        Message(String text) {
+            this.text = text;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        @Param
+        Message message;
+
+        DirectJson json;
+        ByteBuffer legacy;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            json = new DirectJson(new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) {
+                    var size = src.remaining();
+                    bh.consume(src);
+                    src.position(src.limit());
+                    return size;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {}
+            });
+            legacy = ByteBuffer.allocateDirect(64 * 1024);
+        }
+
+        @TearDown
+        public void tearDown() {
+            json.release();
+        }
+    }
+
+    @Benchmark
+    public int swar(TestState state) {
+        state.json.buffer.clear();
+        state.json.writeRaw(state.message.text);
+        return state.json.buffer.position();
+    }
+
+    @Benchmark
+    public int legacy(TestState state) {
+        var buffer = state.legacy.clear();
+        var str = state.message.text;
+        for (int i = 0; i < str.length(); i++) {
+            var chr = str.codePointAt(i);
+            switch (chr) {
+                case '\\' -> buffer.put((byte) '\\').put((byte) '\\');
+                case '\n' -> buffer.put((byte) '\\').put((byte) 'n');
+                case '\r' -> buffer.put((byte) '\\').put((byte) 'r');
+                case '\t' -> buffer.put((byte) '\\').put((byte) 't');
+                default -> {
+                    if (chr >= 0x80 && chr <= 0x10FFFF) {
+                        buffer.put(String.valueOf(str.charAt(i)).getBytes());
+                    } else if (chr > 0x1F) buffer.put((byte) chr);
+                }
+            }
+        }
+        return buffer.position();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(EscaperPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,87 @@
+package penna.core.internals;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import penna.core.logger.utils.RunnerOptions;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Compares writing a message from its cached template in {@link MessageTemplates} against scanning the format
+ * for placeholders every time, which is still what happens for formats that are not cached.
+ */
+public class MessageFormattingPerformanceTest {
+
+    public enum Format {
+        Short("User {} logged in from {}"),
+        Long("Request completed: method={} path={} status={} duration={}ms, while processing the batch of "
+                + "transactions for the account, which took longer than expected"),
+        Escaped("Unable to parse \"{\\\"id\\\": {}}\" at line {}\n\tcolumn {}");
+
+        final String text;
+
+        Format(String text) {
+            this.text = text;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        @Param
+        Format format;
+
+        final Object[] arguments = {1234, "10.0.0.12", 200, 15L};
+        DirectJson json;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            json = new DirectJson(new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) {
+                    var size = src.remaining();
+                    bh.consume(src);
+                    src.position(src.limit());
+                    return size;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {}
+            });
+        }
+
+        @TearDown
+        public void tearDown() {
+            json.release();
+        }
+    }
+
+    @Benchmark
+    public int cached(TestState state) {
+        state.json.buffer.clear();
+        state.json.writeRawFormatting(state.format.text, state.arguments);
+        return state.json.buffer.position();
+    }
+
+    @Benchmark
+    public int scanned(TestState state) {
+        state.json.buffer.clear();
+        state.json.writeScannedFormatting(state.format.text, state.arguments);
+        return state.json.buffer.position();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(MessageFormattingPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
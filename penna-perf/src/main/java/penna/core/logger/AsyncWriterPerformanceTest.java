@@ -0,0 +1,82 @@
+package penna.core.logger;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.slf4j.Logger;
+import org.slf4j.MarkerFactory;
+import penna.core.internals.TestContextPoolManager;
+import penna.core.logger.utils.RunnerOptions;
+import penna.core.logger.utils.SlowChannel;
+import penna.core.sink.CoreSink;
+import penna.core.sink.output.RingBufferChannel;
+
+import java.io.IOException;
+
+/**
+ * Compares the latency observed by the logging threads when writing inline to a slow channel
+ * against handing the messages off to the {@link RingBufferChannel}.
+ */
+public class AsyncWriterPerformanceTest {
+
+    public enum Mode {
+        Inline,
+        Async
+    }
+
+    @State(Scope.Benchmark)
+    public static class TestState {
+        @Param
+        Mode mode;
+
+        @Param({
+                "0",
+                "1000",
+                "10000"
+        })
+        long writeCost;
+
+        LoggerStorage storage;
+        Logger logger;
+        RingBufferChannel ring;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            var slowChannel = new SlowChannel(bh, writeCost);
+            switch (mode) {
+                case Inline -> TestContextPoolManager.replace(() -> new CoreSink(slowChannel));
+                case Async -> {
+                    ring = new RingBufferChannel(slowChannel);
+                    TestContextPoolManager.replace(() -> new CoreSink(ring));
+                }
+            }
+            storage = new LoggerStorage();
+            logger = storage.getOrCreate("jmh." + mode.name() + ".asyncWriterTest");
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            if (ring != null) {
+                ring.close();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void callerLatency(TestState state) {
+        state.logger.atInfo()
+                .addMarker(MarkerFactory.getMarker("For the win!"))
+                .addKeyValue("mode", state.mode)
+                .log("Some event: {}", "static-value");
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .sampleTime(AsyncWriterPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,70 @@
+package penna.core.logger;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.slf4j.Logger;
+import penna.api.models.Config;
+import penna.api.models.LogField;
+import penna.core.internals.TestContextPoolManager;
+import penna.core.logger.utils.RunnerOptions;
+import penna.core.logger.utils.SlowChannel;
+import penna.core.sink.CoreSink;
+
+/**
+ * Measures the cost of writing the fields of a message through the compiled emitters, with the default fields
+ * and with a minimal set of them, so the fixed cost per field can be told apart from the cost per message.
+ */
+public class FieldEmissionPerformanceTest {
+
+    public enum Fields {
+        Default(Config.getDefault().fields()),
+        Minimal(new LogField[]{LogField.LEVEL, LogField.LOGGER_NAME, LogField.MESSAGE});
+
+        final LogField[] fields;
+
+        Fields(LogField[] fields) {
+            this.fields = fields;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        @Param
+        Fields fields;
+
+        LoggerStorage storage;
+        Logger logger;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            var channel = new SlowChannel(bh, 0);
+            TestContextPoolManager.replace(() -> new CoreSink(channel));
+            storage = new LoggerStorage();
+            storage.replaceConfig(Config.getDefault().replaceFields(fields.fields));
+            logger = storage.getOrCreate("jmh." + fields.name() + ".fieldEmissionTest");
+        }
+    }
+
+    @Benchmark
+    public void simpleMessage(TestState state) {
+        state.logger.info("Request completed in {}ms", 42);
+    }
+
+    @Benchmark
+    public void richMessage(TestState state) {
+        state.logger.atInfo()
+                .addKeyValue("status", 200)
+                .addKeyValue("path", "/api/v1/accounts")
+                .log("Request completed in {}ms", 42);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(FieldEmissionPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
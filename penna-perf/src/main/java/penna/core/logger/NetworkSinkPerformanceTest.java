@@ -0,0 +1,131 @@
+package penna.core.logger;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.slf4j.Logger;
+import org.slf4j.MarkerFactory;
+import penna.api.models.Config;
+import penna.api.models.FlushPolicy;
+import penna.core.internals.TestContextPoolManager;
+import penna.core.logger.utils.RunnerOptions;
+import penna.core.sink.CoreSink;
+import penna.core.sink.framing.Framing;
+import penna.core.sink.framing.Gelf;
+import penna.core.sink.framing.Syslog;
+import penna.core.sink.output.DatagramSocketChannel;
+import penna.core.sink.output.StreamSocketChannel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Measures the throughput of sending syslog and GELF messages to a loopback server, either one message per
+ * datagram over UDP or in batches over TCP.
+ */
+public class NetworkSinkPerformanceTest {
+
+    public enum Protocol {
+        SyslogTcp,
+        SyslogUdp,
+        GelfTcp,
+        GelfUdp
+    }
+
+    @State(Scope.Benchmark)
+    public static class TestState {
+        @Param
+        Protocol protocol;
+
+        @Param({
+                "0",
+                "65536"
+        })
+        int batchBytes;
+
+        NetworkChannel server;
+        Thread reader;
+        WritableByteChannel output;
+        LoggerStorage storage;
+        Logger logger;
+
+        @Setup
+        public void setUp() throws IOException {
+            var loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+            Framing framing = switch (protocol) {
+                case SyslogTcp, SyslogUdp -> new Syslog("jmh");
+                case GelfTcp, GelfUdp -> new Gelf();
+            };
+
+            switch (protocol) {
+                case SyslogTcp, GelfTcp -> {
+                    var stream = ServerSocketChannel.open().bind(loopback);
+                    server = stream;
+                    reader = Thread.ofPlatform().start(() -> {
+                        try (var connection = stream.accept()) {
+                            var buffer = ByteBuffer.allocateDirect(64 * 1024);
+                            while (connection.read(buffer) >= 0) {
+                                buffer.clear();
+                            }
+                        } catch (IOException ignored) {
+                            // Benchmark is over
+                        }
+                    });
+                    output = new StreamSocketChannel(stream.getLocalAddress());
+                }
+                case SyslogUdp, GelfUdp -> {
+                    var datagram = DatagramChannel.open().bind(loopback);
+                    server = datagram;
+                    reader = Thread.ofPlatform().start(() -> {
+                        var buffer = ByteBuffer.allocateDirect(64 * 1024);
+                        try {
+                            while (datagram.receive(buffer) != null) {
+                                buffer.clear();
+                            }
+                        } catch (IOException ignored) {
+                            // Benchmark is over
+                        }
+                    });
+                    output = new DatagramSocketChannel((InetSocketAddress) datagram.getLocalAddress(), framing.delimiter()[0]);
+                }
+            }
+
+            var target = output;
+            TestContextPoolManager.replace(() -> new CoreSink(target, framing));
+            storage = new LoggerStorage();
+            var flushPolicy = batchBytes > 0 ? FlushPolicy.everyBytes(batchBytes) : FlushPolicy.immediate();
+            storage.replaceConfig(Config.getDefault().replaceFlushPolicy(flushPolicy));
+            logger = storage.getOrCreate("jmh." + protocol.name() + ".networkSinkTest");
+        }
+
+        @TearDown
+        public void tearDown() throws IOException, InterruptedException {
+            output.close();
+            server.close();
+            reader.join();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void throughput(TestState state) {
+        state.logger.atInfo()
+                .addMarker(MarkerFactory.getMarker("For the win!"))
+                .addKeyValue("protocol", state.protocol)
+                .log("Some event: {}", "static-value");
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(NetworkSinkPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
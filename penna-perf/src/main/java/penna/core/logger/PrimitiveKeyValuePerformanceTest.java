@@ -0,0 +1,70 @@
+package penna.core.logger;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.slf4j.Logger;
+import penna.api.logging.PennaEventBuilder;
+import penna.api.models.Config;
+import penna.core.internals.TestContextPoolManager;
+import penna.core.logger.utils.RunnerOptions;
+import penna.core.logger.utils.SlowChannel;
+import penna.core.sink.CoreSink;
+
+/**
+ * Compares adding numeric key/value pairs through the primitive overloads of {@link PennaEventBuilder} against the
+ * SLF4J ones, which box every value.
+ * <br />
+ * The allocation figures come from the gc profiler: {@code gc.alloc.rate.norm} for {@code primitive} should not
+ * grow with the number of pairs.
+ */
+public class PrimitiveKeyValuePerformanceTest {
+
+    @State(Scope.Thread)
+    public static class TestState {
+        LoggerStorage storage;
+        Logger logger;
+        long requests = 1_000_000L;
+        double latency = 12.5;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            var channel = new SlowChannel(bh, 0);
+            TestContextPoolManager.replace(() -> new CoreSink(channel));
+            storage = new LoggerStorage();
+            storage.replaceConfig(Config.getDefault());
+            logger = storage.getOrCreate("jmh.primitiveKeyValueTest");
+        }
+    }
+
+    @Benchmark
+    public void primitive(TestState state) {
+        PennaEventBuilder.of(state.logger.atInfo())
+                .addKeyValue("requests", state.requests++)
+                .addKeyValue("latencyMs", state.latency)
+                .addKeyValue("p99Ms", state.latency * 4)
+                .addKeyValue("errors", state.requests & 7)
+                .addKeyValue("healthy", true)
+                .log("Metrics");
+    }
+
+    @Benchmark
+    public void boxed(TestState state) {
+        state.logger.atInfo()
+                .addKeyValue("requests", state.requests++)
+                .addKeyValue("latencyMs", state.latency)
+                .addKeyValue("p99Ms", state.latency * 4)
+                .addKeyValue("errors", state.requests & 7)
+                .addKeyValue("healthy", true)
+                .log("Metrics");
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(PrimitiveKeyValuePerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,92 @@
+package penna.core.logger;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.slf4j.Logger;
+import penna.api.models.Config;
+import penna.api.models.LogField;
+import penna.core.api.SinkController;
+import penna.core.internals.TestContextPoolManager;
+import penna.core.logger.utils.RunnerOptions;
+import penna.core.logger.utils.SlowChannel;
+import penna.core.sink.CoreSink;
+
+/**
+ * Compares logging a record as a key/value pair through the built-in record serializer against a hand-written
+ * serializer for a record with the same shape, and against a class still written through its toString().
+ */
+public class RecordSerializationPerformanceTest {
+
+    public record Order(long id, String customer, double total, boolean paid) {}
+
+    public record HandWrittenOrder(long id, String customer, double total, boolean paid) {}
+
+    public static final class PlainOrder {
+        final long id;
+        final String customer;
+        final double total;
+        final boolean paid;
+
+        PlainOrder(long id, String customer, double total, boolean paid) {
+            this.id = id;
+            this.customer = customer;
+            this.total = total;
+            this.paid = paid;
+        }
+
+        @Override
+        public String toString() {
+            return "PlainOrder[id=" + id + ", customer=" + customer + ", total=" + total + ", paid=" + paid + "]";
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        final Order order = new Order(1234, "ACME Corp.", 99.95, true);
+        final HandWrittenOrder handWrittenOrder = new HandWrittenOrder(1234, "ACME Corp.", 99.95, true);
+        final PlainOrder plainOrder = new PlainOrder(1234, "ACME Corp.", 99.95, true);
+
+        LoggerStorage storage;
+        Logger logger;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            var channel = new SlowChannel(bh, 0);
+            TestContextPoolManager.replace(() -> new CoreSink(channel));
+            SinkController.registerSerializer(HandWrittenOrder.class, (order, writer) -> writer.beginObject()
+                    .name("id").value(order.id())
+                    .name("customer").value(order.customer())
+                    .name("total").value(order.total())
+                    .name("paid").value(order.paid())
+                    .endObject());
+            storage = new LoggerStorage();
+            storage.replaceConfig(Config.getDefault().replaceFields(LogField.MESSAGE, LogField.KEY_VALUE_PAIRS));
+            logger = storage.getOrCreate("jmh.recordSerializationTest");
+        }
+    }
+
+    @Benchmark
+    public void record(TestState state) {
+        state.logger.atInfo().addKeyValue("order", state.order).log("Order placed");
+    }
+
+    @Benchmark
+    public void handWritten(TestState state) {
+        state.logger.atInfo().addKeyValue("order", state.handWrittenOrder).log("Order placed");
+    }
+
+    @Benchmark
+    public void toStringFallback(TestState state) {
+        state.logger.atInfo().addKeyValue("order", state.plainOrder).log("Order placed");
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(RecordSerializationPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
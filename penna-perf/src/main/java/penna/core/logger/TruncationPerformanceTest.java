@@ -0,0 +1,75 @@
+package penna.core.logger;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.slf4j.Logger;
+import penna.api.models.Config;
+import penna.api.models.Limits;
+import penna.api.models.LogField;
+import penna.core.internals.TestContextPoolManager;
+import penna.core.logger.utils.RunnerOptions;
+import penna.core.logger.utils.SlowChannel;
+import penna.core.sink.CoreSink;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares logging oversized payloads, a long string and a large list, with the default limits, which truncate
+ * them, against the same loggers without limits, which write them in full.
+ */
+public class TruncationPerformanceTest {
+
+    @State(Scope.Thread)
+    public static class TestState {
+        final String text = "lorem ipsum dolor sit amet ".repeat(4096);
+        final List<Integer> items = Collections.nCopies(20_000, 42);
+
+        LoggerStorage storage;
+        Logger limited;
+        Logger unbounded;
+
+        @Setup
+        public void setUp(Blackhole bh) {
+            var channel = new SlowChannel(bh, 0);
+            TestContextPoolManager.replace(() -> new CoreSink(channel));
+            storage = new LoggerStorage();
+            storage.replaceConfig(Config.getDefault().replaceFields(LogField.MESSAGE, LogField.KEY_VALUE_PAIRS));
+            storage.replaceConfig("jmh.truncation.unbounded", Config.getDefault()
+                    .replaceFields(LogField.MESSAGE, LogField.KEY_VALUE_PAIRS)
+                    .replaceLimits(Limits.unbounded()));
+            limited = storage.getOrCreate("jmh.truncation.limited");
+            unbounded = storage.getOrCreate("jmh.truncation.unbounded");
+        }
+    }
+
+    @Benchmark
+    public void limitedText(TestState state) {
+        state.limited.atInfo().addKeyValue("text", state.text).log("Received {}", state.text);
+    }
+
+    @Benchmark
+    public void unboundedText(TestState state) {
+        state.unbounded.atInfo().addKeyValue("text", state.text).log("Received {}", state.text);
+    }
+
+    @Benchmark
+    public void limitedList(TestState state) {
+        state.limited.atInfo().addKeyValue("items", state.items).log("Received items");
+    }
+
+    @Benchmark
+    public void unboundedList(TestState state) {
+        state.unbounded.atInfo().addKeyValue("items", state.items).log("Received items");
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = RunnerOptions
+                .throughput(TruncationPerformanceTest.class.getName() + ".*")
+                .addProfiler("gc")
+                .build();
+
+        new Runner(options).run();
+    }
+}
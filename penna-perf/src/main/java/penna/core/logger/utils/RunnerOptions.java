@@ -41,4 +41,21 @@ public class RunnerOptions {
                 .jvm("/usr/lib/jvm/java-21-jetbrains/bin/java")
                 .jvmArgs("-Xmx8192m");
     }
+
+    public static ChainedOptionsBuilder sampleTime(String scope) {
+        return new OptionsBuilder()
+                .include(scope)
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .warmupTime(TimeValue.seconds(30))
+                .warmupIterations(3)
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(30))
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .threads(1)
+                .jvm("/usr/lib/jvm/java-21-jetbrains/bin/java")
+                .jvmArgs("-Xmx8192m");
+    }
 }
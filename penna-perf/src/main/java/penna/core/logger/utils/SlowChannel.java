@@ -0,0 +1,38 @@
+package penna.core.logger.utils;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Simulates a slow consumer (i.e. a busy container log driver reading from a pipe) by burning
+ * a fixed amount of CPU for every write call.
+ */
+public class SlowChannel implements WritableByteChannel {
+
+    final Blackhole bh;
+    final long tokensPerWrite;
+
+    public SlowChannel(Blackhole bh, long tokensPerWrite) {
+        this.bh = bh;
+        this.tokensPerWrite = tokensPerWrite;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        Blackhole.consumeCPU(tokensPerWrite);
+        int size = src.remaining();
+        bh.consume(src);
+        src.position(src.limit());
+        return size;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return bh != null;
+    }
+
+    @Override
+    public void close() {}
+}
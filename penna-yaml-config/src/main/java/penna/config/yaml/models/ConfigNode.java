@@ -1,9 +1,13 @@
 package penna.config.yaml.models;
 
 import org.slf4j.event.Level;
+import penna.api.models.BackpressurePolicy;
 import penna.api.models.Config;
 import penna.api.models.ExceptionHandling;
+import penna.api.models.FlushPolicy;
+import penna.api.models.Limits;
 import penna.api.models.LogField;
+import penna.api.models.Route;
 
 import java.util.List;
 
@@ -87,4 +91,57 @@ public sealed interface ConfigNode {
             );
         }
     }
+
+    /**
+     * Applies the flush policy on top of the configuration from the other properties.
+     *
+     * @param base  The node for the other properties of the logger, or null if the flush policy is all that is set.
+     * @param flush The flush policy to apply.
+     */
+    record WithFlushPolicy(ConfigNode base, FlushPolicy flush) implements ConfigNode {
+        @Override
+        public Config toConfig() {
+            return (base == null ? Config.getDefault() : base.toConfig()).replaceFlushPolicy(flush);
+        }
+    }
+
+    /**
+     * Applies the backpressure policy on top of the configuration from the other properties.
+     *
+     * @param base         The node for the other properties of the logger, or null if the backpressure policy
+     *                     is all that is set.
+     * @param backpressure The backpressure policy to apply.
+     */
+    record WithBackpressure(ConfigNode base, BackpressurePolicy backpressure) implements ConfigNode {
+        @Override
+        public Config toConfig() {
+            return (base == null ? Config.getDefault() : base.toConfig()).replaceBackpressure(backpressure);
+        }
+    }
+
+    /**
+     * Applies the routes to additional outputs on top of the configuration from the other properties.
+     *
+     * @param base   The node for the other properties of the logger, or null if the routes are all that is set.
+     * @param routes The routes to apply.
+     */
+    record WithRoutes(ConfigNode base, List<Route> routes) implements ConfigNode {
+        @Override
+        public Config toConfig() {
+            return (base == null ? Config.getDefault() : base.toConfig()).replaceRoutes(routes.toArray(Route[]::new));
+        }
+    }
+
+    /**
+     * Applies the limits on the size of the fields on top of the configuration from the other properties.
+     *
+     * @param base   The node for the other properties of the logger, or null if the limits are all that is set.
+     * @param limits The limits to apply.
+     */
+    record WithLimits(ConfigNode base, Limits limits) implements ConfigNode {
+        @Override
+        public Config toConfig() {
+            return (base == null ? Config.getDefault() : base.toConfig()).replaceLimits(limits);
+        }
+    }
 }
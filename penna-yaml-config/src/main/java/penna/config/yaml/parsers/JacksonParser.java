@@ -4,7 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.event.Level;
+import penna.api.models.BackpressurePolicy;
 import penna.api.models.ExceptionHandling;
+import penna.api.models.FlushPolicy;
+import penna.api.models.Limits;
+import penna.api.models.Route;
 import penna.config.yaml.models.ConfigMap;
 import penna.config.yaml.models.ConfigNode;
 
@@ -52,7 +57,109 @@ public final class JacksonParser implements Parser {
         return base;
     }
 
+    private FlushPolicy flush(JsonNode node) {
+        var next = node.get("flush");
+
+        var base = FlushPolicy.immediate();
+        if (next.has("bytes")) {
+            base = base.replaceMaxBytes(next.get("bytes").asInt());
+        }
+
+        if (next.has("micros")) {
+            base = base.replaceMaxDelayMicros(next.get("micros").asLong());
+        }
+
+        return base;
+    }
+
+    private BackpressurePolicy backpressure(JsonNode node) {
+        var next = node.get("backpressure");
+
+        var base = BackpressurePolicy.block();
+        try {
+            if (next.has("strategy")) {
+                base = base.replaceStrategy(BackpressurePolicy.Strategy.valueOf(next.get("strategy").asText().toUpperCase()));
+            }
+
+            if (next.has("threshold")) {
+                base = base.replaceThreshold(Level.valueOf(next.get("threshold").asText().toUpperCase()));
+            }
+
+            if (next.has("sampleRate")) {
+                base = base.replaceSampleRate(next.get("sampleRate").asInt());
+            }
+        } catch (IllegalArgumentException ignored) {}
+
+        return base;
+    }
+
+    private List<Route> routes(JsonNode node) {
+        var routes = new ArrayList<Route>();
+        for (var next : node.get("routes")) {
+            if (!next.hasNonNull("output")) {
+                continue;
+            }
+            var route = Route.to(next.get("output").asText());
+
+            if (next.has("level")) {
+                try {
+                    route = route.replaceLevel(Level.valueOf(next.get("level").asText().toUpperCase()));
+                } catch (IllegalArgumentException ignored) {
+                    // A malformed route is left out, the others are kept
+                    continue;
+                }
+            }
+
+            if (next.has("marker")) {
+                route = route.replaceMarker(next.get("marker").asText());
+            }
+            routes.add(route);
+        }
+
+        return routes;
+    }
+
+    private Limits limits(JsonNode node) {
+        var next = node.get("limits");
+
+        var base = Limits.getDefault();
+        if (next.has("messageBytes")) {
+            base = base.replaceMaxMessageBytes(next.get("messageBytes").asInt());
+        }
+
+        if (next.has("valueBytes")) {
+            base = base.replaceMaxValueBytes(next.get("valueBytes").asInt());
+        }
+
+        if (next.has("elements")) {
+            base = base.replaceMaxElements(next.get("elements").asInt());
+        }
+
+        if (next.has("depth")) {
+            base = base.replaceMaxDepth(next.get("depth").asInt());
+        }
+
+        return base;
+    }
+
     public ConfigNode deserialize(JsonNode node) throws IOException {
+        var base = deserializeBase(node);
+        if (node.hasNonNull("flush")) {
+            base = new ConfigNode.WithFlushPolicy(base, flush(node));
+        }
+        if (node.hasNonNull("backpressure")) {
+            base = new ConfigNode.WithBackpressure(base, backpressure(node));
+        }
+        if (node.hasNonNull("routes")) {
+            base = new ConfigNode.WithRoutes(base, routes(node));
+        }
+        if (node.hasNonNull("limits")) {
+            base = new ConfigNode.WithLimits(base, limits(node));
+        }
+        return base;
+    }
+
+    private ConfigNode deserializeBase(JsonNode node) throws IOException {
         // TODO recurse into the object, produce multiple objects
         var hasLevel = node.hasNonNull("level");
         var hasFields = node.hasNonNull("fields");
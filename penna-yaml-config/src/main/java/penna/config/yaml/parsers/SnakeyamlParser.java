@@ -1,13 +1,19 @@
 package penna.config.yaml.parsers;
 
+import org.slf4j.event.Level;
 import org.yaml.snakeyaml.Yaml;
+import penna.api.models.BackpressurePolicy;
 import penna.api.models.ExceptionHandling;
+import penna.api.models.FlushPolicy;
+import penna.api.models.Limits;
+import penna.api.models.Route;
 import penna.config.yaml.models.ConfigMap;
 import penna.config.yaml.models.ConfigNode;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,7 +59,135 @@ public final class SnakeyamlParser implements Parser {
         return base;
     }
 
+    @SuppressWarnings({"unchecked"})
+    private FlushPolicy flush(Map<String, Object> data) {
+        var base = FlushPolicy.immediate();
+        try {
+            Map<String, Object> next = (Map<String, Object>) data.get("flush");
+
+            Number bytes;
+            Number micros;
+
+            if ((bytes = (Number) next.get("bytes")) != null) {
+                base = base.replaceMaxBytes(bytes.intValue());
+            }
+
+            if ((micros = (Number) next.get("micros")) != null) {
+                base = base.replaceMaxDelayMicros(micros.longValue());
+            }
+        } catch (ClassCastException ignored) {}
+
+        return base;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private BackpressurePolicy backpressure(Map<String, Object> data) {
+        var base = BackpressurePolicy.block();
+        try {
+            Map<String, Object> next = (Map<String, Object>) data.get("backpressure");
+
+            String strategy;
+            String threshold;
+            Number sampleRate;
+
+            if ((strategy = (String) next.get("strategy")) != null) {
+                base = base.replaceStrategy(BackpressurePolicy.Strategy.valueOf(strategy.toUpperCase()));
+            }
+
+            if ((threshold = (String) next.get("threshold")) != null) {
+                base = base.replaceThreshold(Level.valueOf(threshold.toUpperCase()));
+            }
+
+            if ((sampleRate = (Number) next.get("sampleRate")) != null) {
+                base = base.replaceSampleRate(sampleRate.intValue());
+            }
+        } catch (ClassCastException | IllegalArgumentException ignored) {}
+
+        return base;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private List<Route> routes(Map<String, Object> data) {
+        var routes = new ArrayList<Route>();
+        List<?> next = (List<?>) data.get("routes");
+
+        // A malformed route is left out, the others are kept
+        for (var item : next) {
+            try {
+                Map<String, Object> entry = (Map<String, Object>) item;
+                String output;
+                String level;
+                String marker;
+
+                if ((output = (String) entry.get("output")) == null) {
+                    continue;
+                }
+                var route = Route.to(output);
+
+                if ((level = (String) entry.get("level")) != null) {
+                    route = route.replaceLevel(Level.valueOf(level.toUpperCase()));
+                }
+
+                if ((marker = (String) entry.get("marker")) != null) {
+                    route = route.replaceMarker(marker);
+                }
+                routes.add(route);
+            } catch (ClassCastException | IllegalArgumentException | NullPointerException ignored) {}
+        }
+
+        return routes;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private Limits limits(Map<String, Object> data) {
+        var base = Limits.getDefault();
+        try {
+            Map<String, Object> next = (Map<String, Object>) data.get("limits");
+
+            Number messageBytes;
+            Number valueBytes;
+            Number elements;
+            Number depth;
+
+            if ((messageBytes = (Number) next.get("messageBytes")) != null) {
+                base = base.replaceMaxMessageBytes(messageBytes.intValue());
+            }
+
+            if ((valueBytes = (Number) next.get("valueBytes")) != null) {
+                base = base.replaceMaxValueBytes(valueBytes.intValue());
+            }
+
+            if ((elements = (Number) next.get("elements")) != null) {
+                base = base.replaceMaxElements(elements.intValue());
+            }
+
+            if ((depth = (Number) next.get("depth")) != null) {
+                base = base.replaceMaxDepth(depth.intValue());
+            }
+        } catch (ClassCastException ignored) {}
+
+        return base;
+    }
+
     public ConfigNode deserialize(Map<String, Object> node) throws IOException {
+        var base = deserializeBase(node);
+        // Blocks left empty are skipped, as in the Jackson parser
+        if (node.get("flush") instanceof Map) {
+            base = new ConfigNode.WithFlushPolicy(base, flush(node));
+        }
+        if (node.get("backpressure") instanceof Map) {
+            base = new ConfigNode.WithBackpressure(base, backpressure(node));
+        }
+        if (node.get("routes") instanceof List) {
+            base = new ConfigNode.WithRoutes(base, routes(node));
+        }
+        if (node.get("limits") instanceof Map) {
+            base = new ConfigNode.WithLimits(base, limits(node));
+        }
+        return base;
+    }
+
+    private ConfigNode deserializeBase(Map<String, Object> node) throws IOException {
         // TODO recurse into the object, produce multiple objects
         var hasLevel = node.containsKey("level");
         var hasFields = node.containsKey("fields");
@@ -2,7 +2,12 @@ package penna.config.yaml.parser;
 
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junitpioneer.jupiter.cartesian.CartesianParameterArgumentsProvider;
+import org.slf4j.event.Level;
+import penna.api.models.BackpressurePolicy;
 import penna.api.models.ExceptionHandling;
+import penna.api.models.FlushPolicy;
+import penna.api.models.Limits;
+import penna.api.models.Route;
 import penna.config.yaml.models.ConfigMap;
 import penna.config.yaml.models.ConfigNode;
 
@@ -88,7 +93,156 @@ public class ParserTestCasesProvider implements CartesianParameterArgumentsProvi
                             "penna", new ConfigNode.OnlyLevel("debug"),
                             "penna.loggers.yaml", new ConfigNode.LevelAndFields("trace", List.of("message")),
                             "com.other", new ConfigNode.OnlyLevel("warn")
-                    ), true))
+                    ), true)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        penna:
+                            level: debug
+                            flush:
+                                bytes: 65536
+                                micros: 500
+                    """, new ConfigMap(
+                    Map.of("penna",
+                            new ConfigNode.WithFlushPolicy(
+                                    new ConfigNode.OnlyLevel("debug"),
+                                    new FlushPolicy(65536, 500L)
+                            )
+                    ), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        "": { flush: { micros: 1000 } }
+                    """, new ConfigMap(
+                    Map.of("", new ConfigNode.WithFlushPolicy(null, FlushPolicy.everyMicros(1000L))), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        penna:
+                            level: debug
+                            flush:
+                    """, new ConfigMap(Map.of("penna", new ConfigNode.OnlyLevel("debug")), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        com.chatty:
+                            level: trace
+                            backpressure:
+                                strategy: drop
+                                threshold: debug
+                    """, new ConfigMap(
+                    Map.of("com.chatty",
+                            new ConfigNode.WithBackpressure(
+                                    new ConfigNode.OnlyLevel("trace"),
+                                    BackpressurePolicy.drop(Level.DEBUG)
+                            )
+                    ), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        com.chatty:
+                            level: trace
+                            backpressure:
+                                strategy: dorp
+                                threshold: debug
+                        com.quiet:
+                            level: debug
+                            backpressure:
+                    """, new ConfigMap(
+                    Map.of(
+                            "com.chatty", new ConfigNode.WithBackpressure(
+                                    new ConfigNode.OnlyLevel("trace"),
+                                    BackpressurePolicy.block()
+                            ),
+                            "com.quiet", new ConfigNode.OnlyLevel("debug")
+                    ), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        "":
+                            flush: { bytes: 4096 }
+                            backpressure: { strategy: sample, threshold: info, sampleRate: 10 }
+                    """, new ConfigMap(
+                    Map.of("",
+                            new ConfigNode.WithBackpressure(
+                                    new ConfigNode.WithFlushPolicy(null, FlushPolicy.everyBytes(4096)),
+                                    BackpressurePolicy.sample(Level.INFO, 10)
+                            )
+                    ), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        com.company.billing:
+                            level: debug
+                            routes:
+                              - output: audit
+                                marker: AUDIT
+                              - output: alerts
+                                level: error
+                    """, new ConfigMap(
+                    Map.of("com.company.billing",
+                            new ConfigNode.WithRoutes(
+                                    new ConfigNode.OnlyLevel("debug"),
+                                    List.of(
+                                            Route.to("audit").replaceMarker("AUDIT"),
+                                            Route.to("alerts").replaceLevel(Level.ERROR)
+                                    )
+                            )
+                    ), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        com.company.billing:
+                            level: debug
+                            routes:
+                              - output: alerts
+                                level: eror
+                              - output: audit
+                                marker: AUDIT
+                        com.company.shipping:
+                            level: debug
+                            routes:
+                    """, new ConfigMap(
+                    Map.of(
+                            "com.company.billing", new ConfigNode.WithRoutes(
+                                    new ConfigNode.OnlyLevel("debug"),
+                                    List.of(Route.to("audit").replaceMarker("AUDIT"))
+                            ),
+                            "com.company.shipping", new ConfigNode.OnlyLevel("debug")
+                    ), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        com.company.payloads:
+                            level: debug
+                            limits: { messageBytes: 8192, elements: 100, depth: 4 }
+                    """, new ConfigMap(
+                    Map.of("com.company.payloads",
+                            new ConfigNode.WithLimits(
+                                    new ConfigNode.OnlyLevel("debug"),
+                                    Limits.getDefault()
+                                            .replaceMaxMessageBytes(8192)
+                                            .replaceMaxElements(100)
+                                            .replaceMaxDepth(4)
+                            )
+                    ), false)),
+            new TestData("""
+                    ---
+                    watch: false
+                    loggers:
+                        com.company.payloads:
+                            level: debug
+                            limits:
+                    """, new ConfigMap(Map.of("com.company.payloads", new ConfigNode.OnlyLevel("debug")), false))
     );
 
     @Override